@@ -46,12 +46,12 @@ package io.gatehill.imposter.awslambda.impl.model
 import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent
 import com.google.common.io.BaseEncoding
 import io.gatehill.imposter.awslambda.util.FormParserUtil
+import io.gatehill.imposter.http.CaseInsensitiveHeaders
 import io.gatehill.imposter.http.HttpMethod
 import io.gatehill.imposter.http.HttpRequest
 import io.gatehill.imposter.http.HttpRoute
 import io.gatehill.imposter.http.HttpRouter
 import io.gatehill.imposter.http.util.PathNormaliser
-import io.gatehill.imposter.script.LowercaseKeysMap
 import io.vertx.core.buffer.Buffer
 import io.vertx.core.json.JsonObject
 
@@ -70,7 +70,7 @@ class LambdaHttpRequestV2(
     }
 
     private val _headers by lazy {
-        event.headers?.let { LowercaseKeysMap(it) } ?: emptyMap()
+        event.headers?.let { CaseInsensitiveHeaders.of(it, lowercaseKeys = true) } ?: CaseInsensitiveHeaders.empty()
     }
 
     init {
@@ -73,14 +73,25 @@ class LambdaHttpResponse : HttpResponse {
         return headers.filterKeys { headerKeys.contains(it.lowercase()) }
     }
 
+    /**
+     * Lambda responses cannot be streamed, so chunks are accumulated until the response is ended.
+     */
+    override fun write(chunk: Buffer) {
+        bodyBuffer = bodyBuffer?.appendBuffer(chunk) ?: chunk.copy()
+    }
+
     override fun end() {
         markFinished()
-        /* no op */
+        setContentLength()
     }
 
     override fun end(body: Buffer) {
         markFinished()
         bodyBuffer = body
+        setContentLength()
+    }
+
+    private fun setContentLength() {
         if (!headers.containsKey("Content-Length") && bodyLength > 0) {
             headers["Content-Length"] = bodyLength.toString()
         }
@@ -44,6 +44,7 @@ package io.gatehill.imposter.server.vertxweb
 
 import com.google.inject.Injector
 import io.gatehill.imposter.ImposterConfig
+import io.gatehill.imposter.config.util.EnvVars
 import io.gatehill.imposter.http.HttpExchangeFutureHandler
 import io.gatehill.imposter.http.HttpRouter
 import io.gatehill.imposter.server.HttpServer
@@ -81,6 +82,13 @@ class VertxWebServerFactoryImpl : ServerFactory {
         LOGGER.trace("Starting mock server on {}:{}", imposterConfig.host, imposterConfig.listenPort)
         val serverOptions = HttpServerOptions()
 
+        // compress responses on the fly, unless already encoded
+        if (EnvVars.getEnv(ENV_RESPONSE_COMPRESSION)?.toBoolean() == true) {
+            LOGGER.trace("Response compression is enabled")
+            serverOptions.isCompressionSupported = true
+            EnvVars.getEnv(ENV_RESPONSE_COMPRESSION_LEVEL)?.let { serverOptions.compressionLevel = it.toInt() }
+        }
+
         // configure keystore and enable HTTPS
         if (imposterConfig.isTlsEnabled) {
             LOGGER.trace("TLS is enabled")
@@ -188,5 +196,7 @@ class VertxWebServerFactoryImpl : ServerFactory {
 
     companion object {
         private val LOGGER = LogManager.getLogger(VertxWebServerFactoryImpl::class.java)
+        private const val ENV_RESPONSE_COMPRESSION = "IMPOSTER_RESPONSE_COMPRESSION"
+        private const val ENV_RESPONSE_COMPRESSION_LEVEL = "IMPOSTER_RESPONSE_COMPRESSION_LEVEL"
     }
 }
@@ -42,6 +42,7 @@
  */
 package io.gatehill.imposter.server.vertxweb.impl
 
+import io.gatehill.imposter.http.CaseInsensitiveHeaders
 import io.gatehill.imposter.http.HttpMethod
 import io.gatehill.imposter.http.HttpRequest
 import io.gatehill.imposter.http.HttpRouter
@@ -62,7 +63,7 @@ class VertxHttpRequest(
     private val vertxRequest = routingContext.request()
     private val _queryParams by lazy { CollectionUtil.asMap(routingContext.queryParams()) }
     private val _formParams by lazy { CollectionUtil.asMap(vertxRequest.formAttributes()) }
-    private val _headers by lazy { CollectionUtil.asMap(vertxRequest.headers()) }
+    private val _headers by lazy { CaseInsensitiveHeaders.of(vertxRequest.headers()) }
 
     override val path: String
         get() = vertxRequest.path() ?: ""
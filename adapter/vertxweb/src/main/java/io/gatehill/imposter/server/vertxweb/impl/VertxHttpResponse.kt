@@ -46,7 +46,9 @@ import io.gatehill.imposter.http.HttpExchange
 import io.gatehill.imposter.http.HttpResponse
 import io.gatehill.imposter.http.HttpRouter
 import io.vertx.core.buffer.Buffer
+import io.vertx.core.http.HttpHeaders
 import io.vertx.core.http.HttpServerResponse
+import org.apache.logging.log4j.LogManager
 
 /**
  * @author Pete Cornish
@@ -82,21 +84,64 @@ class VertxHttpResponse(
             .associate { it.key to it.value }
     }
 
+    override val streamsChunks = true
+
+    override val writeQueueFull: Boolean
+        get() = vertxResponse.writeQueueFull()
+
+    override fun drainHandler(handler: () -> Unit) {
+        vertxResponse.drainHandler { handler() }
+    }
+
+    override fun write(chunk: Buffer) {
+        if (!vertxResponse.headWritten()) {
+            // headers are sent with the first chunk
+            router.invokeBeforeEndHandlers(exchange)
+            if (null == vertxResponse.headers()[HttpHeaders.CONTENT_LENGTH]) {
+                vertxResponse.isChunked = true
+            }
+        }
+        vertxResponse.write(chunk)
+    }
+
     override fun end() {
         markFinished()
-        router.invokeBeforeEndHandlers(exchange)
+        if (!vertxResponse.headWritten()) {
+            router.invokeBeforeEndHandlers(exchange)
+        }
         vertxResponse.end()
     }
 
     override fun end(body: Buffer) {
         markFinished()
-        router.invokeBeforeEndHandlers(exchange)
+        if (!vertxResponse.headWritten()) {
+            router.invokeBeforeEndHandlers(exchange)
+        }
         bodyBuffer = body
         vertxResponse.end(body)
     }
 
+    override fun sendFile(filePath: String) {
+        markFinished()
+        if (!vertxResponse.headWritten()) {
+            router.invokeBeforeEndHandlers(exchange)
+        }
+        vertxResponse.sendFile(filePath).onFailure {
+            LOGGER.error("Error sending file: $filePath", it)
+            if (vertxResponse.headWritten()) {
+                vertxResponse.close()
+            } else {
+                vertxResponse.setStatusCode(500).end()
+            }
+        }
+    }
+
     override fun close() {
         markFinished()
         vertxResponse.close()
     }
+
+    companion object {
+        private val LOGGER = LogManager.getLogger(VertxHttpResponse::class.java)
+    }
 }
@@ -97,4 +97,11 @@ interface EngineLifecycleListener {
     fun afterResponseSent(httpExchange: HttpExchange, resourceConfig: ResourceConfig?) {
         // no op
     }
+
+    /**
+     * Invoked when the engine is stopping, before the server is closed.
+     */
+    fun beforeStop() {
+        // no op
+    }
 }
@@ -42,6 +42,7 @@
  */
 package io.gatehill.imposter.script
 
+import com.fasterxml.jackson.annotation.JsonIgnore
 import com.fasterxml.jackson.annotation.JsonProperty
 
 /**
@@ -56,4 +57,57 @@ data class PerformanceSimulationConfig(
 
     @JsonProperty("max")
     var maxDelayMs: Int? = null,
-)
+
+    /**
+     * How the delay is sampled, if not exact. Defaults to [DelayDistribution.Uniform]
+     * between the min and max delays.
+     */
+    @JsonProperty("distribution")
+    var distribution: DelayDistribution? = null,
+
+    /**
+     * The median delay, for the log-normal distribution.
+     */
+    @JsonProperty("median")
+    var medianDelayMs: Int? = null,
+
+    /**
+     * The 99th percentile delay, for the log-normal distribution.
+     */
+    @JsonProperty("p99")
+    var p99DelayMs: Int? = null,
+
+    /**
+     * The delay at each percentile, for the percentiles distribution, such as `50: 20` and `99: 300`.
+     */
+    @JsonProperty("percentiles")
+    var percentileDelaysMs: Map<Int, Int>? = null,
+
+    /**
+     * If set, the body is streamed in chunks at this rate, in bytes per second,
+     * once the delay has elapsed.
+     */
+    @JsonProperty("throughput")
+    var throughputBytesPerSec: Long? = null,
+
+    /**
+     * If set, and no throughput is set, the body is streamed in chunks so that
+     * the response completes this long after the request is handled. The delay
+     * then determines the time to first byte.
+     */
+    @JsonProperty("total")
+    var totalMs: Int? = null,
+
+    /**
+     * The size of each streamed chunk. Defaults to a tenth of a second's worth of data.
+     */
+    @JsonProperty("chunkSize")
+    var chunkSizeBytes: Int? = null,
+) {
+    /**
+     * Whether the body should be streamed in chunks.
+     */
+    @get:JsonIgnore
+    val isStreamed: Boolean
+        get() = (throughputBytesPerSec ?: 0) > 0 || (totalMs ?: 0) > 0
+}
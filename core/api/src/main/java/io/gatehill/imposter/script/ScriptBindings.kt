@@ -48,28 +48,42 @@ import org.apache.logging.log4j.LogManager
 import org.apache.logging.log4j.Logger
 
 /**
+ * Bindings for a script execution. Bindings that are the same for every
+ * execution of a script are held in a [SharedScriptBindings], so only the
+ * per-request bindings are created for each execution.
+ *
  * @author Pete Cornish
  */
 class ScriptBindings(
-    private val env: Map<String, String>,
-    private val logger: Logger,
-    private val pluginConfig: PluginConfig,
+    private val shared: SharedScriptBindings,
     private val additionalBindings: Map<String, Any>?,
     val executionContext: ExecutionContext
 ) {
+    constructor(
+        env: Map<String, String>,
+        logger: Logger,
+        pluginConfig: PluginConfig,
+        additionalBindings: Map<String, Any>?,
+        executionContext: ExecutionContext
+    ) : this(SharedScriptBindings(env, logger, pluginConfig), additionalBindings, executionContext)
+
+    /**
+     * Invokes [action] for each binding, without building an intermediate map.
+     * Later bindings take precedence over earlier ones with the same name, so
+     * additional bindings are visited last.
+     */
+    fun forEachBinding(action: (name: String, value: Any) -> Unit) {
+        shared.bindings.forEach { (name, value) -> action(name, value) }
+        action("context", executionContext)
+        additionalBindings?.forEach { (name, value) -> action(name, value) }
+    }
 
     /**
      * @return a representation of the script bindings as a [Map]
      */
     fun asMap(): Map<String, Any> {
-        val bindings: MutableMap<String, Any> = mutableMapOf()
-        bindings["config"] = pluginConfig
-        bindings["context"] = executionContext
-        bindings["env"] = env
-        bindings["logger"] = logger
-
-        // add custom bindings
-        additionalBindings?.let(bindings::putAll)
+        val bindings = HashMap<String, Any>(shared.bindings.size + (additionalBindings?.size ?: 0) + 2)
+        forEachBinding { name, value -> bindings[name] = value }
         return bindings
     }
 
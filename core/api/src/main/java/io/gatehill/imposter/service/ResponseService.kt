@@ -131,6 +131,21 @@ interface ResponseService {
         trustedData: Boolean,
     )
 
+    /**
+     * Write the file at the given path as the response body, without reading it into
+     * memory where supported by the server. Placeholders are not resolved.
+     *
+     * @param httpExchange the HTTP exchange
+     * @param filenameHintForContentType the filename from which to infer the content type, if not set
+     * @param filePath     the path of the file on the filesystem
+     */
+    fun writeResponseFile(
+        resourceConfig: ResourceConfig?,
+        httpExchange: HttpExchange,
+        filenameHintForContentType: String?,
+        filePath: String,
+    )
+
     /**
      * Invoke the `block`, then finalise the exchange by setting the phase, and
      * calling any configured listeners.
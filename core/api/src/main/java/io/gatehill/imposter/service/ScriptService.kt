@@ -72,6 +72,15 @@ interface ScriptService {
 
     fun executeEvalScript(scriptId: String, scriptCode: String, scriptBindings: ScriptBindings): Boolean =
         throw NotImplementedError()
+
+    /**
+     * Interrupt the script execution running on the given thread, such as when
+     * it has exceeded its timeout. The default implementation interrupts the thread,
+     * which only stops a script that is blocked in an interruptible call.
+     *
+     * @param thread the thread executing the script
+     */
+    fun interruptExecution(thread: Thread) = thread.interrupt()
 }
 
 typealias ScriptContextBuilder = (request: HttpRequest, additional: Map<String, Any>?) -> ExecutionContext
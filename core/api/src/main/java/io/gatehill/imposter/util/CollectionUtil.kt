@@ -42,6 +42,7 @@
  */
 package io.gatehill.imposter.util
 
+import io.gatehill.imposter.http.CaseInsensitiveHeaders
 import io.vertx.core.MultiMap
 import java.util.Locale
 
@@ -64,4 +65,14 @@ object CollectionUtil {
     fun <V> convertKeysToLowerCase(input: Map<String, V>): Map<String, V> {
         return input.entries.associate { (k, v) -> k.lowercase(Locale.getDefault()) to v }
     }
+
+    /**
+     * Avoids copying the input if it is a [CaseInsensitiveHeaders] view.
+     *
+     * @return the input map with all keys in lowercase
+     */
+    @JvmStatic
+    fun convertKeysToLowerCaseView(input: Map<String, String>): Map<String, String> {
+        return (input as? CaseInsensitiveHeaders)?.lowercased() ?: convertKeysToLowerCase(input)
+    }
 }
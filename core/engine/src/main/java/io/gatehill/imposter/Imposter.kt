@@ -237,6 +237,7 @@ class Imposter(
 
     fun stop(promise: Promise<Void>) {
         LOGGER.info("Stopping mock server on {}:{}", imposterConfig.host, imposterConfig.listenPort)
+        engineLifecycle.forEach { listener -> listener.beforeStop() }
         httpServer?.close(AsyncUtil.resolvePromiseOnCompletion(promise)) ?: promise.complete()
     }
 
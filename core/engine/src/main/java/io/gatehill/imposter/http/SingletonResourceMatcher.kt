@@ -47,7 +47,7 @@ import io.gatehill.imposter.plugin.config.PluginConfig
 import io.gatehill.imposter.plugin.config.resource.BasicResourceConfig
 import io.gatehill.imposter.plugin.config.resource.conditional.ConditionalNameValuePair
 import io.gatehill.imposter.plugin.config.resource.request.MethodResourceConfig
-import io.gatehill.imposter.util.CollectionUtil.convertKeysToLowerCase
+import io.gatehill.imposter.util.CollectionUtil.convertKeysToLowerCaseView
 import io.gatehill.imposter.util.MatchUtil.conditionMatches
 import java.util.*
 
@@ -118,7 +118,7 @@ class SingletonResourceMatcher : AbstractResourceMatcher() {
         }
 
         // optionally normalise request map
-        val comparisonRequestMap = if (caseSensitiveKeyMatch) requestMap else convertKeysToLowerCase(requestMap)
+        val comparisonRequestMap = if (caseSensitiveKeyMatch) requestMap else convertKeysToLowerCaseView(requestMap)
 
         // all members of the config map must be present in the request for it to match
         val allEqual = resourceMap.all { (key, condition) ->
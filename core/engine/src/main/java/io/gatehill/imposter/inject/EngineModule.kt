@@ -51,6 +51,7 @@ import io.gatehill.imposter.service.HandlerServiceImpl
 import io.gatehill.imposter.service.InterceptorService
 import io.gatehill.imposter.service.InterceptorServiceImpl
 import io.gatehill.imposter.service.RemoteService
+import io.gatehill.imposter.service.ResponseDelayScheduler
 import io.gatehill.imposter.service.ResponseFileService
 import io.gatehill.imposter.service.ResponseFileServiceImpl
 import io.gatehill.imposter.service.ResponseRoutingService
@@ -64,6 +65,7 @@ import io.gatehill.imposter.service.UpstreamService
 import io.gatehill.imposter.service.script.EmbeddedScriptService
 import io.gatehill.imposter.service.script.EmbeddedScriptServiceImpl
 import io.gatehill.imposter.service.script.EvalScriptService
+import io.gatehill.imposter.service.script.ScriptExecutionScheduler
 import io.gatehill.imposter.service.script.ScriptServiceFactory
 import io.gatehill.imposter.service.script.ScriptedResponseServiceImpl
 import io.gatehill.imposter.service.security.CorsService
@@ -82,6 +84,7 @@ internal class EngineModule : AbstractModule() {
         bind(ResponseFileService::class.java).to(ResponseFileServiceImpl::class.java).asSingleton()
         bind(FileCacheService::class.java).to(FileCacheServiceImpl::class.java).asSingleton()
         bind(CharacteristicsService::class.java).asSingleton()
+        bind(ResponseDelayScheduler::class.java).asSingleton()
         bind(ScriptServiceFactory::class.java).asSingleton()
 
         // needs to be eager to register lifecycle listener
@@ -91,6 +94,7 @@ internal class EngineModule : AbstractModule() {
 
         bind(EmbeddedScriptService::class.java).to(EmbeddedScriptServiceImpl::class.java).asSingleton()
         bind(EvalScriptService::class.java).asSingleton()
+        bind(ScriptExecutionScheduler::class.java).asSingleton()
 
         // needs to be eager to register lifecycle listener
         bind(SecurityService::class.java).to(SecurityServiceImpl::class.java).asEagerSingleton()
@@ -98,8 +98,9 @@ class LazyScriptRequest(
     /**
      * @return the [headers] map, but with all keys in lowercase
      */
-    override val normalisedHeaders: Map<String, String>
-        get() = CollectionUtil.convertKeysToLowerCase(headers)
+    override val normalisedHeaders: Map<String, String> by lazy {
+        CollectionUtil.convertKeysToLowerCaseView(headers)
+    }
 
     /**
      * Legacy property removed.
@@ -60,6 +60,8 @@ import kotlin.io.path.pathString
 class ScriptProcessingStep(
     private val scriptedResponseService: ScriptedResponseService,
 ) : ProcessingStep {
+    private val responseCache by lazy { ScriptResponseCache() }
+
     override fun execute(
         context: StepContext,
         httpExchange: HttpExchange,
@@ -68,6 +70,21 @@ class ScriptProcessingStep(
         additionalContext: Map<String, Any>?,
     ): ReadWriteResponseBehaviour {
         val ctx = context as ScriptStepContext
+        if (ctx.config.cacheable) {
+            return responseCache.getOrExecute(ctx, httpExchange.request) {
+                executeScript(ctx, httpExchange, statusCode, responseBehaviourFactory, additionalContext)
+            }
+        }
+        return executeScript(ctx, httpExchange, statusCode, responseBehaviourFactory, additionalContext)
+    }
+
+    private fun executeScript(
+        ctx: ScriptStepContext,
+        httpExchange: HttpExchange,
+        statusCode: Int,
+        responseBehaviourFactory: ResponseBehaviourFactory,
+        additionalContext: Map<String, Any>?,
+    ): ReadWriteResponseBehaviour {
         val script = parseScriptSource(ctx)
 
         val responseBehaviour = scriptedResponseService.determineResponseFromScript(
@@ -119,6 +136,38 @@ data class ScriptStepConfig(
     @JsonProperty("language")
     @JsonAlias("lang")
     val language: String? = null,
+
+    /**
+     * Whether the step's response behaviour can be reused for requests
+     * with the same inputs, as declared in [cache].
+     */
+    @JsonProperty("cacheable")
+    val cacheable: Boolean = false,
+
+    @JsonProperty("cache")
+    val cache: ScriptStepCacheConfig? = null,
+)
+
+/**
+ * Declares the request inputs that form the cache key for a cacheable
+ * script step, along with the limits for its cache.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+data class ScriptStepCacheConfig(
+    @JsonProperty("pathParams")
+    val pathParams: List<String>? = null,
+
+    @JsonProperty("queryParams")
+    val queryParams: List<String>? = null,
+
+    @JsonProperty("headers")
+    val headers: List<String>? = null,
+
+    @JsonProperty("maxEntries")
+    val maxEntries: Int? = null,
+
+    @JsonProperty("ttlSeconds")
+    val ttlSeconds: Long? = null,
 )
 
 data class ScriptStepContext(
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2023-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.model.steps
+
+import com.google.common.cache.Cache
+import com.google.common.cache.CacheBuilder
+import io.gatehill.imposter.http.HttpRequest
+import io.gatehill.imposter.script.ReadWriteResponseBehaviour
+import io.gatehill.imposter.script.ReadWriteResponseBehaviourImpl
+import io.gatehill.imposter.util.MetricsUtil
+import io.micrometer.core.instrument.Counter
+import org.apache.logging.log4j.LogManager
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+
+/**
+ * Memoises the response behaviour produced by script steps marked as `cacheable`.
+ *
+ * Entries are keyed by the request method, the request path and the request
+ * inputs declared in the step's cache configuration, so the script must depend
+ * only on those inputs and have no side effects.
+ */
+class ScriptResponseCache {
+    private val caches = ConcurrentHashMap<String, Cache<List<String?>, ReadWriteResponseBehaviour>>()
+
+    private var hitCounter: Counter? = null
+    private var missCounter: Counter? = null
+
+    init {
+        MetricsUtil.doIfMetricsEnabled(METRIC_HITS) { registry ->
+            hitCounter = Counter.builder(METRIC_HITS)
+                .description("The number of script step executions served from the response cache")
+                .register(registry)
+
+            missCounter = Counter.builder(METRIC_MISSES)
+                .description("The number of cacheable script step executions not found in the response cache")
+                .register(registry)
+        }
+    }
+
+    /**
+     * Returns a copy of the cached response behaviour for the request, or
+     * invokes [block] and caches a copy of its result.
+     */
+    fun getOrExecute(
+        ctx: ScriptStepContext,
+        request: HttpRequest,
+        block: () -> ReadWriteResponseBehaviour,
+    ): ReadWriteResponseBehaviour {
+        val cacheConfig = ctx.config.cache ?: ScriptStepCacheConfig()
+        val cache = caches.computeIfAbsent(ctx.stepId) { buildCache(ctx.stepId, cacheConfig) }
+        val key = buildKey(cacheConfig, request)
+
+        cache.getIfPresent(key)?.let { cached ->
+            LOGGER.trace("Response cache hit for step {} with key: {}", ctx.stepId, key)
+            hitCounter?.increment()
+            return copy(cached)
+        }
+
+        missCounter?.increment()
+        val responseBehaviour = block()
+        cache.put(key, copy(responseBehaviour))
+        return responseBehaviour
+    }
+
+    private fun buildCache(stepId: String, cacheConfig: ScriptStepCacheConfig): Cache<List<String?>, ReadWriteResponseBehaviour> {
+        if (cacheConfig.pathParams.isNullOrEmpty() && cacheConfig.queryParams.isNullOrEmpty() && cacheConfig.headers.isNullOrEmpty()) {
+            LOGGER.warn(
+                "Script step {} is cacheable but declares no request inputs - responses will be cached by method and path only",
+                stepId
+            )
+        }
+        val builder = CacheBuilder.newBuilder()
+            .maximumSize(cacheConfig.maxEntries?.toLong() ?: DEFAULT_MAX_ENTRIES)
+        cacheConfig.ttlSeconds?.takeIf { it > 0 }?.let { builder.expireAfterWrite(it, TimeUnit.SECONDS) }
+        return builder.build()
+    }
+
+    companion object {
+        private val LOGGER = LogManager.getLogger(ScriptResponseCache::class.java)
+        private const val DEFAULT_MAX_ENTRIES = 1000L
+        private const val METRIC_HITS = "script.response.cache.hits"
+        private const val METRIC_MISSES = "script.response.cache.misses"
+
+        /**
+         * Builds a key from the request inputs. The inputs are held as separate list
+         * elements, rather than concatenated, so values cannot collide with each other.
+         * Inputs are in the order declared, which is fixed for a given step.
+         */
+        internal fun buildKey(cacheConfig: ScriptStepCacheConfig, request: HttpRequest): List<String?> {
+            val key = mutableListOf<String?>(request.method.name, request.path)
+            cacheConfig.pathParams?.forEach { key += request.getPathParam(it) }
+            cacheConfig.queryParams?.forEach { key += request.getQueryParam(it) }
+            cacheConfig.headers?.forEach { key += request.getHeader(it) }
+            return key
+        }
+
+        /**
+         * Callers mutate the response behaviour after the step returns,
+         * so cache entries are never handed out directly.
+         */
+        private fun copy(source: ReadWriteResponseBehaviour): ReadWriteResponseBehaviour {
+            return ReadWriteResponseBehaviourImpl().also {
+                it.behaviourType = source.behaviourType
+                it.statusCode = source.statusCode
+                it.responseFile = source.responseFile
+                it.content = source.content
+                it.isTemplate = source.isTemplate
+                it.responseHeaders.putAll(source.responseHeaders)
+                it.performanceSimulation = source.performanceSimulation
+                it.failureType = source.failureType
+                it.exampleName = source.exampleName
+                it.soapFault = source.soapFault
+            }
+        }
+    }
+}
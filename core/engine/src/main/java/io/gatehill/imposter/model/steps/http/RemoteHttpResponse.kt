@@ -73,6 +73,10 @@ class RemoteHttpResponse(
         return remoteResp.headers.toMap().mapKeys { (key, _) -> key.lowercase() }
     }
 
+    override fun write(chunk: Buffer) {
+        throw UnsupportedOperationException()
+    }
+
     override fun end() {
         throw UnsupportedOperationException()
     }
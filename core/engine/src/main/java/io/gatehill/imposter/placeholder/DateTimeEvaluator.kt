@@ -44,64 +44,103 @@
 package io.gatehill.imposter.placeholder
 
 import io.gatehill.imposter.expression.eval.ExpressionEvaluator
-import io.gatehill.imposter.util.DateTimeUtil
+import io.gatehill.imposter.util.CachedClock
 import org.apache.logging.log4j.LogManager
-import java.time.LocalDateTime
-import java.time.OffsetDateTime
-import java.time.temporal.ChronoUnit
+import java.time.Duration
+import java.time.format.DateTimeParseException
+import java.util.concurrent.ConcurrentHashMap
 
 /**
  * Evaluates a datetime expression in the form:
  * ```
  * datetime.a.b
  * ```
+ * The current time can be offset by an ISO-8601 duration, such as:
+ * ```
+ * datetime.now.plus(PT1H).iso8601_datetime
+ * datetime.now.minus(P1D).iso8601_date
+ * ```
+ * Expressions are parsed once and cached.
  */
 object DateTimeEvaluator : ExpressionEvaluator<String> {
     private val LOGGER = LogManager.getLogger(DateTimeEvaluator::class.java)
 
     override val name = "datetime"
 
+    private val parsedExpressions = ConcurrentHashMap<String, ParsedExpression>()
+
     override fun eval(expression: String, context: Map<String, *>): String? {
         try {
-            val parts = expression.split(
-                delimiters = arrayOf("."),
-                ignoreCase = false,
-                limit = 3,
-            )
-            if (parts.size < 3) {
-                LOGGER.warn("Could not parse datetime expression: $expression")
-                return null
-            }
-            val parsed = when (parts[0]) {
-                "datetime" -> when (parts[1]) {
-                    "now" -> when (parts[2]) {
-                        "millis" -> System.currentTimeMillis().toString()
-                        "nanos" -> System.nanoTime().toString()
-                        "iso8601_date" -> DateTimeUtil.DATE_FORMATTER.format(
-                            LocalDateTime.now().truncatedTo(ChronoUnit.DAYS)
-                        )
-                        "iso8601_datetime" -> DateTimeUtil.DATE_TIME_FORMATTER.format(
-                            OffsetDateTime.now().truncatedTo(ChronoUnit.MILLIS)
-                        )
-                        else -> {
-                            LOGGER.warn("Could not parse datetime expression: $expression")
-                            null
-                        }
-                    }
-                    else -> {
-                        LOGGER.warn("Could not parse datetime expression: $expression")
-                        null
-                    }
-                }
-                else -> {
+            val parsed = parsedExpressions.computeIfAbsent(expression) { parse(it) }
+            return when (parsed.type) {
+                ValueType.MILLIS -> (System.currentTimeMillis() + parsed.offsetMillis).toString()
+                ValueType.NANOS -> System.nanoTime().toString()
+                ValueType.ISO_DATE -> CachedClock.format(CachedClock.Format.ISO_DATE, parsed.offsetMillis)
+                ValueType.ISO_DATE_TIME -> CachedClock.format(CachedClock.Format.ISO_DATE_TIME, parsed.offsetMillis)
+                ValueType.INVALID -> {
                     LOGGER.warn("Could not parse datetime expression: $expression")
                     null
                 }
             }
-            return parsed
 
         } catch (e: Exception) {
             throw RuntimeException("Error evaluating datetime expression: $expression", e)
         }
     }
-}
\ No newline at end of file
+
+    private fun parse(expression: String): ParsedExpression {
+        val parts = expression.split(
+            delimiters = arrayOf("."),
+            ignoreCase = false,
+            limit = 3,
+        )
+        if (parts.size < 3 || parts[0] != "datetime" || parts[1] != "now") {
+            return ParsedExpression.INVALID
+        }
+
+        var property = parts[2]
+        var offsetMillis = 0L
+        val sign = when {
+            property.startsWith("plus(") -> 1
+            property.startsWith("minus(") -> -1
+            else -> 0
+        }
+        if (sign != 0) {
+            // the duration may itself contain a '.', such as PT0.5S
+            val closeIdx = property.indexOf(')')
+            if (closeIdx < 0 || property.getOrNull(closeIdx + 1) != '.') {
+                return ParsedExpression.INVALID
+            }
+            val duration = try {
+                Duration.parse(property.substring(property.indexOf('(') + 1, closeIdx))
+            } catch (e: DateTimeParseException) {
+                return ParsedExpression.INVALID
+            }
+            offsetMillis = sign * duration.toMillis()
+            property = property.substring(closeIdx + 2)
+        }
+
+        val type = when (property) {
+            "millis" -> ValueType.MILLIS
+            "nanos" -> if (offsetMillis == 0L) ValueType.NANOS else ValueType.INVALID
+            "iso8601_date" -> ValueType.ISO_DATE
+            "iso8601_datetime" -> ValueType.ISO_DATE_TIME
+            else -> ValueType.INVALID
+        }
+        return ParsedExpression(type, offsetMillis)
+    }
+
+    private enum class ValueType {
+        MILLIS,
+        NANOS,
+        ISO_DATE,
+        ISO_DATE_TIME,
+        INVALID,
+    }
+
+    private class ParsedExpression(val type: ValueType, val offsetMillis: Long) {
+        companion object {
+            val INVALID = ParsedExpression(ValueType.INVALID, 0)
+        }
+    }
+}
@@ -43,22 +43,38 @@
 
 package io.gatehill.imposter.placeholder
 
+import com.jayway.jsonpath.DocumentContext
 import io.gatehill.imposter.expression.QueryProvider
+import io.gatehill.imposter.http.HttpExchange
 import io.gatehill.imposter.util.BodyQueryUtil
 import org.apache.logging.log4j.LogManager
+import org.jdom2.Document
 import org.jdom2.input.SAXBuilder
 import java.io.StringReader
 
 /**
  * Provides concrete implementations of query operations.
+ *
+ * An instance is intended to be used for a single render. Queries against
+ * the request body reuse the document cached in the [httpExchange], and parses
+ * of other raw values are memoised for the lifetime of the instance.
  */
-class QueryProviderImpl : QueryProvider {
+class QueryProviderImpl(
+    private val httpExchange: HttpExchange? = null,
+) : QueryProvider {
+    private val jsonContexts by lazy { mutableMapOf<String, DocumentContext>() }
+    private val xmlDocuments by lazy { mutableMapOf<String, Document>() }
+
     override fun queryWithJsonPath(rawValue: Any, jsonPath: String): String? {
         LOGGER.trace("Evaluating JsonPath: {} on value of expression: {}", jsonPath, rawValue)
         try {
             val context = when (rawValue) {
                 // raw JSON will be parsed by the context
-                is String -> @Suppress("USELESS_CAST") BodyQueryUtil.JSONPATH_PARSE_CONTEXT.parse(rawValue as String)
+                is String -> if (isRequestBody(rawValue)) {
+                    BodyQueryUtil.getRequestJsonContext(httpExchange!!, rawValue)
+                } else {
+                    jsonContexts.getOrPut(rawValue) { BodyQueryUtil.JSONPATH_PARSE_CONTEXT.parse(rawValue) }
+                }
 
                 // assumes already deserialised
                 else -> BodyQueryUtil.JSONPATH_PARSE_CONTEXT.parse(rawValue)
@@ -76,7 +92,11 @@ class QueryProviderImpl : QueryProvider {
         try {
             val document: Any = when (rawValue) {
                 // raw XML
-                is String -> SAXBuilder().build(StringReader(rawValue))
+                is String -> if (isRequestBody(rawValue)) {
+                    BodyQueryUtil.getRequestXmlDocument(httpExchange!!, rawValue)
+                } else {
+                    xmlDocuments.getOrPut(rawValue) { SAXBuilder().build(StringReader(rawValue)) }
+                }
 
                 // assumes already a document/element/node etc.
                 else -> rawValue
@@ -89,6 +109,15 @@ class QueryProviderImpl : QueryProvider {
         }
     }
 
+    /**
+     * The request body string is cached by the server adapter, so an identity
+     * check usually suffices.
+     */
+    private fun isRequestBody(rawValue: String): Boolean {
+        val body = httpExchange?.request?.bodyAsString ?: return false
+        return body === rawValue || (body.length == rawValue.length && body == rawValue)
+    }
+
     companion object {
         private val LOGGER = LogManager.getLogger(QueryProviderImpl::class.java)
     }
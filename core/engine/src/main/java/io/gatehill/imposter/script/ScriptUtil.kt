@@ -44,6 +44,7 @@
 package io.gatehill.imposter.script
 
 import io.gatehill.imposter.config.util.EnvVars
+import io.gatehill.imposter.http.CaseInsensitiveHeaders
 import io.gatehill.imposter.http.HttpRequest
 import io.gatehill.imposter.plugin.config.PluginConfig
 import java.nio.file.Path
@@ -72,6 +73,21 @@ object ScriptUtil {
      */
     val shouldPrecompile = EnvVars.getEnv("IMPOSTER_SCRIPT_PRECOMPILE")?.toBoolean() != false
 
+    /**
+     * Maximum duration of a script execution, in milliseconds, after which the
+     * script is interrupted. Determined by the `IMPOSTER_SCRIPT_TIMEOUT_MS` environment variable.
+     * A value of zero or less means scripts are not timed out. Only applies when scripts
+     * are executed on dedicated worker threads.
+     */
+    val scriptTimeoutMs = EnvVars.getEnv("IMPOSTER_SCRIPT_TIMEOUT_MS")?.toLong() ?: -1L
+
+    /**
+     * Directory in which script engines persist compiled scripts, so they can be reused
+     * after a restart. Determined by the `IMPOSTER_SCRIPT_CACHE_DIR` environment variable.
+     * If not set, compiled scripts are only cached in memory.
+     */
+    val compileCacheDir: Path? = EnvVars.getEnv("IMPOSTER_SCRIPT_CACHE_DIR")?.takeIf { it.isNotBlank() }?.let { Paths.get(it) }
+
     private val forceHeaderKeyNormalisation =
         EnvVars.getEnv("IMPOSTER_NORMALISE_HEADER_KEYS")?.toBoolean() != false
 
@@ -95,7 +111,7 @@ object ScriptUtil {
     fun caseHeaders(request: HttpRequest): Map<String, String> {
         val entries = request.headers
         return if (forceHeaderKeyNormalisation) {
-            LowercaseKeysMap(entries)
+            (entries as? CaseInsensitiveHeaders)?.lowercased() ?: LowercaseKeysMap(entries)
         } else {
             entries
         }
@@ -46,11 +46,17 @@ package io.gatehill.imposter.service
 import io.gatehill.imposter.exception.ResponseException
 import io.gatehill.imposter.http.HttpExchange
 import io.gatehill.imposter.plugin.config.resource.ResourceConfig
+import io.gatehill.imposter.script.DelayDistribution
 import io.gatehill.imposter.script.FailureSimulationType
+import io.gatehill.imposter.script.PerformanceSimulationConfig
 import io.gatehill.imposter.script.ResponseBehaviour
 import io.gatehill.imposter.util.LogUtil
 import org.apache.logging.log4j.LogManager
+import java.util.concurrent.ThreadLocalRandom
 import javax.inject.Inject
+import kotlin.math.exp
+import kotlin.math.ln
+import kotlin.math.roundToInt
 import kotlin.random.Random
 
 /**
@@ -66,16 +72,110 @@ class CharacteristicsService @Inject constructor(
             performance.exactDelayMs?.takeIf { it > 0 }?.let { exactDelayMs ->
                 delayMs = exactDelayMs
             } ?: run {
-                val minDelayMs = performance.minDelayMs ?: 0
-                val maxDelayMs = performance.maxDelayMs ?: 0
-                if (minDelayMs > 0 && maxDelayMs >= minDelayMs) {
-                    delayMs = Random.nextInt(minDelayMs, maxDelayMs)
+                delayMs = when (performance.distribution) {
+                    DelayDistribution.LogNormal -> sampleLogNormal(performance)
+                    DelayDistribution.Percentiles -> samplePercentiles(performance)
+                    else -> sampleUniform(performance)
                 }
             }
         }
         return delayMs
     }
 
+    private fun sampleUniform(performance: PerformanceSimulationConfig): Int {
+        val minDelayMs = performance.minDelayMs ?: 0
+        val maxDelayMs = performance.maxDelayMs ?: 0
+        return if (minDelayMs > 0 && maxDelayMs >= minDelayMs) {
+            Random.nextInt(minDelayMs, maxDelayMs)
+        } else {
+            -1
+        }
+    }
+
+    /**
+     * Samples a log-normal distribution with the configured median and 99th percentile,
+     * bounded by the min and max delays, if set.
+     */
+    private fun sampleLogNormal(performance: PerformanceSimulationConfig): Int {
+        val medianDelayMs = performance.medianDelayMs?.takeIf { it > 0 } ?: return -1
+        val p99DelayMs = performance.p99DelayMs?.coerceAtLeast(medianDelayMs) ?: medianDelayMs
+
+        val mu = ln(medianDelayMs.toDouble())
+        val sigma = ln(p99DelayMs.toDouble() / medianDelayMs) / Z_SCORE_P99
+        val sample = exp(mu + sigma * ThreadLocalRandom.current().nextGaussian())
+        return bound(sample.roundToInt(), performance)
+    }
+
+    /**
+     * Samples the configured percentiles, interpolating linearly between them.
+     * Below the lowest percentile, the delay is interpolated from the min delay,
+     * and above the highest, towards the max delay, if set.
+     */
+    private fun samplePercentiles(performance: PerformanceSimulationConfig): Int {
+        val percentiles = performance.percentileDelaysMs
+            ?.filterKeys { it in 0..100 }
+            ?.toSortedMap()
+            ?.takeIf { it.isNotEmpty() }
+            ?: return -1
+
+        val points = mutableListOf<Pair<Double, Double>>()
+        if (percentiles.firstKey() > 0) {
+            points += 0.0 to (performance.minDelayMs ?: percentiles.getValue(percentiles.firstKey())).toDouble()
+        }
+        percentiles.forEach { (percentile, delayMs) -> points += percentile.toDouble() to delayMs.toDouble() }
+        if (percentiles.lastKey() < 100) {
+            points += 100.0 to (performance.maxDelayMs ?: percentiles.getValue(percentiles.lastKey())).toDouble()
+        }
+
+        val sample = ThreadLocalRandom.current().nextDouble(100.0)
+        val upper = points.indexOfFirst { it.first >= sample }.coerceAtLeast(1)
+        val (p0, d0) = points[upper - 1]
+        val (p1, d1) = points[upper]
+        val delayMs = if (p1 > p0) d0 + (d1 - d0) * (sample - p0) / (p1 - p0) else d1
+        return delayMs.roundToInt()
+    }
+
+    private fun bound(delayMs: Int, performance: PerformanceSimulationConfig): Int {
+        val minDelayMs = performance.minDelayMs ?: 0
+        val maxDelayMs = performance.maxDelayMs?.takeIf { it >= minDelayMs } ?: Int.MAX_VALUE
+        return delayMs.coerceIn(minDelayMs, maxDelayMs)
+    }
+
+    /**
+     * Determines how a body should be streamed, based on the configured throughput
+     * or total response time.
+     *
+     * @param performance      the performance simulation configuration
+     * @param bodyLength       the length of the body, in bytes
+     * @param firstByteDelayMs the delay before the first byte is sent
+     * @return the streaming plan, or `null` if the body should be sent in full
+     */
+    fun simulateThroughput(
+        performance: PerformanceSimulationConfig?,
+        bodyLength: Int,
+        firstByteDelayMs: Int,
+    ): StreamingPlan? {
+        if (null == performance || !performance.isStreamed || bodyLength <= 0) {
+            return null
+        }
+        val bytesPerSec = performance.throughputBytesPerSec?.takeIf { it > 0 } ?: run {
+            val streamMs = (performance.totalMs ?: 0) - firstByteDelayMs.coerceAtLeast(0)
+            if (streamMs <= 0) {
+                return null
+            }
+            (bodyLength * 1000L / streamMs).coerceAtLeast(1)
+        }
+
+        val chunkSize = performance.chunkSizeBytes?.takeIf { it > 0 }?.toLong()
+            ?: (bytesPerSec / 10).coerceAtLeast(1)
+
+        // coarser timers would be indistinguishable, so send larger chunks instead
+        val intervalMs = (chunkSize * 1000 / bytesPerSec).coerceAtLeast(MIN_CHUNK_INTERVAL_MS)
+        val adjustedChunkSize = (bytesPerSec * intervalMs / 1000).coerceIn(1, Int.MAX_VALUE.toLong())
+
+        return StreamingPlan(chunkSize = adjustedChunkSize.toInt(), intervalMs = intervalMs)
+    }
+
     fun sendFailure(
         resourceConfig: ResourceConfig?,
         httpExchange: HttpExchange,
@@ -100,7 +200,22 @@ class CharacteristicsService @Inject constructor(
         }
     }
 
+    /**
+     * A body is streamed by writing a chunk of [chunkSize] bytes every [intervalMs].
+     */
+    data class StreamingPlan(
+        val chunkSize: Int,
+        val intervalMs: Long,
+    )
+
     companion object {
         private val LOGGER = LogManager.getLogger(CharacteristicsService::class.java)
+
+        /**
+         * The standard normal quantile for the 99th percentile.
+         */
+        private const val Z_SCORE_P99 = 2.3263
+
+        private const val MIN_CHUNK_INTERVAL_MS = 10L
     }
 }
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2023-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.service
+
+import com.google.common.cache.Cache
+import com.google.common.cache.CacheBuilder
+import io.gatehill.imposter.util.HttpUtil
+import io.vertx.core.buffer.Buffer
+import org.apache.logging.log4j.LogManager
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+import java.util.zip.GZIPOutputStream
+
+/**
+ * Holds compressed variants of response files, selected by the `Accept-Encoding`
+ * request header.
+ *
+ * A variant is read from a precompressed file alongside the original, named with
+ * a `.br` or `.gz` suffix, if one exists. Otherwise, a gzip variant is generated
+ * from the original the first time it is requested. Variants are held until the
+ * total size reaches [maxBytes].
+ */
+internal class CompressedResponseFileVariants(
+    maxBytes: Long,
+    private val minBytes: Int,
+) {
+    /**
+     * Uses a single segment, as each segment is limited to an equal share of [maxBytes].
+     */
+    private val variants: Cache<String, Buffer> = CacheBuilder.newBuilder()
+        .concurrencyLevel(1)
+        .maximumWeight(maxBytes)
+        .weigher<String, Buffer> { _, buffer -> buffer.length() }
+        .build()
+
+    /**
+     * The encodings of the precompressed files that exist for each response file.
+     * Each file is checked once, as response files are not expected to change while
+     * the server is running, so a precompressed file added later is not used until
+     * the server is restarted.
+     */
+    private val precompressedEncodings = ConcurrentHashMap<String, List<Encoding>>()
+
+    /**
+     * Selects the encoding to use, preferring the client's highest weighted encoding,
+     * then brotli over gzip.
+     *
+     * @param acceptEncoding  the value of the `Accept-Encoding` request header
+     * @param fsPath          the path of the original file
+     * @param originalSize    the size of the original file
+     * @param precompressedOnly whether only precompressed files are acceptable
+     * @return the encoding, or `null` if the original should be sent
+     */
+    fun selectEncoding(
+        acceptEncoding: String?,
+        fsPath: String,
+        originalSize: Long,
+        precompressedOnly: Boolean,
+    ): Encoding? {
+        val accepted = HttpUtil.readAcceptedEncodings(acceptEncoding)
+        if (accepted.isEmpty()) {
+            return null
+        }
+        val available = precompressedEncodings.computeIfAbsent(fsPath) { path ->
+            Encoding.values().filter { File(path + it.fileSuffix).isFile }
+        }.let { precompressed ->
+            if (!precompressedOnly && originalSize >= minBytes && !precompressed.contains(Encoding.GZIP)) {
+                precompressed + Encoding.GZIP
+            } else {
+                precompressed
+            }
+        }
+        return available
+            .map { it to (accepted[it.coding] ?: accepted["*"] ?: 0f) }
+            .filter { (_, weight) -> weight > 0f }
+            .maxWithOrNull(compareBy<Pair<Encoding, Float>> { it.second }.thenBy { -it.first.ordinal })
+            ?.first
+    }
+
+    /**
+     * @return the path of the precompressed file for the encoding, or `null` if there is none
+     */
+    fun precompressedFile(fsPath: String, encoding: Encoding): String? {
+        return if (precompressedEncodings[fsPath]?.contains(encoding) == true) fsPath + encoding.fileSuffix else null
+    }
+
+    /**
+     * @return the cached contents of the file with the given encoding, or `null` if not cached
+     */
+    fun getIfPresent(fsPath: String, encoding: Encoding): Buffer? =
+        variants.getIfPresent("${encoding.coding}:$fsPath")
+
+    /**
+     * Reads or generates the variant if it is not cached, so must not be called
+     * on an event loop thread.
+     *
+     * @return the contents of the file with the given encoding
+     */
+    fun load(fsPath: String, encoding: Encoding, original: Buffer): Buffer {
+        return variants.get("${encoding.coding}:$fsPath") {
+            precompressedFile(fsPath, encoding)?.let { Buffer.buffer(File(it).readBytes()) }
+                ?: gzip(fsPath, original)
+        }
+    }
+
+    private fun gzip(fsPath: String, original: Buffer): Buffer {
+        val output = ByteArrayOutputStream(original.length() / 4)
+        GZIPOutputStream(output).use { it.write(original.bytes) }
+        LOGGER.debug("Compressed response file {} from {} to {} bytes", fsPath, original.length(), output.size())
+        return Buffer.buffer(output.toByteArray())
+    }
+
+    /**
+     * Supported encodings, in order of preference.
+     */
+    enum class Encoding(val coding: String, val fileSuffix: String) {
+        BROTLI("br", ".br"),
+        GZIP("gzip", ".gz"),
+    }
+
+    companion object {
+        private val LOGGER = LogManager.getLogger(CompressedResponseFileVariants::class.java)
+    }
+}
@@ -59,9 +59,14 @@ class DeferredOperationService : CoroutineScope by supervisedIOCoroutineScope {
     private val logger: Logger = LogManager.getLogger(DeferredOperationService::class.java)
     private val deferredOperations: Channel<Pair<String, Runnable>> by lazy { startDeferredExecutor() }
 
-    fun defer(description: String, deferred: Runnable) = runBlocking {
+    fun defer(description: String, deferred: Runnable) {
         logger.trace("Enqueuing deferred operation: $description")
-        deferredOperations.send(description to deferred)
+        val operation = description to deferred
+
+        // only block the caller if the queue is full
+        if (deferredOperations.trySend(operation).isFailure) {
+            runBlocking { deferredOperations.send(operation) }
+        }
     }
 
     private fun startDeferredExecutor(): Channel<Pair<String, Runnable>> {
@@ -57,6 +57,7 @@ import io.gatehill.imposter.plugin.config.resource.UpstreamsHolder
 import io.gatehill.imposter.server.ServerFactory
 import io.gatehill.imposter.util.LogUtil
 import io.gatehill.imposter.util.LogUtil.describeRequest
+import io.gatehill.imposter.util.RequestIdGenerator
 import io.gatehill.imposter.util.ResourceUtil
 import io.gatehill.imposter.util.makeFuture
 import io.gatehill.imposter.util.supervisedDefaultCoroutineScope
@@ -83,6 +84,8 @@ class HandlerServiceImpl @Inject constructor(
     private val shouldAddEngineResponseHeaders: Boolean =
         EnvVars.getEnv("IMPOSTER_ADD_ENGINE_RESPONSE_HEADERS")?.toBoolean() != false
 
+    private val requestIdGenerator = RequestIdGenerator.fromEnv()
+
     override fun build(
         allPluginConfigs: List<PluginConfig>,
         resourceMatcher: ResourceMatcher,
@@ -310,7 +313,7 @@ class HandlerServiceImpl @Inject constructor(
 
             // every request has a unique ID
             val requestId = httpExchange.getOrPut(ResourceUtil.RC_REQUEST_ID_KEY) {
-                return@getOrPut UUID.randomUUID().toString()
+                return@getOrPut requestIdGenerator.generate()
             }
 
             if (shouldAddEngineResponseHeaders) {
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2023-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.service
+
+import com.google.common.cache.Cache
+import com.google.common.cache.CacheBuilder
+import com.google.common.util.concurrent.UncheckedExecutionException
+import io.netty.buffer.Unpooled
+import io.vertx.core.buffer.Buffer
+import org.apache.logging.log4j.LogManager
+import java.io.IOException
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Paths
+import java.nio.file.StandardOpenOption
+import java.util.concurrent.ExecutionException
+
+/**
+ * Holds response files as read-only memory-mapped regions, wrapped as buffers,
+ * so large files can be served concurrently without being copied onto the heap.
+ * The total size of mapped files is limited to [maxMappedBytes]; a mapping is
+ * released once it has been evicted and is no longer being written to a response.
+ *
+ * Mapping a file blocks, so [get] must not be called on an event loop thread.
+ */
+internal class MappedResponseFileStore(private val maxMappedBytes: Long) {
+    /**
+     * Uses a single segment, as each segment is limited to an equal share of
+     * [maxMappedBytes], so a file larger than one share would otherwise never be held.
+     */
+    private val files: Cache<String, Buffer> = CacheBuilder.newBuilder()
+        .concurrencyLevel(1)
+        .maximumWeight(maxMappedBytes)
+        .weigher<String, Buffer> { _, buffer -> buffer.length() }
+        .build()
+
+    /**
+     * The total size of the files currently held. Mappings that have been evicted,
+     * but are still being written to a response, are not included.
+     */
+    val size: Long
+        get() = files.asMap().values.sumOf { it.length().toLong() }
+
+    /**
+     * @return the contents of the file, if it has already been mapped
+     */
+    fun getIfPresent(fsPath: String): Buffer? = files.getIfPresent(fsPath)
+
+    /**
+     * Maps the file, if it has not already been mapped.
+     *
+     * @return the contents of the file, or `null` if the file is too large to be mapped
+     */
+    @Throws(IOException::class)
+    fun get(fsPath: String): Buffer? {
+        files.getIfPresent(fsPath)?.let { return it }
+
+        val fileSize = Files.size(Paths.get(fsPath))
+        if (fileSize > Int.MAX_VALUE) {
+            LOGGER.debug("Response file {} is too large to map ({} bytes)", fsPath, fileSize)
+            return null
+        } else if (fileSize > maxMappedBytes) {
+            // served from a mapping, but not held
+            return map(fsPath)
+        }
+        return try {
+            // loads at most once per file, even if requested concurrently
+            files.get(fsPath) { map(fsPath) }
+        } catch (e: ExecutionException) {
+            throw e.cause as? IOException ?: IOException("Failed to map response file: $fsPath", e.cause)
+        } catch (e: UncheckedExecutionException) {
+            throw IOException("Failed to map response file: $fsPath", e.cause)
+        }
+    }
+
+    private fun map(fsPath: String): Buffer {
+        val mapped = FileChannel.open(Paths.get(fsPath), StandardOpenOption.READ).use { channel ->
+            // the mapping remains valid after the channel is closed
+            Buffer.buffer(Unpooled.wrappedBuffer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())))
+        }
+        LOGGER.trace("Mapped response file {} ({} bytes)", fsPath, mapped.length())
+        return mapped
+    }
+
+    companion object {
+        private val LOGGER = LogManager.getLogger(MappedResponseFileStore::class.java)
+    }
+}
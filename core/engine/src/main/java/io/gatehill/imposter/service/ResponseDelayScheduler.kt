@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.service
+
+import io.gatehill.imposter.config.util.EnvVars
+import io.gatehill.imposter.lifecycle.EngineLifecycleHooks
+import io.gatehill.imposter.lifecycle.EngineLifecycleListener
+import io.gatehill.imposter.util.MetricsUtil
+import io.micrometer.core.instrument.Gauge
+import io.netty.util.HashedWheelTimer
+import io.netty.util.TimerTask
+import io.vertx.core.Vertx
+import org.apache.logging.log4j.LogManager
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import javax.inject.Inject
+
+/**
+ * Schedules the delayed parts of simulated response performance, such as
+ * delayed responses and streamed chunks.
+ *
+ * By default, each delay uses its own Vert.x timer. Setting the [ENV_VAR_TIMER_WHEEL]
+ * environment variable to `true` schedules all delays on a single hashed timer wheel
+ * instead, which holds large numbers of pending delays more cheaply, at the cost of
+ * precision; delays are rounded up to the tick duration set by [ENV_VAR_TICK_MS].
+ *
+ * Tasks always run on the Vert.x context from which they were scheduled. The timer
+ * wheel is created when first used, and stopped when the engine stops.
+ */
+class ResponseDelayScheduler @Inject constructor(
+    private val vertx: Vertx,
+    engineLifecycle: EngineLifecycleHooks,
+) : EngineLifecycleListener {
+    private val timerWheelEnabled = EnvVars.getEnv(ENV_VAR_TIMER_WHEEL)?.toBoolean() == true
+
+    private val timerWheelDelegate = lazy {
+        val tickMs = EnvVars.getEnv(ENV_VAR_TICK_MS)?.toLong() ?: DEFAULT_TICK_MS
+        LOGGER.debug("Response delays scheduled on timer wheel with tick duration: {}ms", tickMs)
+        HashedWheelTimer(
+            { r -> Thread(r, "imposter-delay-timer").apply { isDaemon = true } },
+            tickMs,
+            TimeUnit.MILLISECONDS,
+            TICKS_PER_WHEEL,
+        )
+    }
+    private val timerWheel by timerWheelDelegate
+
+    private val pending = AtomicInteger()
+
+    init {
+        if (timerWheelEnabled) {
+            engineLifecycle.registerListener(this)
+        }
+        MetricsUtil.doIfMetricsEnabled(METRIC_PENDING) { registry ->
+            Gauge.builder(METRIC_PENDING) { pending.get() }
+                .description("The number of responses waiting for a simulated delay to elapse")
+                .register(registry)
+        }
+    }
+
+    /**
+     * The number of responses waiting for their delay to elapse.
+     */
+    val pendingCount: Int
+        get() = pending.get()
+
+    /**
+     * Runs the task once the delay before sending a response has elapsed. The
+     * response is counted as pending until then.
+     *
+     * @param delayMs the delay, which must be positive
+     * @param task    the task that sends the response
+     */
+    fun scheduleResponse(delayMs: Long, task: () -> Unit) {
+        pending.incrementAndGet()
+        schedule(delayMs) {
+            pending.decrementAndGet()
+            task()
+        }
+    }
+
+    /**
+     * Runs the task once the delay has elapsed.
+     *
+     * @param delayMs the delay, which must be positive
+     * @param task    the task to run
+     */
+    fun schedule(delayMs: Long, task: () -> Unit) {
+        if (timerWheelEnabled) {
+            val context = vertx.orCreateContext
+            timerWheel.newTimeout(TimerTask { context.runOnContext { task() } }, delayMs, TimeUnit.MILLISECONDS)
+        } else {
+            vertx.setTimer(delayMs) { task() }
+        }
+    }
+
+    override fun beforeStop() {
+        if (timerWheelDelegate.isInitialized()) {
+            val cancelled = timerWheel.stop()
+            LOGGER.debug("Stopped response delay timer wheel with {} pending tasks", cancelled.size)
+        }
+    }
+
+    companion object {
+        private val LOGGER = LogManager.getLogger(ResponseDelayScheduler::class.java)
+        private const val ENV_VAR_TIMER_WHEEL = "IMPOSTER_DELAY_TIMER_WHEEL"
+        private const val ENV_VAR_TICK_MS = "IMPOSTER_DELAY_TIMER_TICK_MS"
+        private const val DEFAULT_TICK_MS = 10L
+        private const val TICKS_PER_WHEEL = 512
+        private const val METRIC_PENDING = "response.delay.pending"
+    }
+}
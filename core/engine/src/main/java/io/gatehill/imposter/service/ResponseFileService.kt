@@ -48,6 +48,7 @@ import io.gatehill.imposter.plugin.config.PluginConfig
 import io.gatehill.imposter.plugin.config.resource.ResourceConfig
 import io.gatehill.imposter.script.ResponseBehaviour
 import io.vertx.core.json.JsonArray
+import java.util.concurrent.CompletableFuture
 
 interface ResponseFileService {
     /**
@@ -61,6 +62,18 @@ interface ResponseFileService {
      */
     fun serveResponseFile(pluginConfig: PluginConfig, resourceConfig: ResourceConfig?, httpExchange: HttpExchange, responseBehaviour: ResponseBehaviour)
 
+    /**
+     * Reads the response file, if it is not already cached, without blocking the
+     * calling thread, so that [serveResponseFile] does not read from disk on the
+     * request path. The returned future always completes normally; any error
+     * reading the file is reported when it is served.
+     *
+     * @param pluginConfig      the plugin configuration
+     * @param httpExchange    the HTTP exchange
+     * @param responseBehaviour the response behaviour
+     */
+    fun loadResponseFile(pluginConfig: PluginConfig, httpExchange: HttpExchange, responseBehaviour: ResponseBehaviour): CompletableFuture<Unit>
+
     /**
      * Convenience method that uses [ResponseBehaviour.responseFile] as the response file.
      */
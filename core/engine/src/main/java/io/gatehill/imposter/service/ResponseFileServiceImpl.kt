@@ -43,6 +43,7 @@
 package io.gatehill.imposter.service
 
 import com.google.common.base.Strings
+import com.google.common.cache.Cache
 import com.google.common.cache.CacheBuilder
 import io.gatehill.imposter.config.util.EnvVars.Companion.getEnv
 import io.gatehill.imposter.http.HttpExchange
@@ -57,8 +58,12 @@ import io.vertx.core.Vertx
 import io.vertx.core.buffer.Buffer
 import io.vertx.core.json.JsonArray
 import org.apache.logging.log4j.LogManager
+import java.io.File
 import java.io.IOException
 import java.nio.file.NoSuchFileException
+import java.util.concurrent.Callable
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.atomic.AtomicLong
 import javax.inject.Inject
 import kotlin.io.path.exists
 
@@ -71,12 +76,54 @@ class ResponseFileServiceImpl @Inject constructor(
 ) : ResponseFileService {
 
     /**
-     * Holds response files, with maximum number of entries determined by the environment
-     * variable [ENV_RESPONSE_FILE_CACHE_ENTRIES].
+     * Whether non-templated response files are sent directly from disk,
+     * using zero-copy transfer where supported, instead of being cached in memory.
      */
-    private val responseFileCache = CacheBuilder.newBuilder()
-        .maximumSize(getEnv(ENV_RESPONSE_FILE_CACHE_ENTRIES)?.toLong() ?: DEFAULT_RESPONSE_FILE_CACHE_ENTRIES)
-        .build<String, Buffer>()
+    private val sendFileEnabled = getEnv(ENV_RESPONSE_FILE_SENDFILE)?.toBoolean() == true
+
+    /**
+     * Holds compressed variants of non-templated response files, if enabled.
+     */
+    private val compressedVariants: CompressedResponseFileVariants? = if (getEnv(ENV_RESPONSE_FILE_PRECOMPRESS)?.toBoolean() == true) {
+        CompressedResponseFileVariants(
+            maxBytes = getEnv(ENV_RESPONSE_FILE_PRECOMPRESS_CACHE_BYTES)?.toLong() ?: DEFAULT_RESPONSE_FILE_CACHE_BYTES,
+            minBytes = getEnv(ENV_RESPONSE_FILE_PRECOMPRESS_MIN_BYTES)?.toInt() ?: DEFAULT_RESPONSE_FILE_PRECOMPRESS_MIN_BYTES,
+        )
+    } else {
+        null
+    }
+
+    /**
+     * Holds non-templated response files as memory-mapped regions, if enabled, instead of
+     * caching them on the heap. Not used for files that are sent directly.
+     */
+    private val mappedFileStore: MappedResponseFileStore? = if (getEnv(ENV_RESPONSE_FILE_MMAP)?.toBoolean() == true) {
+        MappedResponseFileStore(getEnv(ENV_RESPONSE_FILE_MMAP_BYTES)?.toLong() ?: DEFAULT_RESPONSE_FILE_MMAP_BYTES)
+    } else {
+        null
+    }
+
+    private val cachedBytes = AtomicLong()
+
+    /**
+     * Holds response files, limited to the total size in bytes determined by the environment
+     * variable [ENV_RESPONSE_FILE_CACHE_BYTES]. If [ENV_RESPONSE_FILE_CACHE_ENTRIES] is set,
+     * the number of entries is limited instead.
+     *
+     * The cache uses a single segment, as each segment is limited to an equal share of
+     * the total, so a file larger than one share would otherwise never be cached.
+     */
+    private val responseFileCache: Cache<String, Buffer> = CacheBuilder.newBuilder()
+        .concurrencyLevel(1)
+        .apply {
+            getEnv(ENV_RESPONSE_FILE_CACHE_ENTRIES)?.let { maximumSize(it.toLong()) } ?: run {
+                maximumWeight(getEnv(ENV_RESPONSE_FILE_CACHE_BYTES)?.toLong() ?: DEFAULT_RESPONSE_FILE_CACHE_BYTES)
+                weigher<String, Buffer> { _, buffer -> buffer.length() }
+            }
+        }
+        .recordStats()
+        .removalListener<String, Buffer> { cachedBytes.addAndGet(-(it.value?.length()?.toLong() ?: 0L)) }
+        .build()
 
     init {
         MetricsUtil.doIfMetricsEnabled(
@@ -85,7 +132,135 @@ class ResponseFileServiceImpl @Inject constructor(
             Gauge.builder(METRIC_RESPONSE_FILE_CACHE_ENTRIES) { responseFileCache.size() }
                 .description("The number of cached response files")
                 .register(registry)
+            Gauge.builder(METRIC_RESPONSE_FILE_CACHE_BYTES) { cachedBytes.get() }
+                .description("The total size of cached response files")
+                .baseUnit("bytes")
+                .register(registry)
+            Gauge.builder(METRIC_RESPONSE_FILE_CACHE_HIT_RATIO) { responseFileCache.stats().hitRate() }
+                .description("The ratio of response file reads served from the cache")
+                .register(registry)
+            mappedFileStore?.let { store ->
+                Gauge.builder(METRIC_RESPONSE_FILE_MAPPED_BYTES) { store.size }
+                    .description("The total size of memory-mapped response files")
+                    .baseUnit("bytes")
+                    .register(registry)
+            }
+        }
+    }
+
+    override fun loadResponseFile(
+        pluginConfig: PluginConfig,
+        httpExchange: HttpExchange,
+        responseBehaviour: ResponseBehaviour,
+    ): CompletableFuture<Unit> {
+        val responseFile = responseBehaviour.responseFile
+        if (responseFile.isNullOrEmpty()) {
+            return CompletableFuture.completedFuture(Unit)
+        }
+        val fsPath = try {
+            resolvePath(pluginConfig, responseFile)
+        } catch (e: Exception) {
+            // reported when the file is served
+            return CompletableFuture.completedFuture(Unit)
         }
+        if (shouldSendFile(responseBehaviour, fsPath)) {
+            return CompletableFuture.completedFuture(Unit)
+        }
+        if (shouldMapFile(responseBehaviour, fsPath)) {
+            return mapResponseFile(httpExchange, responseBehaviour, fsPath)
+        }
+        return readResponseFile(httpExchange, responseBehaviour, fsPath)
+    }
+
+    /**
+     * Maps the file on a worker thread, as mapping blocks. Falls back to reading
+     * the file onto the heap if it cannot be mapped.
+     */
+    private fun mapResponseFile(
+        httpExchange: HttpExchange,
+        responseBehaviour: ResponseBehaviour,
+        fsPath: String,
+    ): CompletableFuture<Unit> {
+        val future = CompletableFuture<Unit>()
+        vertx.executeBlocking(Callable { mapFile(fsPath) }, false).onComplete { result ->
+            val mapped = result.result()
+            if (result.succeeded() && null != mapped) {
+                httpExchange.put(EXCHANGE_KEY_RESPONSE_FILE_DATA, mapped)
+                loadEncodedVariant(httpExchange, responseBehaviour, fsPath, mapped).whenComplete { _, _ ->
+                    future.complete(Unit)
+                }
+            } else {
+                readResponseFile(httpExchange, responseBehaviour, fsPath).whenComplete { _, _ ->
+                    future.complete(Unit)
+                }
+            }
+        }
+        return future
+    }
+
+    private fun readResponseFile(
+        httpExchange: HttpExchange,
+        responseBehaviour: ResponseBehaviour,
+        fsPath: String,
+    ): CompletableFuture<Unit> {
+        responseFileCache.getIfPresent(fsPath)?.let { cached ->
+            httpExchange.put(EXCHANGE_KEY_RESPONSE_FILE_DATA, cached)
+            return loadEncodedVariant(httpExchange, responseBehaviour, fsPath, cached)
+        }
+
+        val future = CompletableFuture<Unit>()
+        vertx.fileSystem().readFile(fsPath).onComplete { result ->
+            if (result.succeeded()) {
+                cache(fsPath, result.result())
+                httpExchange.put(EXCHANGE_KEY_RESPONSE_FILE_DATA, result.result())
+                loadEncodedVariant(httpExchange, responseBehaviour, fsPath, result.result()).whenComplete { _, _ ->
+                    future.complete(Unit)
+                }
+            } else {
+                LOGGER.trace("Failed to preload response file: {}", fsPath, result.cause())
+                future.complete(Unit)
+            }
+        }
+        return future
+    }
+
+    /**
+     * Loads the compressed variant of the file accepted by the client, if any. Loading
+     * a variant may read a precompressed file or compress the original, so is done
+     * on a worker thread.
+     *
+     * @param original the file contents
+     */
+    private fun loadEncodedVariant(
+        httpExchange: HttpExchange,
+        responseBehaviour: ResponseBehaviour,
+        fsPath: String,
+        original: Buffer,
+    ): CompletableFuture<Unit> {
+        val variants = compressedVariantsFor(httpExchange)
+        if (null == variants || responseBehaviour.isTemplate) {
+            return CompletableFuture.completedFuture(Unit)
+        }
+        val encoding = variants.selectEncoding(acceptEncoding(httpExchange), fsPath, original.length().toLong(), precompressedOnly = false)
+            ?: return CompletableFuture.completedFuture(Unit)
+
+        variants.getIfPresent(fsPath, encoding)?.let { cached ->
+            httpExchange.put(EXCHANGE_KEY_RESPONSE_FILE_ENCODED, EncodedResponseFile(encoding, cached))
+            return CompletableFuture.completedFuture(Unit)
+        }
+
+        val future = CompletableFuture<Unit>()
+        vertx.executeBlocking(Callable { variants.load(fsPath, encoding, original) }, false).onComplete { result ->
+            if (result.succeeded()) {
+                result.result()?.let { encoded ->
+                    httpExchange.put(EXCHANGE_KEY_RESPONSE_FILE_ENCODED, EncodedResponseFile(encoding, encoded))
+                }
+            } else {
+                LOGGER.warn("Failed to load {} variant of response file: {}", encoding.coding, fsPath, result.cause())
+            }
+            future.complete(Unit)
+        }
+        return future
     }
 
     override fun serveResponseFile(
@@ -105,32 +280,129 @@ class ResponseFileServiceImpl @Inject constructor(
         val responseFile = responseBehaviour.responseFile ?: throw IllegalStateException("Response file not set")
         val fsPath = resolvePath(pluginConfig, responseFile)
 
-        val responseData = responseFileCache.getIfPresent(fsPath) ?: run {
-            try {
-                val buf = vertx.fileSystem().readFileBlocking(fsPath)
-                buf.also { responseFileCache.put(fsPath, it) }
-            } catch (e: Exception) {
-                if (e.cause is NoSuchFileException) {
-                    responseService.failWithNotFoundResponse(httpExchange, "Response file does not exist: $fsPath")
-                } else {
-                    httpExchange.fail(RuntimeException("Failed to read response file: $fsPath", e))
+        val filename = fsPath.substringAfterLast("/")
+
+        if (shouldSendFile(responseBehaviour, fsPath)) {
+            val sendPath = compressedVariantsFor(httpExchange)?.let { variants ->
+                addVaryAcceptEncoding(httpExchange)
+                variants.selectEncoding(acceptEncoding(httpExchange), fsPath, File(fsPath).length(), precompressedOnly = true)
+                    ?.let { encoding ->
+                        setContentEncoding(httpExchange, encoding)
+                        variants.precompressedFile(fsPath, encoding)
+                    }
+            } ?: fsPath
+            responseService.writeResponseFile(resourceConfig, httpExchange, filename, sendPath)
+            return
+        }
+
+        // files are mapped ahead of time, so only existing mappings are used here, to avoid blocking
+        val responseData = httpExchange.get<Buffer>(EXCHANGE_KEY_RESPONSE_FILE_DATA)
+            ?: mappedFileStore?.takeIf { shouldMapFile(responseBehaviour, fsPath) }?.getIfPresent(fsPath)
+            ?: responseFileCache.getIfPresent(fsPath)
+            ?: run {
+                try {
+                    // only reached if the file was not loaded ahead of time
+                    val buf = vertx.fileSystem().readFileBlocking(fsPath)
+                    buf.also { cache(fsPath, it) }
+                } catch (e: Exception) {
+                    if (e.cause is NoSuchFileException) {
+                        responseService.failWithNotFoundResponse(httpExchange, "Response file does not exist: $fsPath")
+                    } else {
+                        httpExchange.fail(RuntimeException("Failed to read response file: $fsPath", e))
+                    }
+                    return
                 }
-                return
             }
-        }
 
-        val filename = fsPath.substringAfterLast("/")
+        val encodedData = if (!responseBehaviour.isTemplate) {
+            compressedVariantsFor(httpExchange)?.let { variants ->
+                addVaryAcceptEncoding(httpExchange)
+
+                // variants are loaded ahead of time, so only cached variants are used here, to avoid blocking
+                val encoded = httpExchange.get<EncodedResponseFile>(EXCHANGE_KEY_RESPONSE_FILE_ENCODED)
+                    ?: variants.selectEncoding(acceptEncoding(httpExchange), fsPath, responseData.length().toLong(), precompressedOnly = false)
+                        ?.let { encoding -> variants.getIfPresent(fsPath, encoding)?.let { EncodedResponseFile(encoding, it) } }
+
+                encoded?.let {
+                    setContentEncoding(httpExchange, encoded.encoding)
+                    encoded.data
+                }
+            }
+        } else {
+            null
+        }
 
         responseService.writeResponseData(
             resourceConfig = resourceConfig,
             httpExchange = httpExchange,
             filenameHintForContentType = filename,
-            origResponseData = responseData,
+            origResponseData = encodedData ?: responseData,
             template = responseBehaviour.isTemplate,
             trustedData = false
         )
     }
 
+    /**
+     * Templated files must be read to resolve placeholders, and files on the
+     * classpath cannot be sent directly.
+     */
+    private fun shouldSendFile(responseBehaviour: ResponseBehaviour, fsPath: String): Boolean {
+        return sendFileEnabled && !responseBehaviour.isTemplate && File(fsPath).isFile
+    }
+
+    private fun shouldMapFile(responseBehaviour: ResponseBehaviour, fsPath: String): Boolean {
+        return null != mappedFileStore && !responseBehaviour.isTemplate && File(fsPath).isFile
+    }
+
+    /**
+     * Blocks, so must be called on a worker thread.
+     *
+     * @return the memory-mapped file contents, or `null` if the file should be read onto the heap
+     */
+    private fun mapFile(fsPath: String): Buffer? {
+        return try {
+            mappedFileStore!!.get(fsPath)
+        } catch (e: IOException) {
+            LOGGER.warn("Failed to map response file: {} - falling back to reading file", fsPath, e)
+            null
+        }
+    }
+
+    /**
+     * Compressed variants are binary, so are only served by responses that stream their
+     * body to the client. Other responses, such as those returned to AWS Lambda, carry
+     * the body as text, which would corrupt a compressed body.
+     */
+    private fun compressedVariantsFor(httpExchange: HttpExchange): CompressedResponseFileVariants? =
+        compressedVariants?.takeIf { httpExchange.response.streamsChunks }
+
+    private fun acceptEncoding(httpExchange: HttpExchange): String? =
+        httpExchange.request.getHeader(HEADER_ACCEPT_ENCODING)
+
+    private fun setContentEncoding(httpExchange: HttpExchange, encoding: CompressedResponseFileVariants.Encoding) {
+        httpExchange.response.putHeader(HEADER_CONTENT_ENCODING, encoding.coding)
+    }
+
+    /**
+     * The response depends on the `Accept-Encoding` request header whenever variants
+     * may be served, including when the original is sent, so shared caches must
+     * not reuse either response for other clients.
+     */
+    private fun addVaryAcceptEncoding(httpExchange: HttpExchange) {
+        val response = httpExchange.response
+        val vary = response.getHeader(HEADER_VARY)
+        if (vary.isNullOrBlank()) {
+            response.putHeader(HEADER_VARY, HEADER_ACCEPT_ENCODING)
+        } else if (vary.split(',').none { it.trim().equals(HEADER_ACCEPT_ENCODING, ignoreCase = true) }) {
+            response.putHeader(HEADER_VARY, "$vary, $HEADER_ACCEPT_ENCODING")
+        }
+    }
+
+    private fun cache(fsPath: String, buffer: Buffer) {
+        cachedBytes.addAndGet(buffer.length().toLong())
+        responseFileCache.put(fsPath, buffer)
+    }
+
     private fun resolvePath(pluginConfig: PluginConfig, responseFile: String): String {
         val normalisedPath = FileUtil.validatePath(responseFile, pluginConfig.dir)
 
@@ -160,10 +432,32 @@ class ResponseFileServiceImpl @Inject constructor(
         }
     }
 
+    private class EncodedResponseFile(
+        val encoding: CompressedResponseFileVariants.Encoding,
+        val data: Buffer,
+    )
+
     companion object {
         private val LOGGER = LogManager.getLogger(ResponseFileServiceImpl::class.java)
         private const val ENV_RESPONSE_FILE_CACHE_ENTRIES = "IMPOSTER_RESPONSE_FILE_CACHE_ENTRIES"
-        private const val DEFAULT_RESPONSE_FILE_CACHE_ENTRIES = 20L
+        private const val ENV_RESPONSE_FILE_CACHE_BYTES = "IMPOSTER_RESPONSE_FILE_CACHE_BYTES"
+        private const val ENV_RESPONSE_FILE_SENDFILE = "IMPOSTER_RESPONSE_FILE_SENDFILE"
+        private const val ENV_RESPONSE_FILE_MMAP = "IMPOSTER_RESPONSE_FILE_MMAP"
+        private const val ENV_RESPONSE_FILE_MMAP_BYTES = "IMPOSTER_RESPONSE_FILE_MMAP_BYTES"
+        private const val ENV_RESPONSE_FILE_PRECOMPRESS = "IMPOSTER_RESPONSE_FILE_PRECOMPRESS"
+        private const val ENV_RESPONSE_FILE_PRECOMPRESS_CACHE_BYTES = "IMPOSTER_RESPONSE_FILE_PRECOMPRESS_CACHE_BYTES"
+        private const val ENV_RESPONSE_FILE_PRECOMPRESS_MIN_BYTES = "IMPOSTER_RESPONSE_FILE_PRECOMPRESS_MIN_BYTES"
+        private const val DEFAULT_RESPONSE_FILE_CACHE_BYTES = 64L * 1024 * 1024
+        private const val DEFAULT_RESPONSE_FILE_PRECOMPRESS_MIN_BYTES = 1024
+        private const val DEFAULT_RESPONSE_FILE_MMAP_BYTES = 1024L * 1024 * 1024
         private const val METRIC_RESPONSE_FILE_CACHE_ENTRIES = "response.file.cache.entries"
+        private const val METRIC_RESPONSE_FILE_CACHE_BYTES = "response.file.cache.bytes"
+        private const val METRIC_RESPONSE_FILE_CACHE_HIT_RATIO = "response.file.cache.hit.ratio"
+        private const val METRIC_RESPONSE_FILE_MAPPED_BYTES = "response.file.mapped.bytes"
+        private const val EXCHANGE_KEY_RESPONSE_FILE_DATA = "responseFile.data"
+        private const val EXCHANGE_KEY_RESPONSE_FILE_ENCODED = "responseFile.encoded"
+        private const val HEADER_ACCEPT_ENCODING = "Accept-Encoding"
+        private const val HEADER_CONTENT_ENCODING = "Content-Encoding"
+        private const val HEADER_VARY = "Vary"
     }
 }
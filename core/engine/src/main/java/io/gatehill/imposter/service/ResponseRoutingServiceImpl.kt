@@ -51,13 +51,18 @@ import io.gatehill.imposter.lifecycle.EngineLifecycleListener
 import io.gatehill.imposter.plugin.config.PluginConfig
 import io.gatehill.imposter.plugin.config.ResourcesHolder
 import io.gatehill.imposter.plugin.config.resource.BasicResourceConfig
+import io.gatehill.imposter.plugin.config.steps.StepType
 import io.gatehill.imposter.script.ReadWriteResponseBehaviour
 import io.gatehill.imposter.script.ResponseBehaviour
 import io.gatehill.imposter.script.ResponseBehaviourType
+import io.gatehill.imposter.service.script.ScriptExecutionScheduler
+import io.gatehill.imposter.util.HttpUtil
 import io.gatehill.imposter.util.LogUtil
 import io.gatehill.imposter.util.makeFuture
 import org.apache.logging.log4j.LogManager
 import java.util.concurrent.CompletableFuture
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeoutException
 import javax.inject.Inject
 
 /**
@@ -69,6 +74,7 @@ class ResponseRoutingServiceImpl @Inject constructor(
     private val engineLifecycle: EngineLifecycleHooks,
     private val stepService: StepService,
     private val responseService: ResponseService,
+    private val scriptExecutionScheduler: ScriptExecutionScheduler,
 ) : ResponseRoutingService {
     private val logger = LogManager.getLogger(ResponseRoutingServiceImpl::class.java)
 
@@ -88,31 +94,86 @@ class ResponseRoutingServiceImpl @Inject constructor(
             engineLifecycle.forEach { listener: EngineLifecycleListener ->
                 listener.beforeBuildingResponse(httpExchange, resourceConfig)
             }
-            val responseBehaviour = buildResponseBehaviour(
-                httpExchange,
-                pluginConfig,
-                resourceConfig,
-                additionalContext,
-                statusCodeFactory,
-                responseBehaviourFactory
-            )
-            if (ResponseBehaviourType.SHORT_CIRCUIT == responseBehaviour.behaviourType) {
-                return responseService.sendResponse(
+            val buildBehaviour = {
+                buildResponseBehaviour(
+                    httpExchange,
                     pluginConfig,
                     resourceConfig,
-                    httpExchange,
-                    responseBehaviour,
+                    additionalContext,
+                    statusCodeFactory,
+                    responseBehaviourFactory
                 )
-            } else {
-                // default behaviour
-                return defaultBehaviourHandler(responseBehaviour)
             }
-        } catch (e: Exception) {
-            val msg = "Error sending mock response for ${LogUtil.describeRequest(httpExchange)}"
-            logger.error(msg, e)
-            return makeFuture {
-                httpExchange.fail(ResponseException(msg, e))
+
+            // scripts are run on a worker thread, if enabled, to avoid blocking the event loop
+            if (scriptExecutionScheduler.enabled && hasScriptSteps(pluginConfig, resourceConfig)) {
+                return scriptExecutionScheduler.submit(buildBehaviour).handle { responseBehaviour, e ->
+                    e?.let { handleScriptFailure(httpExchange, e) } ?: respond(
+                        pluginConfig,
+                        resourceConfig,
+                        httpExchange,
+                        responseBehaviour,
+                        defaultBehaviourHandler,
+                    )
+                }.thenCompose { it }
             }
+            return respond(pluginConfig, resourceConfig, httpExchange, buildBehaviour(), defaultBehaviourHandler)
+
+        } catch (e: Exception) {
+            return handleFailure(httpExchange, e)
+        }
+    }
+
+    private fun hasScriptSteps(pluginConfig: PluginConfig, resourceConfig: BasicResourceConfig?): Boolean =
+        resourceConfig?.let { stepService.determineSteps(pluginConfig, resourceConfig).any { it.type == StepType.Script } } == true
+
+    private fun respond(
+        pluginConfig: PluginConfig,
+        resourceConfig: BasicResourceConfig?,
+        httpExchange: HttpExchange,
+        responseBehaviour: ResponseBehaviour,
+        defaultBehaviourHandler: DefaultBehaviourHandler,
+    ): CompletableFuture<Unit> {
+        if (ResponseBehaviourType.SHORT_CIRCUIT == responseBehaviour.behaviourType) {
+            return responseService.sendResponse(
+                pluginConfig,
+                resourceConfig,
+                httpExchange,
+                responseBehaviour,
+            )
+        } else {
+            // default behaviour
+            return defaultBehaviourHandler(responseBehaviour)
+        }
+    }
+
+    private fun handleFailure(httpExchange: HttpExchange, e: Exception): CompletableFuture<Unit> {
+        val msg = "Error sending mock response for ${LogUtil.describeRequest(httpExchange)}"
+        logger.error(msg, e)
+        return makeFuture {
+            httpExchange.fail(ResponseException(msg, e))
+        }
+    }
+
+    /**
+     * A script that exceeded its timeout, or that was rejected because the script
+     * execution queue is full, results in a 503 response, as the worker pool is
+     * unavailable to serve it. A rejected request can be retried once the queue
+     * has drained, so the response also sets the `Retry-After` header.
+     */
+    private fun handleScriptFailure(httpExchange: HttpExchange, e: Throwable): CompletableFuture<Unit> {
+        val causes = generateSequence(e) { it.cause }
+        val msg = if (causes.any { it is RejectedExecutionException }) {
+            httpExchange.response.putHeader(HEADER_RETRY_AFTER, SCRIPT_QUEUE_RETRY_AFTER_SECS.toString())
+            "Script execution queue full for ${LogUtil.describeRequest(httpExchange)}"
+        } else if (causes.any { it is TimeoutException }) {
+            "Script timed out for ${LogUtil.describeRequest(httpExchange)}"
+        } else {
+            return handleFailure(httpExchange, e as? Exception ?: RuntimeException(e))
+        }
+        logger.error(msg, e)
+        return makeFuture {
+            httpExchange.fail(HttpUtil.HTTP_UNAVAILABLE, ResponseException(msg, e))
         }
     }
 
@@ -184,4 +245,9 @@ class ResponseRoutingServiceImpl @Inject constructor(
         }
         return responseBehaviour
     }
+
+    companion object {
+        private const val HEADER_RETRY_AFTER = "Retry-After"
+        private const val SCRIPT_QUEUE_RETRY_AFTER_SECS = 1
+    }
 }
@@ -52,7 +52,9 @@ import io.gatehill.imposter.plugin.config.ContentTypedConfig
 import io.gatehill.imposter.plugin.config.PluginConfig
 import io.gatehill.imposter.plugin.config.resource.BasicResourceConfig
 import io.gatehill.imposter.plugin.config.resource.ResourceConfig
+import io.gatehill.imposter.script.PerformanceSimulationConfig
 import io.gatehill.imposter.script.ResponseBehaviour
+import io.gatehill.imposter.service.CharacteristicsService.StreamingPlan
 import io.gatehill.imposter.service.ResponseService.ResponseSender
 import io.gatehill.imposter.util.HttpUtil
 import io.gatehill.imposter.util.LogUtil
@@ -64,6 +66,7 @@ import io.vertx.core.Vertx
 import io.vertx.core.buffer.Buffer
 import io.vertx.core.http.impl.MimeMapping
 import org.apache.logging.log4j.LogManager
+import java.io.File
 import java.util.concurrent.CompletableFuture
 import javax.inject.Inject
 
@@ -75,6 +78,7 @@ class ResponseServiceImpl @Inject constructor(
     private val characteristicsService: CharacteristicsService,
     private val responseFileService: ResponseFileService,
     private val vertx: Vertx,
+    private val delayScheduler: ResponseDelayScheduler,
 ) : ResponseService {
 
     private var notFoundMessages = mutableListOf<String>()
@@ -111,7 +115,13 @@ class ResponseServiceImpl @Inject constructor(
         responseBehaviour: ResponseBehaviour,
         vararg fallbackSenders: ResponseSender,
     ): CompletableFuture<Unit> = makeFuture(autoComplete = false) { future ->
-        val completion = {
+        // read any response file while the response is delayed
+        val responseFileLoaded = if (null == responseBehaviour.failureType && !responseBehaviour.responseFile.isNullOrEmpty()) {
+            responseFileService.loadResponseFile(pluginConfig, httpExchange, responseBehaviour)
+        } else {
+            CompletableFuture.completedFuture(Unit)
+        }
+        val send = {
             try {
                 responseBehaviour.failureType?.let { failureType ->
                     characteristicsService.sendFailure(resourceConfig, httpExchange, failureType)
@@ -123,10 +133,16 @@ class ResponseServiceImpl @Inject constructor(
                 future.completeExceptionally(e)
             }
         }
+        val completion: () -> Unit = {
+            responseFileLoaded.whenComplete { _, _ -> send() }
+        }
         val delayMs = characteristicsService.simulatePerformance(responseBehaviour)
+        responseBehaviour.performanceSimulation?.takeIf { it.isStreamed }?.let { performance ->
+            httpExchange.put(EXCHANGE_KEY_STREAMING, StreamingSimulation(performance, delayMs))
+        }
         if (delayMs > 0) {
             LOGGER.info("Delaying mock response for {} by {}ms", LogUtil.describeRequestShort(httpExchange), delayMs)
-            vertx.setTimer(delayMs.toLong()) { completion() }
+            delayScheduler.scheduleResponse(delayMs.toLong()) { completion() }
         } else {
             completion()
         }
@@ -227,7 +243,81 @@ class ResponseServiceImpl @Inject constructor(
         } else {
             origResponseData
         }
-        response.end(responseData)
+        planStreaming(httpExchange, responseData.length())?.let { plan ->
+            streamResponseData(httpExchange, responseData, plan)
+        } ?: response.end(responseData)
+    }
+
+    override fun writeResponseFile(
+        resourceConfig: ResourceConfig?,
+        httpExchange: HttpExchange,
+        filenameHintForContentType: String?,
+        filePath: String,
+    ) {
+        val response = httpExchange.response
+        setContentTypeIfAbsent(resourceConfig, response, filenameHintForContentType)
+
+        val plan = planStreaming(httpExchange, File(filePath).length().toInt())
+        if (null == plan) {
+            response.sendFile(filePath)
+            return
+        }
+        // the file must be read to control the rate at which it is sent
+        vertx.fileSystem().readFile(filePath).onComplete { result ->
+            if (result.succeeded()) {
+                streamResponseData(httpExchange, result.result(), plan)
+            } else {
+                httpExchange.fail(ResponseException("Failed to read response file: $filePath", result.cause()))
+            }
+        }
+    }
+
+    /**
+     * @return the plan for streaming the body, or `null` if it should be sent in full
+     */
+    private fun planStreaming(httpExchange: HttpExchange, bodyLength: Int): StreamingPlan? {
+        val simulation = httpExchange.get<StreamingSimulation>(EXCHANGE_KEY_STREAMING) ?: return null
+        if (!httpExchange.response.streamsChunks) {
+            LOGGER.debug("Server does not support streaming responses - sending body in full")
+            return null
+        }
+        return characteristicsService.simulateThroughput(simulation.performance, bodyLength, simulation.firstByteDelayMs)
+    }
+
+    /**
+     * Writes the body in chunks, each scheduled after the last, then ends the response.
+     */
+    private fun streamResponseData(httpExchange: HttpExchange, responseData: Buffer, plan: StreamingPlan) {
+        LOGGER.debug(
+            "Streaming {} bytes for {} in chunks of {} bytes every {}ms",
+            responseData.length(),
+            LogUtil.describeRequestShort(httpExchange),
+            plan.chunkSize,
+            plan.intervalMs,
+        )
+        val response = httpExchange.response
+        var offset = 0
+
+        fun writeChunk() {
+            val end = minOf(offset + plan.chunkSize, responseData.length())
+            response.write(responseData.slice(offset, end))
+            offset = end
+            if (offset >= responseData.length()) {
+                response.end()
+                return
+            }
+            delayScheduler.schedule(plan.intervalMs) {
+                try {
+                    writeChunk()
+                } catch (e: Exception) {
+                    // typically because the client has disconnected
+                    LOGGER.debug("Stopped streaming response for {}", LogUtil.describeRequestShort(httpExchange), e)
+                }
+            }
+        }
+
+        // the time to first byte has already elapsed
+        writeChunk()
     }
 
     private fun setContentTypeIfAbsent(
@@ -338,7 +428,17 @@ class ResponseServiceImpl @Inject constructor(
         }
     }
 
+    /**
+     * The performance simulation for a streamed response, and the delay
+     * already applied before it is sent.
+     */
+    private data class StreamingSimulation(
+        val performance: PerformanceSimulationConfig,
+        val firstByteDelayMs: Int,
+    )
+
     companion object {
         private val LOGGER = LogManager.getLogger(ResponseServiceImpl::class.java)
+        private const val EXCHANGE_KEY_STREAMING = "response.streaming"
     }
 }
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.service.script
+
+import io.gatehill.imposter.config.util.EnvVars
+import io.gatehill.imposter.script.ScriptUtil
+import io.gatehill.imposter.service.ScriptService
+import io.gatehill.imposter.service.ScriptSource
+import io.gatehill.imposter.util.MetricsUtil
+import io.micrometer.core.instrument.Counter
+import io.micrometer.core.instrument.Gauge
+import io.micrometer.core.instrument.Timer
+import io.vertx.core.Vertx
+import org.apache.logging.log4j.LogManager
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Runs script executions on a dedicated, bounded pool of worker threads, so slow
+ * scripts do not hold up the event loop or requests that do not use scripts.
+ *
+ * The pool is enabled by setting the [ENV_VAR_WORKERS] environment variable to
+ * the number of worker threads. Pending executions are held in a queue, bounded by
+ * the [ENV_VAR_QUEUE_SIZE] environment variable; executions are rejected if the
+ * queue is full. When the pool is disabled, scripts run on the calling thread.
+ *
+ * If a script running on a worker thread exceeds [ScriptUtil.scriptTimeoutMs], the
+ * execution is failed with a [TimeoutException] and the script service is asked to
+ * interrupt it. The caller is notified as soon as the timeout elapses, whether or
+ * not the script stops. Only the GraalVM engine can stop a script that is busy
+ * computing; other engines only stop if the script blocks in an interruptible
+ * call, otherwise the worker thread remains occupied until the script completes.
+ *
+ * @author Pete Cornish
+ */
+class ScriptExecutionScheduler(
+    private val workers: Int = EnvVars.getEnv(ENV_VAR_WORKERS)?.toInt() ?: 0,
+    private val timeoutMs: Long = ScriptUtil.scriptTimeoutMs,
+    private val queueSize: Int = EnvVars.getEnv(ENV_VAR_QUEUE_SIZE)?.toInt() ?: DEFAULT_QUEUE_SIZE,
+) {
+    /**
+     * Whether script executions are run on the worker pool.
+     */
+    val enabled = workers > 0
+
+    private val executor: ThreadPoolExecutor? = if (enabled) buildExecutor() else null
+
+    private val watchdog: ScheduledExecutorService? = if (enabled && timeoutMs > 0) {
+        Executors.newSingleThreadScheduledExecutor { r ->
+            Thread(r, "imposter-script-watchdog").apply { isDaemon = true }
+        }
+    } else {
+        null
+    }
+
+    private var queueWaitTimer: Timer? = null
+    private var timeoutCounter: Counter? = null
+    private var rejectedCounter: Counter? = null
+
+    init {
+        if (enabled) {
+            LOGGER.debug("Script execution pool enabled with {} workers and timeout: {}ms", workers, timeoutMs)
+
+            MetricsUtil.doIfMetricsEnabled(METRIC_QUEUE_WAIT_DURATION) { registry ->
+                queueWaitTimer = Timer.builder(METRIC_QUEUE_WAIT_DURATION)
+                    .description("Time script executions spend waiting for a worker in seconds")
+                    .register(registry)
+
+                timeoutCounter = Counter.builder(METRIC_TIMEOUTS)
+                    .description("The number of script executions interrupted after exceeding the timeout")
+                    .register(registry)
+
+                rejectedCounter = Counter.builder(METRIC_REJECTED)
+                    .description("The number of script executions rejected because the queue was full")
+                    .register(registry)
+
+                Gauge.builder(METRIC_QUEUE_DEPTH) { executor!!.queue.size }
+                    .description("The number of script executions waiting for a worker")
+                    .register(registry)
+            }
+        }
+    }
+
+    private fun buildExecutor(): ThreadPoolExecutor {
+        val threadCount = AtomicInteger()
+        return ThreadPoolExecutor(
+            workers,
+            workers,
+            0L,
+            TimeUnit.MILLISECONDS,
+            ArrayBlockingQueue(queueSize),
+        ) { r ->
+            Thread({
+                isWorkerThread.set(true)
+                r.run()
+            }, "imposter-script-${threadCount.incrementAndGet()}").apply { isDaemon = true }
+        }
+    }
+
+    /**
+     * Runs [block] on a worker thread. The returned future is completed on the
+     * caller's Vert.x context, if there is one.
+     *
+     * If a script run by [block] via [runWithTimeout] exceeds the timeout, the future
+     * is failed with a [TimeoutException] without waiting for [block] to return.
+     */
+    fun <T> submit(block: () -> T): CompletableFuture<T> {
+        val executor = checkNotNull(executor) { "Script execution pool is not enabled" }
+        val future = CompletableFuture<T>()
+        val callerContext = Vertx.currentContext()
+        val submittedAt = System.nanoTime()
+
+        val completeWith = { result: Result<T> ->
+            val complete = {
+                result.fold({ future.complete(it) }, { future.completeExceptionally(it) })
+            }
+            callerContext?.runOnContext { complete() } ?: complete()
+        }
+
+        try {
+            executor.execute {
+                queueWaitTimer?.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS)
+                timeoutHandler.set { e -> completeWith(Result.failure(e)) }
+                val result = try {
+                    Result.success(block())
+                } catch (e: Exception) {
+                    Result.failure(e)
+                } finally {
+                    timeoutHandler.remove()
+                }
+                completeWith(result)
+            }
+        } catch (e: RejectedExecutionException) {
+            rejectedCounter?.increment()
+            future.completeExceptionally(RejectedExecutionException("Script execution queue is full", e))
+        }
+        return future
+    }
+
+    /**
+     * Runs the script execution in [block], interrupting it using [scriptService] if it
+     * exceeds the timeout. Timeouts only apply on worker threads; on other threads,
+     * [block] is run without a timeout.
+     *
+     * On timeout, the execution submitted via [submit] is failed immediately, as
+     * [scriptService] may not be able to stop the script.
+     */
+    fun <T> runWithTimeout(script: ScriptSource, scriptService: ScriptService, block: () -> T): T {
+        if (null == watchdog || isWorkerThread.get() != true) {
+            return block()
+        }
+
+        val thread = Thread.currentThread()
+        val onTimeout = timeoutHandler.get()
+        val execution = TimedExecution()
+        val interrupter = watchdog.schedule(Runnable {
+            synchronized(execution) {
+                if (!execution.finished) {
+                    LOGGER.warn("Interrupting script: {} after exceeding timeout of {}ms", script, timeoutMs)
+                    execution.timedOut = true
+                    timeoutCounter?.increment()
+                    onTimeout?.invoke(TimeoutException("Script: $script exceeded timeout of ${timeoutMs}ms"))
+                    scriptService.interruptExecution(thread)
+                }
+            }
+        }, timeoutMs, TimeUnit.MILLISECONDS)
+
+        try {
+            val result = block()
+            if (execution.timedOut) {
+                throw TimeoutException("Script: $script exceeded timeout of ${timeoutMs}ms")
+            }
+            return result
+        } catch (e: Exception) {
+            if (execution.timedOut) {
+                throw TimeoutException("Script: $script exceeded timeout of ${timeoutMs}ms").apply { initCause(e) }
+            }
+            throw e
+        } finally {
+            interrupter.cancel(false)
+            synchronized(execution) {
+                execution.finished = true
+            }
+            // clear any interrupt that arrived as the script completed
+            Thread.interrupted()
+        }
+    }
+
+    private class TimedExecution {
+        var finished = false
+
+        @Volatile
+        var timedOut = false
+    }
+
+    companion object {
+        private val LOGGER = LogManager.getLogger(ScriptExecutionScheduler::class.java)
+        private const val ENV_VAR_WORKERS = "IMPOSTER_SCRIPT_WORKERS"
+        private const val ENV_VAR_QUEUE_SIZE = "IMPOSTER_SCRIPT_QUEUE_SIZE"
+        private const val DEFAULT_QUEUE_SIZE = 1_000
+        private const val METRIC_QUEUE_WAIT_DURATION = "script.execution.queue.wait"
+        private const val METRIC_QUEUE_DEPTH = "script.execution.queue.depth"
+        private const val METRIC_TIMEOUTS = "script.execution.timeouts"
+        private const val METRIC_REJECTED = "script.execution.rejected"
+
+        private val isWorkerThread = ThreadLocal<Boolean>()
+
+        /**
+         * Fails the execution submitted on the current worker thread.
+         */
+        private val timeoutHandler = ThreadLocal<(TimeoutException) -> Unit>()
+    }
+}
@@ -60,6 +60,8 @@ import io.gatehill.imposter.plugin.config.steps.StepType
 import io.gatehill.imposter.script.ExecutionContext
 import io.gatehill.imposter.script.ReadWriteResponseBehaviour
 import io.gatehill.imposter.script.ScriptBindings
+import io.gatehill.imposter.script.ScriptUtil
+import io.gatehill.imposter.script.SharedScriptBindings
 import io.gatehill.imposter.service.ScriptSource
 import io.gatehill.imposter.service.ScriptedResponseService
 import io.gatehill.imposter.service.StepService
@@ -70,6 +72,7 @@ import org.apache.logging.log4j.LogManager
 import org.apache.logging.log4j.Logger
 import org.apache.logging.log4j.util.Supplier
 import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
 import javax.inject.Inject
 
 /**
@@ -81,6 +84,7 @@ class ScriptedResponseServiceImpl @Inject constructor(
     private val scriptServiceFactory: ScriptServiceFactory,
     private val evalScriptService: EvalScriptService,
     private val stepService: StepService,
+    private val scriptExecutionScheduler: ScriptExecutionScheduler,
 ) : ScriptedResponseService, EngineLifecycleListener {
 
     /**
@@ -88,6 +92,13 @@ class ScriptedResponseServiceImpl @Inject constructor(
      */
     private val loggerCache = CacheBuilder.newBuilder().maximumSize(20).build<String, Logger>()
 
+    /**
+     * Caches the bindings that are the same for every execution of a script, keyed by script source.
+     */
+    private val sharedBindingsCache = CacheBuilder.newBuilder()
+        .maximumSize(EnvVars.getEnv(ScriptUtil.ENV_SCRIPT_CACHE_ENTRIES)?.toLong() ?: ScriptUtil.DEFAULT_SCRIPT_CACHE_ENTRIES)
+        .build<String, SharedScriptBindings>()
+
     private var executionTimer: Timer? = null
 
     init {
@@ -110,10 +121,12 @@ class ScriptedResponseServiceImpl @Inject constructor(
     }
 
     private fun initScripts(allPluginConfigs: List<PluginConfig>) {
+        val scripts = mutableMapOf<String, ScriptSource>()
+
         // root resource
         allPluginConfigs.forEach { config ->
             if (config is BasicResourceConfig) {
-                initScriptFilesAndSteps(config, config)
+                collectScriptFilesAndSteps(config, config, scripts)
             }
         }
 
@@ -121,7 +134,7 @@ class ScriptedResponseServiceImpl @Inject constructor(
         allPluginConfigs.forEach { config ->
             if (config is ResourcesHolder<*>) {
                 config.resources?.forEach { resource ->
-                    initScriptFilesAndSteps(config, resource)
+                    collectScriptFilesAndSteps(config, resource, scripts)
 
                     // inline eval scripts
                     if (resource is EvalResourceConfig) {
@@ -130,23 +143,64 @@ class ScriptedResponseServiceImpl @Inject constructor(
                 }
             }
         }
+
+        initScriptsInParallel(scripts.values)
     }
 
     /**
      * Covers `scriptFile` on response config and script steps.
+     * Scripts are keyed by source, so a script used by more than one resource is only initialised once.
      */
-    private fun initScriptFilesAndSteps(config: PluginConfig, resource: BasicResourceConfig) {
+    private fun collectScriptFilesAndSteps(
+        config: PluginConfig,
+        resource: BasicResourceConfig,
+        scripts: MutableMap<String, ScriptSource>,
+    ) {
         val steps = stepService.determineSteps(config, resource)
         steps.filter { it.type == StepType.Script }.forEach { step ->
             val context = step.context as ScriptStepContext
             val script = ScriptProcessingStep.parseScriptSource(context)
+            scripts.putIfAbsent(script.source, script)
+        }
+    }
 
-            val scriptService = scriptServiceFactory.fetchScriptService(script.source)
-            if (LOGGER.isTraceEnabled) {
-                LOGGER.trace("Initialising script: {} using: {}", script.source, scriptService::class.qualifiedName)
+    /**
+     * Initialises the scripts using a pool of threads, sized by the
+     * [ENV_VAR_INIT_THREADS] environment variable, and waits for them to complete.
+     * If any script fails to initialise, the first failure is thrown.
+     */
+    private fun initScriptsInParallel(scripts: Collection<ScriptSource>) {
+        if (scripts.isEmpty()) {
+            return
+        }
+        val threads = (EnvVars.getEnv(ENV_VAR_INIT_THREADS)?.toInt() ?: Runtime.getRuntime().availableProcessors())
+            .coerceIn(1, scripts.size)
+
+        LOGGER.debug("Initialising {} scripts using {} threads", scripts.size, threads)
+        val initStart = System.nanoTime()
+
+        val executor = Executors.newFixedThreadPool(threads)
+        try {
+            val futures = scripts.map { script ->
+                executor.submit(Runnable {
+                    val scriptService = scriptServiceFactory.fetchScriptService(script.source)
+                    if (LOGGER.isTraceEnabled) {
+                        LOGGER.trace("Initialising script: {} using: {}", script.source, scriptService::class.qualifiedName)
+                    }
+                    scriptService.initScript(script)
+                })
+            }
+            futures.forEach { future ->
+                try {
+                    future.get()
+                } catch (e: ExecutionException) {
+                    throw e.cause ?: e
+                }
             }
-            scriptService.initScript(script)
+        } finally {
+            executor.shutdownNow()
         }
+        LOGGER.debug("Initialised {} scripts in {}ms", scripts.size, (System.nanoTime() - initStart) / 1_000_000)
     }
 
     override fun determineResponseFromScript(
@@ -192,17 +246,15 @@ class ScriptedResponseServiceImpl @Inject constructor(
             LOGGER.trace("Context for request: {}", Supplier<Any> { executionContext })
 
             val additionalBindings = getAdditionalBindings(httpExchange, scriptService.implName, executionContext)
-            val scriptLogger = buildScriptLogger(script.source)
-
             val scriptBindings = ScriptBindings(
-                EnvVars.getEnv(),
-                scriptLogger,
-                pluginConfig,
+                getSharedBindings(script, pluginConfig),
                 additionalBindings,
                 executionContext
             )
 
-            val responseBehaviour = scriptService.executeScript(script, scriptBindings)
+            val responseBehaviour = scriptExecutionScheduler.runWithTimeout(script, scriptService) {
+                scriptService.executeScript(script, scriptBindings)
+            }
 
             // fire post execution hooks
             scriptLifecycle.forEach { listener ->
@@ -232,6 +284,18 @@ class ScriptedResponseServiceImpl @Inject constructor(
         }
     }
 
+    private fun getSharedBindings(script: ScriptSource, pluginConfig: PluginConfig): SharedScriptBindings {
+        val env = EnvVars.getEnv()
+        sharedBindingsCache.getIfPresent(script.source)?.let { shared ->
+            if (shared.pluginConfig === pluginConfig && shared.env === env) {
+                return shared
+            }
+        }
+        val shared = SharedScriptBindings(env, buildScriptLogger(script.source), pluginConfig)
+        sharedBindingsCache.put(script.source, shared)
+        return shared
+    }
+
     @Throws(ExecutionException::class)
     private fun buildScriptLogger(scriptSource: String): Logger {
         val name: String?
@@ -271,5 +335,6 @@ class ScriptedResponseServiceImpl @Inject constructor(
     companion object {
         private val LOGGER = LogManager.getLogger(ScriptedResponseServiceImpl::class.java)
         private const val METRIC_SCRIPT_EXECUTION_DURATION = "script.execution.duration"
+        private const val ENV_VAR_INIT_THREADS = "IMPOSTER_SCRIPT_INIT_THREADS"
     }
 }
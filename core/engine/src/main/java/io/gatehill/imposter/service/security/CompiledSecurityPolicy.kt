@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2016-2024.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.service.security
+
+import io.gatehill.imposter.http.HttpRequest
+import io.gatehill.imposter.plugin.config.resource.conditional.ConditionalNameValuePair
+import io.gatehill.imposter.plugin.config.resource.conditional.MatchOperator
+import io.gatehill.imposter.plugin.config.security.SecurityCondition
+import io.gatehill.imposter.plugin.config.security.SecurityConfig
+import io.gatehill.imposter.plugin.config.security.SecurityEffect
+import io.gatehill.imposter.util.CollectionUtil.convertKeysToLowerCaseView
+import io.gatehill.imposter.util.MatchUtil
+import io.gatehill.imposter.util.MetricsUtil
+import io.micrometer.core.instrument.Counter
+import org.apache.logging.log4j.LogManager
+import java.util.Locale
+import java.util.regex.Pattern
+
+/**
+ * A [SecurityConfig] compiled into a flat list of checks, with lowercase header
+ * keys and regular expressions resolved up front.
+ *
+ * @author Pete Cornish
+ */
+internal class CompiledSecurityPolicy(security: SecurityConfig) {
+    private val defaultEffect = security.defaultEffect
+    private val conditions = security.conditions.map { CompiledCondition(it) }.toTypedArray()
+    private val needsQueryParams = conditions.any { it.queryChecks.isNotEmpty() }
+    private val needsFormParams = conditions.any { it.formChecks.isNotEmpty() }
+    private val needsHeaders = conditions.any { it.headerChecks.isNotEmpty() }
+
+    /**
+     * Human-readable description of the policy's conditions.
+     */
+    val description: String = if (conditions.isEmpty()) {
+        "default effect"
+    } else {
+        conditions.joinToString(", ") { it.description }
+    }
+
+    /**
+     * Short, stable identifier for the policy, used as a metric tag instead of
+     * the description, which grows with the number of conditions.
+     */
+    val policyId: String = "%08x".format(description.hashCode())
+
+    private var permitCounter: Counter? = null
+    private var denyCounter: Counter? = null
+
+    init {
+        MetricsUtil.doIfMetricsEnabled(METRIC_EVALUATIONS) { registry ->
+            permitCounter = buildCounter(SecurityEffect.Permit).register(registry)
+            denyCounter = buildCounter(SecurityEffect.Deny).register(registry)
+        }
+    }
+
+    private fun buildCounter(effect: SecurityEffect) = Counter.builder(METRIC_EVALUATIONS)
+        .description("The number of requests evaluated against a security policy")
+        .tag("policy", policyId)
+        .tag("effect", effect.name.lowercase(Locale.getDefault()))
+
+    /**
+     * Evaluates the policy against the request. Descriptions of the failed
+     * conditions are only built when the request is denied.
+     */
+    fun evaluate(request: HttpRequest): PolicyOutcome {
+        if (conditions.isEmpty()) {
+            return record(PolicyOutcome(defaultEffect, description))
+        }
+
+        val queryParams = if (needsQueryParams) request.queryParams else emptyMap()
+        val formParams = if (needsFormParams) request.formParams else emptyMap()
+        val headers = if (needsHeaders) convertKeysToLowerCaseView(request.headers) else emptyMap()
+
+        for (i in conditions.indices) {
+            if (!conditions[i].permits(queryParams, formParams, headers)) {
+                val failed = StringBuilder(conditions[i].description)
+                for (j in i + 1 until conditions.size) {
+                    if (!conditions[j].permits(queryParams, formParams, headers)) {
+                        failed.append(", ").append(conditions[j].description)
+                    }
+                }
+                return record(PolicyOutcome(SecurityEffect.Deny, failed.toString()))
+            }
+        }
+        return record(PolicyOutcome(SecurityEffect.Permit, "all conditions"))
+    }
+
+    private fun record(outcome: PolicyOutcome): PolicyOutcome {
+        if (SecurityEffect.Permit == outcome.effect) permitCounter?.increment() else denyCounter?.increment()
+        return outcome
+    }
+
+    class PolicyOutcome(val effect: SecurityEffect, val policySource: String)
+
+    /**
+     * A condition permits the request when every check produces its effect:
+     * for a `Permit` condition, every check must match; for a `Deny` condition,
+     * no check may match.
+     */
+    private class CompiledCondition(condition: SecurityCondition) {
+        private val matchRequired = SecurityEffect.Permit == condition.effect
+        val queryChecks = compileChecks(condition.queryParams, lowercaseKeys = false)
+        val formChecks = compileChecks(condition.formParams, lowercaseKeys = false)
+        val headerChecks = compileChecks(condition.requestHeaders, lowercaseKeys = true)
+        val description = describe(condition)
+
+        fun permits(
+            queryParams: Map<String, String>,
+            formParams: Map<String, String>,
+            headers: Map<String, String>,
+        ): Boolean = checksPermit(queryChecks, queryParams) &&
+            checksPermit(formChecks, formParams) &&
+            checksPermit(headerChecks, headers)
+
+        private fun checksPermit(checks: Array<Check>, requestMap: Map<String, String>): Boolean {
+            for (check in checks) {
+                val matched = check.matches(requestMap[check.key])
+                if (LOGGER.isTraceEnabled) {
+                    LOGGER.trace("Condition match for {}: {}. Request map: {}", check.description, matched, requestMap.entries)
+                }
+                if (matched != matchRequired) {
+                    return false
+                }
+            }
+            return true
+        }
+
+        private fun describe(condition: SecurityCondition): String {
+            val description = StringBuilder()
+            describeConditionPart(description, condition.queryParams, "query conditions")
+            describeConditionPart(description, condition.formParams, "form conditions")
+            describeConditionPart(description, condition.requestHeaders, "header conditions")
+            return description.toString()
+        }
+
+        private fun describeConditionPart(
+            description: StringBuilder,
+            part: Map<String, ConditionalNameValuePair>,
+            partType: String,
+        ) {
+            if (part.isNotEmpty()) {
+                if (description.isNotEmpty()) {
+                    description.append(", ")
+                }
+                description.append(partType).append(": [").append(java.lang.String.join(", ", part.keys)).append("]")
+            }
+        }
+    }
+
+    private class Check(pair: ConditionalNameValuePair, lowercaseKey: Boolean) {
+        val key = if (lowercaseKey) pair.name.lowercase(Locale.getDefault()) else pair.name
+        val description = "${pair.name} ${pair.operator} ${pair.value}"
+        private val expected = pair.value
+        private val operator = pair.operator
+        private val pattern: Pattern? = if (
+            (MatchOperator.Matches == operator || MatchOperator.NotMatches == operator) && null != expected
+        ) {
+            Pattern.compile(expected)
+        } else {
+            null
+        }
+
+        fun matches(actual: String?): Boolean = when (operator) {
+            MatchOperator.Matches -> pattern?.matcher(actual ?: "")?.matches() ?: false
+            MatchOperator.NotMatches -> !(pattern?.matcher(actual ?: "")?.matches() ?: false)
+            else -> MatchUtil.conditionMatches(expected, operator, actual)
+        }
+    }
+
+    companion object {
+        private val LOGGER = LogManager.getLogger(CompiledSecurityPolicy::class.java)
+        private const val METRIC_EVALUATIONS = "security.policy.evaluations"
+
+        private fun compileChecks(
+            pairs: Map<String, ConditionalNameValuePair>,
+            lowercaseKeys: Boolean,
+        ): Array<Check> = pairs.values.map { Check(it, lowercaseKeys) }.toTypedArray()
+    }
+}
@@ -43,6 +43,8 @@
 
 package io.gatehill.imposter.service.security
 
+import com.google.common.cache.CacheBuilder
+import io.gatehill.imposter.config.util.EnvVars
 import io.gatehill.imposter.http.HttpExchange
 import io.gatehill.imposter.http.HttpExchangeFutureHandler
 import io.gatehill.imposter.http.HttpMethod
@@ -79,7 +81,7 @@ class CorsService @Inject constructor(
             if (selectedConfig !is CorsConfigHolder || selectedConfig.corsConfig == null) {
                 throw IllegalStateException("No CORS configuration found")
             }
-            val cors = selectedConfig.corsConfig!!
+            val cors = CompiledCorsPolicy(selectedConfig.corsConfig!!)
 
             // preflight
             router.route(HttpMethod.OPTIONS, "/*").handler(
@@ -97,14 +99,14 @@ class CorsService @Inject constructor(
     private fun handlePreflight(
         selectedConfig: PluginConfig,
         resourceMatcher: ResourceMatcher,
-        cors: CorsConfig,
+        cors: CompiledCorsPolicy,
     ): HttpExchangeFutureHandler {
         return handlerService.buildAndWrap(selectedConfig, resourceMatcher) { exchange: HttpExchange ->
-            val origin = determineResponseOrigin(cors, exchange.request)
-            origin?.let {
+            val corsHeaders = cors.headersFor(exchange.request)
+            corsHeaders?.let {
                 logger.debug("Serving CORS pre-flight request: ${LogUtil.describeRequest(exchange)}")
                 exchange.response.setStatusCode(HttpUtil.HTTP_NO_CONTENT)
-                addCorsHeaders(exchange, origin, cors)
+                addCorsHeaders(exchange, corsHeaders)
                 exchange.response.end()
             } ?: run {
                 logger.warn("CORS pre-flight request with invalid Origin: ${LogUtil.describeRequest(exchange)}")
@@ -115,44 +117,96 @@ class CorsService @Inject constructor(
         }
     }
 
-    private fun decorate(cors: CorsConfig) = { exchange: HttpExchange ->
+    private fun decorate(cors: CompiledCorsPolicy) = { exchange: HttpExchange ->
         // don't add headers to preflight requests (handled in preflight handler)
         if (exchange.request.method != HttpMethod.OPTIONS) {
-            val origin = determineResponseOrigin(cors, exchange.request)
-            origin?.let {
+            val corsHeaders = cors.headersFor(exchange.request)
+            corsHeaders?.let {
                 logger.trace("Adding CORS headers to response for: ${LogUtil.describeRequest(exchange)}")
-                addCorsHeaders(exchange, origin, cors)
+                addCorsHeaders(exchange, corsHeaders)
             } ?: run {
                 logger.trace("CORS request with invalid Origin: ${LogUtil.describeRequest(exchange)}")
             }
         }
     }
 
-    private fun determineResponseOrigin(cors: CorsConfig, request: HttpRequest): String? {
-        val requestOrigin = request.getHeader("Origin")
-        val allowOrigins = when (cors.allowOrigins) {
-            is String -> listOf(cors.allowOrigins)
-            is List<*> -> (cors.allowOrigins as List<*>).map { it.toString() }
-            else -> null
+    private fun addCorsHeaders(exchange: HttpExchange, corsHeaders: List<Pair<String, String>>) {
+        val response = exchange.response
+        for ((name, value) in corsHeaders) {
+            response.putHeader(name, value)
         }
-        return allowOrigins?.let {
-            if (it.contains(requestOrigin) || it.contains(MatchRequestOrigin)) {
+    }
+
+    /**
+     * The CORS configuration, resolved once at startup. The allowed origins are
+     * held in a hash set, and are matched exactly.
+     *
+     * The response headers for each request origin are computed on first use
+     * and cached, so repeated preflight requests from the same origin do not
+     * re-evaluate the configuration.
+     */
+    internal class CompiledCorsPolicy(cors: CorsConfig) {
+        private val allowOrigins: Set<String>?
+        private val matchRequestOrigin: Boolean
+        private val wildcardOrigin: Boolean
+
+        /**
+         * The headers that do not depend on the request origin.
+         */
+        private val staticHeaders = listOf(
+            "Access-Control-Allow-Methods" to (cors.allowMethods?.joinToString(",") ?: "*"),
+            "Access-Control-Allow-Headers" to (cors.allowHeaders?.joinToString(",") ?: "*"),
+            "Access-Control-Allow-Credentials" to cors.allowCredentials.toString(),
+            "Access-Control-Max-Age" to cors.maxAge.toString(),
+        )
+
+        private val wildcardHeaders = buildHeaders(WildcardOrigin)
+
+        private val headersByOrigin = CacheBuilder.newBuilder()
+            .maximumSize(originCacheSize)
+            .build<String, List<Pair<String, String>>>()
+
+        init {
+            val origins = when (cors.allowOrigins) {
+                is String -> listOf(cors.allowOrigins)
+                is List<*> -> (cors.allowOrigins as List<*>).map { it.toString() }
+                else -> null
+            }
+            allowOrigins = origins?.toHashSet()
+            matchRequestOrigin = origins?.contains(MatchRequestOrigin) == true
+            wildcardOrigin = origins?.contains(WildcardOrigin) == true
+        }
+
+        /**
+         * @return the CORS response headers for the request, or `null` if the origin is not allowed
+         */
+        fun headersFor(request: HttpRequest): List<Pair<String, String>>? {
+            val requestOrigin = request.getHeader("Origin") ?: return wildcardHeaders.takeIf { wildcardOrigin && !matchRequestOrigin }
+            return headersByOrigin.get(requestOrigin) {
+                determineResponseOrigin(requestOrigin)?.let { buildHeaders(it) } ?: emptyList()
+            }.takeIf { it.isNotEmpty() }
+        }
+
+        private fun determineResponseOrigin(requestOrigin: String): String? {
+            if (null == allowOrigins) {
+                return null
+            }
+            return if (allowOrigins.contains(requestOrigin) || matchRequestOrigin) {
                 requestOrigin
-            } else if (it.contains(WildcardOrigin)) {
+            } else if (wildcardOrigin) {
                 WildcardOrigin
             } else {
                 null
             }
         }
-    }
 
-    private fun addCorsHeaders(exchange: HttpExchange, origin: String, cors: CorsConfig) {
-        exchange.response
-            .putHeader(HttpUtil.CORS_ALLOW_ORIGIN, origin)
-            .putHeader("Access-Control-Allow-Methods", cors.allowMethods?.joinToString(",") ?: "*")
-            .putHeader("Access-Control-Allow-Headers", cors.allowHeaders?.joinToString(",") ?: "*")
-            .putHeader("Access-Control-Allow-Credentials", cors.allowCredentials.toString())
-            .putHeader("Access-Control-Max-Age", cors.maxAge.toString())
+        private fun buildHeaders(origin: String): List<Pair<String, String>> =
+            listOf(HttpUtil.CORS_ALLOW_ORIGIN to origin) + staticHeaders
+
+        companion object {
+            private val originCacheSize: Long =
+                EnvVars.getEnv("IMPOSTER_CORS_ORIGIN_CACHE_SIZE")?.toLong() ?: 100
+        }
     }
 
     companion object {
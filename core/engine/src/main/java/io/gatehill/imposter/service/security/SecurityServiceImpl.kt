@@ -42,21 +42,17 @@
  */
 package io.gatehill.imposter.service.security
 
+import com.google.common.cache.CacheBuilder
 import io.gatehill.imposter.http.HttpExchange
 import io.gatehill.imposter.lifecycle.SecurityLifecycleHooks
 import io.gatehill.imposter.plugin.config.PluginConfig
-import io.gatehill.imposter.plugin.config.resource.conditional.ConditionalNameValuePair
-import io.gatehill.imposter.plugin.config.security.SecurityCondition
 import io.gatehill.imposter.plugin.config.security.SecurityConfig
 import io.gatehill.imposter.plugin.config.security.SecurityConfigHolder
 import io.gatehill.imposter.plugin.config.security.SecurityEffect
 import io.gatehill.imposter.service.SecurityService
-import io.gatehill.imposter.util.CollectionUtil.convertKeysToLowerCase
 import io.gatehill.imposter.util.HttpUtil
 import io.gatehill.imposter.util.LogUtil
-import io.gatehill.imposter.util.MatchUtil.conditionMatches
 import org.apache.logging.log4j.LogManager
-import java.util.*
 import javax.inject.Inject
 
 /**
@@ -67,6 +63,10 @@ class SecurityServiceImpl @Inject constructor(
     securityListener: SecurityLifecycleListenerImpl,
 ) : SecurityService {
 
+    private val compiledPolicies = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build<SecurityConfig, CompiledSecurityPolicy>()
+
     init {
         securityLifecycle.registerListener(securityListener)
     }
@@ -92,6 +92,9 @@ class SecurityServiceImpl @Inject constructor(
         } else {
             throw IllegalStateException("Cannot specify root 'security' configuration block more than once. Ensure only one configuration file contains the root 'security' block.")
         }
+
+        // compile the root policy ahead of the first request
+        (selectedConfig as? SecurityConfigHolder)?.securityConfig?.let { compilePolicy(it) }
         return selectedConfig
     }
 
@@ -99,117 +102,21 @@ class SecurityServiceImpl @Inject constructor(
      * {@inheritDoc}
      */
     override fun enforce(security: SecurityConfig, httpExchange: HttpExchange): Boolean {
-        val outcome: PolicyOutcome = if (security.conditions.isEmpty()) {
-            PolicyOutcome(security.defaultEffect, "default effect")
-        } else {
-            evaluatePolicy(security, httpExchange)
-        }
+        val outcome = compilePolicy(security).evaluate(httpExchange.request)
         return enforceEffect(httpExchange, outcome)
     }
 
-    private fun evaluatePolicy(security: SecurityConfig?, httpExchange: HttpExchange): PolicyOutcome {
-        val failed = security!!.conditions.filter { c: SecurityCondition -> !checkCondition(c, httpExchange) }
-
-        return if (failed.isEmpty()) {
-            PolicyOutcome(SecurityEffect.Permit, "all conditions")
-        } else {
-            PolicyOutcome(
-                SecurityEffect.Deny,
-                failed.joinToString(", ") { condition -> describeCondition(condition) }
-            )
-        }
-    }
-
     /**
-     * Determine if the condition permits the request to proceed.
-     *
-     * @param condition      the security condition
-     * @param httpExchange the HTTP exchange
-     * @return `true` if the condition permits the request, otherwise `false`
+     * Policies are compiled once per configuration instance.
      */
-    private fun checkCondition(condition: SecurityCondition, httpExchange: HttpExchange): Boolean {
-        val results = mutableListOf<SecurityEffect>()
-        val request = httpExchange.request
-
-        // query params
-        results.addAll(
-            checkCondition(
-                condition.queryParams,
-                request.queryParams,
-                condition.effect,
-                caseSensitiveKeyMatch = true
-            )
-        )
-
-        // form params
-        results.addAll(
-            checkCondition(
-                condition.formParams,
-                request.formParams,
-                condition.effect,
-                caseSensitiveKeyMatch = true
-            )
-        )
-
-        // headers
-        results.addAll(
-            checkCondition(
-                condition.requestHeaders,
-                request.headers,
-                condition.effect,
-                caseSensitiveKeyMatch = false
-            )
-        )
-
-        // all must permit
-        return results.all { effect -> SecurityEffect.Permit == effect }
-    }
-
-    /**
-     * Determine the effect of each conditional name/value pair and operator.
-     * Keys in the request map may be compared in a case-insensitive manner, based
-     * on the value of caseSensitiveKeyMatch.
-     *
-     * @param conditionMap          the values from the condition
-     * @param requestMap            the values from the request
-     * @param conditionEffect       the effect of the condition if it is true
-     * @param caseSensitiveKeyMatch whether to match the keys case-sensitively
-     * @return the actual effect based on the values
-     */
-    private fun checkCondition(
-        conditionMap: Map<String, ConditionalNameValuePair>,
-        requestMap: Map<String, String>,
-        conditionEffect: SecurityEffect,
-        caseSensitiveKeyMatch: Boolean,
-    ): List<SecurityEffect> {
-        val comparisonMap = if (caseSensitiveKeyMatch) requestMap else convertKeysToLowerCase(requestMap)
-        return conditionMap.values.map { conditionValue: ConditionalNameValuePair ->
-            val key = if (caseSensitiveKeyMatch) conditionValue.name else conditionValue.name.lowercase(Locale.getDefault())
-            val requestConditionValue = comparisonMap[key]
-
-            val matched = conditionMatches(conditionValue, requestConditionValue)
-            val finalEffect: SecurityEffect = if (matched) {
-                conditionEffect
-            } else {
-                conditionEffect.invert()
-            }
-
-            if (LOGGER.isTraceEnabled) {
-                LOGGER.trace(
-                    "Condition match for {} {} {}: {}. Request map: {}. Effect: {}",
-                    conditionValue.name,
-                    conditionValue.operator,
-                    conditionValue.value,
-                    matched,
-                    comparisonMap.entries,
-                    finalEffect
-                )
+    private fun compilePolicy(security: SecurityConfig): CompiledSecurityPolicy =
+        compiledPolicies.get(security) {
+            CompiledSecurityPolicy(security).also {
+                LOGGER.debug("Compiled security policy {}: {}", it.policyId, it.description)
             }
-            return@map finalEffect
         }
-    }
 
-    private fun enforceEffect(httpExchange: HttpExchange, outcome: PolicyOutcome): Boolean {
+    private fun enforceEffect(httpExchange: HttpExchange, outcome: CompiledSecurityPolicy.PolicyOutcome): Boolean {
         return if (SecurityEffect.Permit != outcome.effect) {
             LOGGER.warn(
                 "Denying request {} due to security policy - {}",
@@ -226,28 +133,6 @@ class SecurityServiceImpl @Inject constructor(
         }
     }
 
-    private fun describeCondition(condition: SecurityCondition): String {
-        val description = StringBuilder()
-        describeConditionPart(description, condition.queryParams, "query conditions")
-        describeConditionPart(description, condition.requestHeaders, "header conditions")
-        return description.toString()
-    }
-
-    private fun describeConditionPart(
-        description: StringBuilder,
-        part: Map<String, ConditionalNameValuePair>,
-        partType: String,
-    ) {
-        if (part.isNotEmpty()) {
-            if (description.isNotEmpty()) {
-                description.append(", ")
-            }
-            description.append(partType).append(": [").append(java.lang.String.join(", ", part.keys)).append("]")
-        }
-    }
-
-    private class PolicyOutcome(val effect: SecurityEffect, val policySource: String)
-
     companion object {
         private val LOGGER = LogManager.getLogger(
             SecurityServiceImpl::class.java
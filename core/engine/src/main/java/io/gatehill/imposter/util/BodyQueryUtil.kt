@@ -69,6 +69,8 @@ import java.util.concurrent.atomic.AtomicReference
  */
 object BodyQueryUtil {
     private val logger : Logger = LogManager.getLogger(BodyQueryUtil::class.java)
+    private const val REQUEST_JSON_CONTEXT_KEY = "request.json.context"
+    private const val REQUEST_XML_DOCUMENT_KEY = "request.xml.document"
 
     val JSONPATH_PARSE_CONTEXT: ParseContext = JsonPath.using(
         Configuration.builder()
@@ -128,14 +130,15 @@ object BodyQueryUtil {
      * Gets the JSON document context for JsonPath queries against the request body.
      * The context is cached in the [HttpExchange].
      */
-    private fun getRequestJsonContext(httpExchange: HttpExchange, body: String? = httpExchange.request.bodyAsString): DocumentContext {
-        val jsonContextHolder =
-            httpExchange.getOrPut("request.json.context", { AtomicReference<DocumentContext>() })
+    fun getRequestJsonContext(httpExchange: HttpExchange, body: String? = httpExchange.request.bodyAsString): DocumentContext {
+        val jsonContextHolder = httpExchange.get<AtomicReference<DocumentContext>>(REQUEST_JSON_CONTEXT_KEY)
+        jsonContextHolder?.get()?.let { return it }
 
-        var jsonContext = jsonContextHolder.get()
-        if (null == jsonContext) {
-            jsonContext = JSONPATH_PARSE_CONTEXT.parse(body)
+        val jsonContext = JSONPATH_PARSE_CONTEXT.parse(body)
+        if (null != jsonContextHolder) {
             jsonContextHolder.set(jsonContext)
+        } else {
+            httpExchange.put(REQUEST_JSON_CONTEXT_KEY, AtomicReference(jsonContext))
         }
         return jsonContext
     }
@@ -172,14 +175,15 @@ object BodyQueryUtil {
      * Gets the XML document for XPath queries against the request body.
      * The document is cached in the [HttpExchange].
      */
-    private fun getRequestXmlDocument(httpExchange: HttpExchange, body: String?): Document {
-        val xmlDocumentHolder =
-            httpExchange.getOrPut("request.xml.document") { AtomicReference<Document>() }
+    fun getRequestXmlDocument(httpExchange: HttpExchange, body: String? = httpExchange.request.bodyAsString): Document {
+        val xmlDocumentHolder = httpExchange.get<AtomicReference<Document>>(REQUEST_XML_DOCUMENT_KEY)
+        xmlDocumentHolder?.get()?.let { return it }
 
-        var xmlDocument = xmlDocumentHolder.get()
-        if (null == xmlDocument) {
-            xmlDocument = SAXBuilder().build(StringReader(body ?: ""))
+        val xmlDocument = SAXBuilder().build(StringReader(body ?: ""))
+        if (null != xmlDocumentHolder) {
             xmlDocumentHolder.set(xmlDocument)
+        } else {
+            httpExchange.put(REQUEST_XML_DOCUMENT_KEY, AtomicReference(xmlDocument))
         }
         return xmlDocument
     }
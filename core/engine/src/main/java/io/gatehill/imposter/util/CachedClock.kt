@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.util
+
+import io.gatehill.imposter.config.util.EnvVars
+import java.time.Instant
+import java.time.LocalDate
+import java.time.OffsetDateTime
+import java.time.ZoneId
+import java.util.EnumMap
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Provides formatted representations of the current time, caching each
+ * formatted value until the clock moves into the next time bucket.
+ *
+ * The bucket size defaults to 1 millisecond, and can be increased using the
+ * `IMPOSTER_CLOCK_GRANULARITY_MS` environment variable, in which case values
+ * are truncated to the start of the bucket.
+ */
+object CachedClock {
+    private val granularityMs: Long =
+        EnvVars.getEnv("IMPOSTER_CLOCK_GRANULARITY_MS")?.toLong()?.coerceAtLeast(1) ?: 1L
+
+    enum class Format {
+        /**
+         * ISO-8601 local date in the system time zone, e.g. `2024-01-31`.
+         */
+        ISO_DATE,
+
+        /**
+         * ISO-8601 date and time in UTC, to millisecond precision.
+         */
+        ISO_DATE_TIME,
+
+        /**
+         * ISO-8601 date and time with the system time zone offset.
+         */
+        TIMESTAMP,
+    }
+
+    private class CachedValue(val bucket: Long, val value: String)
+
+    /**
+     * Formatted values, per format, keyed by offset in milliseconds.
+     */
+    private val cache = EnumMap<Format, ConcurrentHashMap<Long, CachedValue>>(Format::class.java).apply {
+        Format.values().forEach { put(it, ConcurrentHashMap()) }
+    }
+
+    /**
+     * @return the current time, plus [offsetMillis], in the given format
+     */
+    fun format(format: Format, offsetMillis: Long = 0): String {
+        val bucket = Math.floorDiv(System.currentTimeMillis() + offsetMillis, granularityMs)
+        val values = cache[format]!!
+        values[offsetMillis]?.takeIf { it.bucket == bucket }?.let { return it.value }
+
+        val value = render(format, Instant.ofEpochMilli(bucket * granularityMs))
+        values[offsetMillis] = CachedValue(bucket, value)
+        return value
+    }
+
+    private fun render(format: Format, instant: Instant): String = when (format) {
+        Format.ISO_DATE -> DateTimeUtil.DATE_FORMATTER.format(LocalDate.ofInstant(instant, ZoneId.systemDefault()))
+        Format.ISO_DATE_TIME -> DateTimeUtil.DATE_TIME_FORMATTER.format(instant)
+        Format.TIMESTAMP -> OffsetDateTime.ofInstant(instant, ZoneId.systemDefault()).toString()
+    }
+}
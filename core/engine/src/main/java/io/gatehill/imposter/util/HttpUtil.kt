@@ -276,6 +276,30 @@ object HttpUtil {
             .map { weightedAcceptEntry -> weightedAcceptEntry.contentType }
     }
 
+    /**
+     * Read the content codings accepted by the requesting client, with their weighting.
+     * Codings with a weighting of zero are not acceptable.
+     *
+     * @param acceptEncodingHeader the value of the 'Accept-Encoding' HTTP request header
+     * @return the weighting of each coding, keyed by lowercase coding name
+     */
+    @JvmStatic
+    fun readAcceptedEncodings(acceptEncodingHeader: String?): Map<String, Float> {
+        if (acceptEncodingHeader.isNullOrBlank()) {
+            return emptyMap()
+        }
+        return whitespacePattern.matcher(acceptEncodingHeader).replaceAll("").splitOnCommaAndTrim()
+            .filter { it.isNotEmpty() }
+            .associate { entry ->
+                val parts = entry.split(";")
+                val weight = parts.drop(1)
+                    .firstOrNull { it.lowercase(Locale.getDefault()).startsWith("q=") }
+                    ?.substring(2)?.toFloatOrNull()
+                    ?: 1f
+                parts[0].lowercase(Locale.getDefault()) to weight
+            }
+    }
+
     fun buildStatusResponse() = """{
 "status":"ok",
 "version":"${MetaUtil.readVersion()}"
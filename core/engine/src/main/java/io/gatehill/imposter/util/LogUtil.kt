@@ -52,7 +52,6 @@ import org.apache.logging.log4j.Level
 import org.apache.logging.log4j.LogManager
 import org.apache.logging.log4j.Logger
 import org.apache.logging.log4j.core.LoggerContext
-import java.time.OffsetDateTime
 
 /**
  * Common logging functionality.
@@ -180,7 +179,7 @@ object LogUtil {
             val response = httpExchange.response
 
             val fields = mutableMapOf<String, String?>(
-                "timestamp" to OffsetDateTime.now().toString(),
+                "timestamp" to CachedClock.format(CachedClock.Format.TIMESTAMP),
                 "uri" to request.absoluteUri,
                 "path" to request.path,
                 "method" to request.method.toString(),
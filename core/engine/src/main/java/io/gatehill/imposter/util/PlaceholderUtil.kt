@@ -56,8 +56,6 @@ import io.gatehill.imposter.placeholder.QueryProviderImpl
  * Replaces expression placeholders during the lifecycle of a request/response exchange.
  */
 object PlaceholderUtil {
-    private val queryProvider = QueryProviderImpl()
-
     /**
      * Evaluators that are always available.
      */
@@ -93,6 +91,8 @@ object PlaceholderUtil {
         evaluators: Map<String, ExpressionEvaluator<*>>,
     ): String {
         val context = mapOf(HttpExpressionEvaluator.HTTP_EXCHANGE_KEY to httpExchange)
+        // scoped to this render, so parsed query documents can be reused across placeholders
+        val queryProvider = QueryProviderImpl(httpExchange)
         return ExpressionUtil.eval(input, evaluators, context, queryProvider, onUnsupported = ExpressionUtil.UnsupportedBehaviour.NULLIFY)
     }
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.util
+
+import io.gatehill.imposter.config.util.EnvVars
+import io.gatehill.imposter.expression.util.UuidUtil
+import java.util.UUID
+
+/**
+ * Generates unique request IDs.
+ *
+ * The implementation is selected using the `IMPOSTER_REQUEST_ID_GENERATOR`
+ * environment variable, which can be one of `fast` (the default), `time`,
+ * `secure`, or the fully qualified name of a class implementing this interface
+ * with a no-argument constructor.
+ */
+fun interface RequestIdGenerator {
+    fun generate(): String
+
+    companion object {
+        /**
+         * Random UUIDs from a thread-local generator.
+         */
+        val FAST = RequestIdGenerator { UuidUtil.randomUuid() }
+
+        /**
+         * Time-ordered UUIDs, which sort by creation time.
+         */
+        val TIME_ORDERED = RequestIdGenerator { UuidUtil.timeOrderedUuid() }
+
+        /**
+         * Random UUIDs from the shared `SecureRandom`.
+         */
+        val SECURE = RequestIdGenerator { UUID.randomUUID().toString() }
+
+        fun fromEnv(): RequestIdGenerator = when (val type = EnvVars.getEnv("IMPOSTER_REQUEST_ID_GENERATOR")) {
+            null, "fast" -> FAST
+            "time" -> TIME_ORDERED
+            "secure" -> SECURE
+            else -> Class.forName(type).getDeclaredConstructor().newInstance() as RequestIdGenerator
+        }
+    }
+}
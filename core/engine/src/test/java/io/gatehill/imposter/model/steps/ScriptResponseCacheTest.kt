@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2023-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.model.steps
+
+import io.gatehill.imposter.http.HttpMethod
+import io.gatehill.imposter.http.HttpRequest
+import io.gatehill.imposter.plugin.config.PluginConfig
+import io.gatehill.imposter.plugin.config.resource.BasicResourceConfig
+import io.gatehill.imposter.script.ReadWriteResponseBehaviourImpl
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.not
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.CoreMatchers.sameInstance
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+
+/**
+ * Tests for [ScriptResponseCache].
+ */
+class ScriptResponseCacheTest {
+    private val ctx = ScriptStepContext(
+        stepId = "resource_step0",
+        resourceConfig = mock<BasicResourceConfig>(),
+        config = ScriptStepConfig(
+            scriptCode = "respond()",
+            cacheable = true,
+            cache = ScriptStepCacheConfig(pathParams = listOf("id"), headers = listOf("X-Tenant")),
+        ),
+        pluginConfig = mock<PluginConfig>(),
+    )
+
+    @Test
+    fun `reuses behaviour for matching inputs`() {
+        val cache = ScriptResponseCache()
+        var executions = 0
+        val execute = {
+            executions++
+            ReadWriteResponseBehaviourImpl().apply {
+                statusCode = 201
+                content = "hello"
+                responseHeaders["X-Example"] = "foo"
+            }
+        }
+
+        val first = cache.getOrExecute(ctx, buildRequest("1", "a"), execute)
+        first.responseHeaders["X-Mutated"] = "bar"
+
+        val second = cache.getOrExecute(ctx, buildRequest("1", "a"), execute)
+        assertThat(executions, equalTo(1))
+        assertThat(second, not(sameInstance(first)))
+        assertThat(second.statusCode, equalTo(201))
+        assertThat(second.content, equalTo("hello"))
+        assertThat(second.responseHeaders["X-Example"], equalTo("foo"))
+        assertThat(second.responseHeaders["X-Mutated"], nullValue())
+    }
+
+    @Test
+    fun `executes script for different inputs`() {
+        val cache = ScriptResponseCache()
+        var executions = 0
+        val execute = {
+            executions++
+            ReadWriteResponseBehaviourImpl()
+        }
+
+        cache.getOrExecute(ctx, buildRequest("1", "a"), execute)
+        cache.getOrExecute(ctx, buildRequest("2", "a"), execute)
+        cache.getOrExecute(ctx, buildRequest("1", "b"), execute)
+        assertThat(executions, equalTo(3))
+    }
+
+    @Test
+    fun `executes script for different paths without declared inputs`() {
+        val cache = ScriptResponseCache()
+        val undeclared = ctx.copy(config = ctx.config.copy(cache = null))
+        var executions = 0
+        val execute = {
+            executions++
+            ReadWriteResponseBehaviourImpl()
+        }
+
+        cache.getOrExecute(undeclared, buildRequest("1", "a", path = "/items/1"), execute)
+        cache.getOrExecute(undeclared, buildRequest("1", "a", path = "/items/2"), execute)
+        cache.getOrExecute(undeclared, buildRequest("1", "a", path = "/items/1"), execute)
+        assertThat(executions, equalTo(2))
+    }
+
+    @Test
+    fun `does not conflate values containing separators`() {
+        val config = ScriptStepCacheConfig(pathParams = listOf("a", "b"))
+        val first = ScriptResponseCache.buildKey(config, mock {
+            on { method } doReturn HttpMethod.GET
+            on { path } doReturn "/"
+            on { getPathParam("a") } doReturn "x|p:b=y"
+            on { getPathParam("b") } doReturn ""
+        })
+        val second = ScriptResponseCache.buildKey(config, mock {
+            on { method } doReturn HttpMethod.GET
+            on { path } doReturn "/"
+            on { getPathParam("a") } doReturn "x"
+            on { getPathParam("b") } doReturn "y|p:b="
+        })
+        assertThat(first, not(equalTo(second)))
+    }
+
+    private fun buildRequest(id: String, tenant: String, path: String = "/items/$id") = mock<HttpRequest> {
+        on { method } doReturn HttpMethod.GET
+        on { this.path } doReturn path
+        on { getPathParam("id") } doReturn id
+        on { getHeader("X-Tenant") } doReturn tenant
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2023-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.placeholder
+
+import com.jayway.jsonpath.DocumentContext
+import io.gatehill.imposter.http.HttpExchange
+import io.gatehill.imposter.http.HttpRequest
+import io.gatehill.imposter.util.BodyQueryUtil
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.any
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.eq
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import java.util.concurrent.atomic.AtomicReference
+
+/**
+ * Tests for [QueryProviderImpl].
+ */
+class QueryProviderImplTest {
+    @Test
+    fun `reuses request body document cached in exchange`() {
+        val body = """{ "name": "Ada" }"""
+        val cachedContext = BodyQueryUtil.JSONPATH_PARSE_CONTEXT.parse("""{ "name": "Grace" }""")
+
+        val request = mock<HttpRequest> {
+            on { bodyAsString } doReturn body
+        }
+        val httpExchange = mock<HttpExchange> {
+            on { this.request } doReturn request
+            on { get<AtomicReference<DocumentContext>>("request.json.context") } doReturn AtomicReference(cachedContext)
+        }
+
+        val queryProvider = QueryProviderImpl(httpExchange)
+        assertThat(queryProvider.queryWithJsonPath(body, "$.name"), equalTo("Grace"))
+    }
+
+    @Test
+    fun `parses request body once when not cached`() {
+        val body = """{ "name": "Ada", "city": "London" }"""
+        val request = mock<HttpRequest> {
+            on { bodyAsString } doReturn body
+        }
+        val httpExchange = mock<HttpExchange> {
+            on { this.request } doReturn request
+        }
+
+        val queryProvider = QueryProviderImpl(httpExchange)
+        assertThat(queryProvider.queryWithJsonPath(body, "$.name"), equalTo("Ada"))
+        verify(httpExchange, times(1)).put(eq("request.json.context"), any())
+    }
+
+    @Test
+    fun `memoises parse of other values`() {
+        val queryProvider = QueryProviderImpl()
+        val xml = "<person><name>Ada</name><city>London</city></person>"
+        assertThat(queryProvider.queryWithXPath(xml, "/person/name"), equalTo("Ada"))
+        assertThat(queryProvider.queryWithXPath(xml, "/person/city"), equalTo("London"))
+    }
+}
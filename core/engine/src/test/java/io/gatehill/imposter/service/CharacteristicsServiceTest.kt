@@ -47,10 +47,12 @@ import io.gatehill.imposter.http.HttpExchange
 import io.gatehill.imposter.http.HttpMethod
 import io.gatehill.imposter.http.HttpRequest
 import io.gatehill.imposter.http.HttpResponse
+import io.gatehill.imposter.script.DelayDistribution
 import io.gatehill.imposter.script.FailureSimulationType
 import io.gatehill.imposter.script.PerformanceSimulationConfig
 import io.gatehill.imposter.script.ReadWriteResponseBehaviourImpl
 import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
 import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.Test
 import org.mockito.kotlin.any
@@ -90,6 +92,60 @@ class CharacteristicsServiceTest {
         assertTrue(delayMs in 1000..2000)
     }
 
+    @Test
+    fun `should simulate performance for log-normal distribution`() {
+        val responseBehaviour = buildPerformanceSim(
+            PerformanceSimulationConfig(
+                distribution = DelayDistribution.LogNormal,
+                medianDelayMs = 100,
+                p99DelayMs = 500,
+                minDelayMs = 50,
+                maxDelayMs = 1000,
+            )
+        )
+
+        val service = CharacteristicsService(mock())
+        val delays = (1..1000).map { service.simulatePerformance(responseBehaviour) }
+        assertTrue(delays.all { it in 50..1000 })
+        assertTrue(delays.sorted()[500] in 80..120, "median should be close to configured value")
+    }
+
+    @Test
+    fun `should simulate performance for percentiles`() {
+        val responseBehaviour = buildPerformanceSim(
+            PerformanceSimulationConfig(
+                distribution = DelayDistribution.Percentiles,
+                minDelayMs = 10,
+                percentileDelaysMs = mapOf(50 to 20, 90 to 100, 100 to 200),
+            )
+        )
+
+        val service = CharacteristicsService(mock())
+        val delays = (1..1000).map { service.simulatePerformance(responseBehaviour) }
+        assertTrue(delays.all { it in 10..200 })
+        assertTrue(delays.count { it <= 20 } in 400..600, "half of delays should be under the median")
+    }
+
+    @Test
+    fun `should plan streaming for throughput`() {
+        val service = CharacteristicsService(mock())
+        val plan = service.simulateThroughput(PerformanceSimulationConfig(throughputBytesPerSec = 1000), 10_000, 0)
+        assertEquals(CharacteristicsService.StreamingPlan(chunkSize = 100, intervalMs = 100), plan)
+
+        assertNull(service.simulateThroughput(PerformanceSimulationConfig(exactDelayMs = 100), 10_000, 0))
+    }
+
+    @Test
+    fun `should plan streaming for total time`() {
+        val service = CharacteristicsService(mock())
+
+        // 1000 bytes over 1000ms remaining after the first byte
+        val plan = service.simulateThroughput(PerformanceSimulationConfig(totalMs = 1500), 1000, 500)
+        assertEquals(CharacteristicsService.StreamingPlan(chunkSize = 100, intervalMs = 100), plan)
+
+        assertNull(service.simulateThroughput(PerformanceSimulationConfig(totalMs = 500), 1000, 500))
+    }
+
     private fun buildPerformanceSim(perfConfig: PerformanceSimulationConfig) = ReadWriteResponseBehaviourImpl().apply {
         performanceSimulation = perfConfig
     }
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2023-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.service
+
+import io.gatehill.imposter.service.CompressedResponseFileVariants.Encoding
+import io.vertx.core.buffer.Buffer
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+import java.util.zip.GZIPInputStream
+
+/**
+ * Tests for [CompressedResponseFileVariants].
+ */
+class CompressedResponseFileVariantsTest {
+    @TempDir
+    lateinit var tempDir: File
+
+    private val variants = CompressedResponseFileVariants(maxBytes = 1024 * 1024, minBytes = 16)
+
+    @Test
+    fun `should generate gzip variant once`() {
+        val content = "{\"hello\":\"world\"}".repeat(10)
+        val file = File(tempDir, "data.json").apply { writeText(content) }
+        val original = Buffer.buffer(content)
+
+        val encoding = variants.selectEncoding("gzip, deflate", file.path, original.length().toLong(), false)
+        assertEquals(Encoding.GZIP, encoding)
+
+        val compressed = variants.load(file.path, Encoding.GZIP, original)
+        val decompressed = GZIPInputStream(compressed.bytes.inputStream()).use { it.readBytes() }
+        assertEquals(content, String(decompressed))
+        assertSame(compressed, variants.load(file.path, Encoding.GZIP, original))
+    }
+
+    @Test
+    fun `should prefer precompressed brotli file`() {
+        val file = File(tempDir, "data.json").apply { writeText("{}".repeat(10)) }
+        File(tempDir, "data.json.br").writeBytes(byteArrayOf(1, 2, 3))
+
+        val encoding = variants.selectEncoding("gzip, br", file.path, file.length(), false)
+        assertEquals(Encoding.BROTLI, encoding)
+        assertEquals(file.path + ".br", variants.precompressedFile(file.path, Encoding.BROTLI))
+        assertEquals(3, variants.load(file.path, Encoding.BROTLI, Buffer.buffer()).length())
+
+        // client preference takes precedence
+        assertEquals(Encoding.GZIP, variants.selectEncoding("gzip, br;q=0.5", file.path, file.length(), false))
+    }
+
+    @Test
+    fun `should send original if no acceptable variant`() {
+        val file = File(tempDir, "data.json").apply { writeText("{}".repeat(10)) }
+
+        assertNull(variants.selectEncoding(null, file.path, file.length(), false))
+        assertNull(variants.selectEncoding("identity", file.path, file.length(), false))
+        assertNull(variants.selectEncoding("gzip;q=0", file.path, file.length(), false))
+        assertNull(variants.selectEncoding("gzip", file.path, 8, false), "should not compress small files")
+        assertNull(variants.selectEncoding("gzip", file.path, file.length(), true), "should not generate variant")
+    }
+
+    @Test
+    fun `should check for precompressed files once`() {
+        val file = File(tempDir, "data.json").apply { writeText("{}".repeat(10)) }
+        assertNull(variants.selectEncoding("br", file.path, file.length(), true))
+
+        // precompressed files are only discovered the first time a file is served
+        File(tempDir, "data.json.br").writeBytes(byteArrayOf(1, 2, 3))
+        assertNull(variants.selectEncoding("br", file.path, file.length(), true))
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2023-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.service
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+
+/**
+ * Tests for [MappedResponseFileStore].
+ */
+class MappedResponseFileStoreTest {
+    @TempDir
+    lateinit var tempDir: File
+
+    @Test
+    fun `should map file contents`() {
+        val file = File(tempDir, "large.json").apply { writeText("{\"hello\":\"world\"}") }
+        val store = MappedResponseFileStore(1024)
+
+        val buffer = store.get(file.path)!!
+        assertEquals("{\"hello\":\"world\"}", buffer.toString())
+        assertEquals(file.length(), store.size)
+
+        assertSame(buffer, store.get(file.path), "mapped file should be reused")
+        assertEquals(file.length(), store.size)
+    }
+
+    @Test
+    fun `should release files exceeding limit`() {
+        val file = File(tempDir, "large.json").apply { writeText("x".repeat(64)) }
+        val store = MappedResponseFileStore(32)
+
+        assertEquals(64, store.get(file.path)!!.length())
+        assertEquals(0, store.size)
+    }
+
+    @Test
+    fun `should hold file larger than a quarter of the limit`() {
+        val file = File(tempDir, "large.json").apply { writeText("x".repeat(64)) }
+        val store = MappedResponseFileStore(100)
+
+        val buffer = store.get(file.path)!!
+        assertEquals(64, store.size)
+        assertSame(buffer, store.getIfPresent(file.path), "mapped file should be held")
+    }
+}
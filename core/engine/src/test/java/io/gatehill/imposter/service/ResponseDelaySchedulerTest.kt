@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2023-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.service
+
+import io.gatehill.imposter.config.util.EnvVars
+import io.gatehill.imposter.lifecycle.EngineLifecycleHooks
+import io.vertx.core.Vertx
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotNull
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * Tests for [ResponseDelayScheduler].
+ */
+class ResponseDelaySchedulerTest {
+    private lateinit var vertx: Vertx
+
+    @BeforeEach
+    fun setUp() {
+        vertx = Vertx.vertx()
+    }
+
+    @AfterEach
+    fun tearDown() {
+        vertx.close()
+        EnvVars.populate(emptyMap<String, String>())
+    }
+
+    @Test
+    fun `should run task after delay using timer`() {
+        assertTaskRunsAfterDelay(ResponseDelayScheduler(vertx, EngineLifecycleHooks()))
+    }
+
+    @Test
+    fun `should run task after delay using timer wheel`() {
+        EnvVars.populate("IMPOSTER_DELAY_TIMER_WHEEL" to "true")
+        val engineLifecycle = EngineLifecycleHooks()
+        assertTaskRunsAfterDelay(ResponseDelayScheduler(vertx, engineLifecycle))
+
+        // stops the timer wheel
+        engineLifecycle.forEach { it.beforeStop() }
+    }
+
+    @Test
+    fun `should only count responses as pending`() {
+        val scheduler = ResponseDelayScheduler(vertx, EngineLifecycleHooks())
+        val latch = CountDownLatch(1)
+
+        scheduler.schedule(50) { latch.countDown() }
+        assertEquals(0, scheduler.pendingCount)
+        assertTrue(latch.await(5, TimeUnit.SECONDS), "task should run")
+    }
+
+    private fun assertTaskRunsAfterDelay(scheduler: ResponseDelayScheduler) {
+        val latch = CountDownLatch(1)
+        val start = System.nanoTime()
+        var elapsedMs = 0L
+        var context: Any? = null
+
+        scheduler.scheduleResponse(50) {
+            elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+            context = Vertx.currentContext()
+            latch.countDown()
+        }
+        assertEquals(1, scheduler.pendingCount)
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS), "task should run")
+        assertTrue(elapsedMs >= 50, "task should run after delay")
+        assertNotNull(context, "task should run on a Vert.x context")
+        assertEquals(0, scheduler.pendingCount)
+    }
+}
@@ -43,6 +43,7 @@
 
 package io.gatehill.imposter.service
 
+import io.gatehill.imposter.config.util.EnvVars
 import io.gatehill.imposter.http.HttpExchange
 import io.gatehill.imposter.http.HttpMethod
 import io.gatehill.imposter.http.HttpRequest
@@ -50,18 +51,26 @@ import io.gatehill.imposter.http.HttpResponse
 import io.gatehill.imposter.plugin.config.PluginConfigImpl
 import io.gatehill.imposter.plugin.config.resource.RestResourceConfig
 import io.gatehill.imposter.script.ReadWriteResponseBehaviourImpl
+import io.vertx.core.Future
 import io.vertx.core.Vertx
 import io.vertx.core.buffer.Buffer
 import io.vertx.core.file.FileSystem
 import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.Test
 import org.mockito.kotlin.any
+import org.mockito.kotlin.argThat
 import org.mockito.kotlin.doAnswer
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.eq
 import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.times
 import org.mockito.kotlin.verify
+import java.io.ByteArrayInputStream
 import java.io.File
+import java.util.concurrent.Callable
+import java.util.zip.GZIPInputStream
 
 /**
  * Tests for [ResponseFileServiceImpl].
@@ -118,6 +127,260 @@ class ResponseFileServiceImplTest {
         )
     }
 
+    @Test
+    fun `should serve file loaded ahead of time`() {
+        val responseService = mock<ResponseService> {
+            on { writeResponseData(any(), any(), any(), any(), any(), any()) } doAnswer {
+                val buffer = it.arguments[3] as Buffer
+                assertEquals("Hello, world!", buffer.toString())
+            }
+        }
+        val fileSystem = mock<FileSystem> {
+            on { readFile(any()) } doAnswer {
+                val path = it.arguments[0] as String
+                Future.succeededFuture(Buffer.buffer(File(path).readBytes()))
+            }
+        }
+        val vertx = mock<Vertx> {
+            on { fileSystem() } doReturn fileSystem
+        }
+        val service = ResponseFileServiceImpl(responseService, vertx)
+
+        val pluginConfig = PluginConfigImpl().apply {
+            dir = File(ResponseFileServiceImplTest::class.java.getResource("/response-file.txt")!!.toURI()).parentFile
+        }
+        val httpExchange = buildExchange()
+        val responseBehaviour = ReadWriteResponseBehaviourImpl().apply {
+            responseFile = "response-file.txt"
+        }
+
+        val loaded = service.loadResponseFile(pluginConfig, httpExchange, responseBehaviour)
+        assertTrue(loaded.isDone)
+
+        service.serveResponseFile(pluginConfig, RestResourceConfig(), httpExchange, responseBehaviour)
+
+        verify(fileSystem, never()).readFileBlocking(any())
+        verify(responseService).writeResponseData(any(), eq(httpExchange), any(), any(), eq(false), eq(false))
+    }
+
+    @Test
+    fun `should send file directly if enabled`() {
+        EnvVars.populate("IMPOSTER_RESPONSE_FILE_SENDFILE" to "true")
+        try {
+            val responseService = mock<ResponseService>()
+            val fileSystem = mock<FileSystem>()
+            val vertx = mock<Vertx> {
+                on { fileSystem() } doReturn fileSystem
+            }
+            val service = ResponseFileServiceImpl(responseService, vertx)
+
+            val responseFile = File(ResponseFileServiceImplTest::class.java.getResource("/response-file.txt")!!.toURI())
+            val pluginConfig = PluginConfigImpl().apply {
+                dir = responseFile.parentFile
+            }
+            val resourceConfig = RestResourceConfig()
+            val httpExchange = buildExchange()
+            val responseBehaviour = ReadWriteResponseBehaviourImpl().apply {
+                this.responseFile = "response-file.txt"
+            }
+
+            service.loadResponseFile(pluginConfig, httpExchange, responseBehaviour)
+            service.serveResponseFile(pluginConfig, resourceConfig, httpExchange, responseBehaviour)
+
+            verify(fileSystem, never()).readFile(any())
+            verify(fileSystem, never()).readFileBlocking(any())
+            verify(responseService).writeResponseFile(eq(resourceConfig), eq(httpExchange), eq("response-file.txt"), eq(responseFile.canonicalPath))
+        } finally {
+            EnvVars.populate(emptyMap<String, String>())
+        }
+    }
+
+    @Test
+    fun `should compress file ahead of time and vary by encoding`() {
+        EnvVars.populate(
+            "IMPOSTER_RESPONSE_FILE_PRECOMPRESS" to "true",
+            "IMPOSTER_RESPONSE_FILE_PRECOMPRESS_MIN_BYTES" to "0",
+        )
+        try {
+            val responseService = mock<ResponseService>()
+            val fileSystem = mock<FileSystem> {
+                on { readFile(any()) } doAnswer {
+                    val path = it.arguments[0] as String
+                    Future.succeededFuture(Buffer.buffer(File(path).readBytes()))
+                }
+            }
+            val vertx = mock<Vertx> {
+                on { fileSystem() } doReturn fileSystem
+                on { executeBlocking(any<Callable<Any>>(), any()) } doAnswer {
+                    Future.succeededFuture((it.arguments[0] as Callable<*>).call())
+                }
+            }
+            val service = ResponseFileServiceImpl(responseService, vertx)
+
+            val pluginConfig = PluginConfigImpl().apply {
+                dir = File(ResponseFileServiceImplTest::class.java.getResource("/response-file.txt")!!.toURI()).parentFile
+            }
+            val responseBehaviour = ReadWriteResponseBehaviourImpl().apply {
+                responseFile = "response-file.txt"
+            }
+
+            val gzipExchange = buildExchange(acceptEncoding = "gzip")
+            service.loadResponseFile(pluginConfig, gzipExchange, responseBehaviour)
+            service.serveResponseFile(pluginConfig, RestResourceConfig(), gzipExchange, responseBehaviour)
+
+            verify(gzipExchange.response).putHeader("Content-Encoding", "gzip")
+            verify(gzipExchange.response).putHeader("Vary", "Accept-Encoding")
+            verify(responseService).writeResponseData(any(), eq(gzipExchange), any(), argThat<Buffer> {
+                GZIPInputStream(ByteArrayInputStream(bytes)).readBytes().decodeToString() == "Hello, world!"
+            }, eq(false), eq(false))
+
+            // the original also varies by encoding, so shared caches do not serve it to all clients
+            val identityExchange = buildExchange()
+            service.loadResponseFile(pluginConfig, identityExchange, responseBehaviour)
+            service.serveResponseFile(pluginConfig, RestResourceConfig(), identityExchange, responseBehaviour)
+
+            verify(identityExchange.response, never()).putHeader(eq("Content-Encoding"), any<String>())
+            verify(identityExchange.response).putHeader("Vary", "Accept-Encoding")
+            verify(responseService).writeResponseData(any(), eq(identityExchange), any(), argThat<Buffer> {
+                toString() == "Hello, world!"
+            }, eq(false), eq(false))
+        } finally {
+            EnvVars.populate(emptyMap<String, String>())
+        }
+    }
+
+    @Test
+    fun `should not compress file for response that does not stream`() {
+        EnvVars.populate(
+            "IMPOSTER_RESPONSE_FILE_PRECOMPRESS" to "true",
+            "IMPOSTER_RESPONSE_FILE_PRECOMPRESS_MIN_BYTES" to "0",
+        )
+        try {
+            val responseService = mock<ResponseService>()
+            val fileSystem = mock<FileSystem> {
+                on { readFile(any()) } doAnswer {
+                    val path = it.arguments[0] as String
+                    Future.succeededFuture(Buffer.buffer(File(path).readBytes()))
+                }
+            }
+            val vertx = mock<Vertx> {
+                on { fileSystem() } doReturn fileSystem
+            }
+            val service = ResponseFileServiceImpl(responseService, vertx)
+
+            val pluginConfig = PluginConfigImpl().apply {
+                dir = File(ResponseFileServiceImplTest::class.java.getResource("/response-file.txt")!!.toURI()).parentFile
+            }
+            val responseBehaviour = ReadWriteResponseBehaviourImpl().apply {
+                responseFile = "response-file.txt"
+            }
+
+            // such as on AWS Lambda, where the body is returned as text
+            val httpExchange = buildExchange(acceptEncoding = "gzip", streamsChunks = false)
+            service.loadResponseFile(pluginConfig, httpExchange, responseBehaviour)
+            service.serveResponseFile(pluginConfig, RestResourceConfig(), httpExchange, responseBehaviour)
+
+            verify(vertx, never()).executeBlocking(any<Callable<Any>>(), any())
+            verify(httpExchange.response, never()).putHeader(eq("Content-Encoding"), any<String>())
+            verify(responseService).writeResponseData(any(), eq(httpExchange), any(), argThat<Buffer> {
+                toString() == "Hello, world!"
+            }, eq(false), eq(false))
+        } finally {
+            EnvVars.populate(emptyMap<String, String>())
+        }
+    }
+
+    @Test
+    fun `should map file on worker thread ahead of time`() {
+        EnvVars.populate("IMPOSTER_RESPONSE_FILE_MMAP" to "true")
+        try {
+            val responseService = mock<ResponseService>()
+            val fileSystem = mock<FileSystem>()
+            val vertx = mock<Vertx> {
+                on { fileSystem() } doReturn fileSystem
+                on { executeBlocking(any<Callable<Any>>(), any()) } doAnswer {
+                    Future.succeededFuture((it.arguments[0] as Callable<*>).call())
+                }
+            }
+            val service = ResponseFileServiceImpl(responseService, vertx)
+
+            val pluginConfig = PluginConfigImpl().apply {
+                dir = File(ResponseFileServiceImplTest::class.java.getResource("/response-file.txt")!!.toURI()).parentFile
+            }
+            val httpExchange = buildExchange()
+            val responseBehaviour = ReadWriteResponseBehaviourImpl().apply {
+                responseFile = "response-file.txt"
+            }
+
+            service.loadResponseFile(pluginConfig, httpExchange, responseBehaviour)
+            verify(vertx).executeBlocking(any<Callable<Any>>(), eq(false))
+
+            service.serveResponseFile(pluginConfig, RestResourceConfig(), httpExchange, responseBehaviour)
+
+            verify(fileSystem, never()).readFile(any())
+            verify(fileSystem, never()).readFileBlocking(any())
+            verify(responseService).writeResponseData(any(), eq(httpExchange), any(), argThat<Buffer> {
+                toString() == "Hello, world!"
+            }, eq(false), eq(false))
+        } finally {
+            EnvVars.populate(emptyMap<String, String>())
+        }
+    }
+
+    @Test
+    fun `should cache file larger than a quarter of the cache limit`() {
+        // the test file is 13 bytes
+        EnvVars.populate("IMPOSTER_RESPONSE_FILE_CACHE_BYTES" to "40")
+        try {
+            val fileSystem = mock<FileSystem> {
+                on { readFile(any()) } doAnswer {
+                    val path = it.arguments[0] as String
+                    Future.succeededFuture(Buffer.buffer(File(path).readBytes()))
+                }
+            }
+            val vertx = mock<Vertx> {
+                on { fileSystem() } doReturn fileSystem
+            }
+            val service = ResponseFileServiceImpl(mock(), vertx)
+
+            val pluginConfig = PluginConfigImpl().apply {
+                dir = File(ResponseFileServiceImplTest::class.java.getResource("/response-file.txt")!!.toURI()).parentFile
+            }
+            val responseBehaviour = ReadWriteResponseBehaviourImpl().apply {
+                responseFile = "response-file.txt"
+            }
+
+            service.loadResponseFile(pluginConfig, buildExchange(), responseBehaviour)
+            service.loadResponseFile(pluginConfig, buildExchange(), responseBehaviour)
+
+            verify(fileSystem, times(1)).readFile(any())
+        } finally {
+            EnvVars.populate(emptyMap<String, String>())
+        }
+    }
+
+    private fun buildExchange(acceptEncoding: String? = null, streamsChunks: Boolean = true): HttpExchange {
+        val attributes = mutableMapOf<String, Any>()
+        val httpRequest = mock<HttpRequest> {
+            on { method } doReturn HttpMethod.GET
+            on { path } doReturn "/foo"
+            on { getHeader("Accept-Encoding") } doReturn acceptEncoding
+        }
+        val httpResponse = mock<HttpResponse> {
+            on { setStatusCode(any()) } doReturn mock
+            on { putHeader(any(), any<String>()) } doReturn mock
+            on { this.streamsChunks } doReturn streamsChunks
+        }
+        return mock {
+            on { request } doReturn httpRequest
+            on { response } doReturn httpResponse
+            on { put(any(), any()) } doAnswer {
+                attributes[it.arguments[0] as String] = it.arguments[1]
+            }
+            on { get<Any>(any()) } doAnswer { attributes[it.arguments[0] as String] }
+        }
+    }
+
     @Test
     fun `should load file as JSON array`() {
         val service = ResponseFileServiceImpl(mock(), mock())
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2016-2024.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.service
+
+import io.gatehill.imposter.http.HttpExchange
+import io.gatehill.imposter.http.HttpMethod
+import io.gatehill.imposter.http.HttpRequest
+import io.gatehill.imposter.http.HttpResponse
+import io.gatehill.imposter.model.steps.PreparedStep
+import io.gatehill.imposter.plugin.config.PluginConfigImpl
+import io.gatehill.imposter.plugin.config.resource.RestResourceConfig
+import io.gatehill.imposter.plugin.config.steps.StepType
+import io.gatehill.imposter.service.script.ScriptExecutionScheduler
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.any
+import org.mockito.kotlin.doAnswer
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.eq
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.verify
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.RejectedExecutionException
+
+/**
+ * Tests for [ResponseRoutingServiceImpl].
+ */
+class ResponseRoutingServiceImplTest {
+    @Test
+    fun `should respond with service unavailable if script queue is full`() {
+        val stepService = mock<StepService> {
+            on { determineSteps(any(), any()) } doReturn listOf(PreparedStep(StepType.Script, mock(), mock()))
+        }
+        val scheduler = mock<ScriptExecutionScheduler> {
+            on { enabled } doReturn true
+            on { submit<Any>(any()) } doAnswer {
+                CompletableFuture.failedFuture(RejectedExecutionException("Script execution queue is full"))
+            }
+        }
+        val service = ResponseRoutingServiceImpl(mock(), stepService, mock(), scheduler)
+
+        val httpRequest = mock<HttpRequest> {
+            on { method } doReturn HttpMethod.GET
+            on { absoluteUri } doReturn "http://localhost:8080/foo"
+        }
+        val httpResponse = mock<HttpResponse> {
+            on { putHeader(any(), any()) } doReturn mock
+        }
+        val httpExchange = mock<HttpExchange> {
+            on { request } doReturn httpRequest
+            on { response } doReturn httpResponse
+        }
+
+        val result = service.route(
+            pluginConfig = PluginConfigImpl(),
+            resourceConfig = RestResourceConfig(),
+            httpExchange = httpExchange,
+            additionalContext = null,
+            statusCodeFactory = mock(),
+            responseBehaviourFactory = mock(),
+            defaultBehaviourHandler = { CompletableFuture.completedFuture(Unit) },
+        )
+
+        assertTrue(result.isDone)
+        verify(httpResponse).putHeader("Retry-After", "1")
+        verify(httpExchange).fail(eq(503), any())
+    }
+}
@@ -48,10 +48,14 @@ import io.gatehill.imposter.http.HttpExchange
 import io.gatehill.imposter.http.HttpMethod
 import io.gatehill.imposter.http.HttpRequest
 import io.gatehill.imposter.http.HttpResponse
+import io.gatehill.imposter.lifecycle.EngineLifecycleHooks
 import io.gatehill.imposter.plugin.config.PluginConfigImpl
 import io.gatehill.imposter.plugin.config.resource.RestResourceConfig
+import io.gatehill.imposter.script.PerformanceSimulationConfig
 import io.gatehill.imposter.script.ReadWriteResponseBehaviourImpl
 import io.gatehill.imposter.util.HttpUtil
+import io.vertx.core.Handler
+import io.vertx.core.Vertx
 import io.vertx.core.buffer.Buffer
 import org.junit.jupiter.api.Assertions.assertEquals
 import org.junit.jupiter.api.Assertions.assertTrue
@@ -61,8 +65,10 @@ import org.mockito.kotlin.doAnswer
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.eq
 import org.mockito.kotlin.mock
+import org.mockito.kotlin.times
 import org.mockito.kotlin.verify
 import java.io.File
+import java.util.concurrent.CompletableFuture
 
 /**
  * Tests for [ResponseServiceImpl].
@@ -70,7 +76,7 @@ import java.io.File
 class ResponseServiceImplTest {
     @Test
     fun `should send empty response`() {
-        val responseService = ResponseServiceImpl(mock(), mock(), mock(), mock())
+        val responseService = ResponseServiceImpl(mock(), mock(), mock(), mock(), mock())
         val httpRequest = mock<HttpRequest> {
             on { method } doReturn HttpMethod.GET
             on { path } doReturn "/foo"
@@ -90,7 +96,7 @@ class ResponseServiceImplTest {
 
     @Test
     fun `should send content response`() {
-        val responseService = ResponseServiceImpl(mock(), mock(), mock(), mock())
+        val responseService = ResponseServiceImpl(mock(), mock(), mock(), mock(), mock())
         val httpRequest = mock<HttpRequest> {
             on { method } doReturn HttpMethod.GET
             on { path } doReturn "/foo"
@@ -122,10 +128,61 @@ class ResponseServiceImplTest {
         verify(httpExchange).phase = ExchangePhase.RESPONSE_SENT
     }
 
+    @Test
+    fun `should stream content response in chunks`() {
+        val vertx = mock<Vertx> {
+            on { setTimer(any(), any<Handler<Long>>()) } doAnswer {
+                @Suppress("UNCHECKED_CAST") val handler = it.arguments[1] as Handler<Long>
+                handler.handle(1L)
+                1L
+            }
+        }
+        val responseService = ResponseServiceImpl(mock(), CharacteristicsService(mock()), mock(), vertx, ResponseDelayScheduler(vertx, EngineLifecycleHooks()))
+
+        val httpRequest = mock<HttpRequest> {
+            on { method } doReturn HttpMethod.GET
+            on { path } doReturn "/foo"
+        }
+        val chunks = mutableListOf<String>()
+        val httpResponse = mock<HttpResponse> {
+            on { setStatusCode(any()) } doReturn mock
+            on { getHeader(eq(HttpUtil.CONTENT_TYPE)) } doReturn HttpUtil.CONTENT_TYPE_PLAIN_TEXT
+            on { putHeader(any(), any()) } doReturn mock
+            on { streamsChunks } doReturn true
+            on { write(any()) } doAnswer {
+                chunks += (it.arguments[0] as Buffer).toString()
+            }
+        }
+        val attributes = mutableMapOf<String, Any>()
+        val httpExchange = mock<HttpExchange> {
+            on { request } doReturn httpRequest
+            on { response } doReturn httpResponse
+            on { put(any(), any()) } doAnswer {
+                attributes[it.arguments[0] as String] = it.arguments[1]
+            }
+            on { get<Any>(any()) } doAnswer { attributes[it.arguments[0] as String] }
+        }
+        val responseBehaviour = ReadWriteResponseBehaviourImpl().apply {
+            statusCode = 200
+            content = "hello world"
+            performanceSimulation = PerformanceSimulationConfig(
+                throughputBytesPerSec = 10,
+                chunkSizeBytes = 4,
+            )
+        }
+        responseService.sendResponse(PluginConfigImpl(), RestResourceConfig(), httpExchange, responseBehaviour)
+
+        assertEquals(listOf("hell", "o wo", "rld"), chunks)
+        verify(vertx, times(2)).setTimer(eq(400L), any<Handler<Long>>())
+        verify(httpResponse).end()
+    }
+
     @Test
     fun `should send file response`() {
-        val responseFileService = mock<ResponseFileService>()
-        val responseService = ResponseServiceImpl(mock(), mock(), responseFileService, mock())
+        val responseFileService = mock<ResponseFileService> {
+            on { loadResponseFile(any(), any(), any()) } doReturn CompletableFuture.completedFuture(Unit)
+        }
+        val responseService = ResponseServiceImpl(mock(), mock(), responseFileService, mock(), mock())
         val httpRequest = mock<HttpRequest> {
             on { method } doReturn HttpMethod.GET
             on { path } doReturn "/foo"
@@ -160,7 +217,7 @@ class ResponseServiceImplTest {
 
     @Test
     fun `should send not found response`() {
-        val responseService = ResponseServiceImpl(mock(), mock(), mock(), mock())
+        val responseService = ResponseServiceImpl(mock(), mock(), mock(), mock(), mock())
         val httpRequest = mock<HttpRequest> {
             on { method } doReturn HttpMethod.GET
             on { path } doReturn "/foo"
@@ -184,7 +241,7 @@ class ResponseServiceImplTest {
 
     @Test
     fun `should write response data`() {
-        val responseService = ResponseServiceImpl(mock(), mock(), mock(), mock())
+        val responseService = ResponseServiceImpl(mock(), mock(), mock(), mock(), mock())
         val httpRequest = mock<HttpRequest> {
             on { method } doReturn HttpMethod.GET
             on { path } doReturn "/foo"
@@ -207,7 +264,7 @@ class ResponseServiceImplTest {
 
     @Test
     fun `should finalise exchange`() {
-        val responseService = ResponseServiceImpl(mock(), mock(), mock(), mock())
+        val responseService = ResponseServiceImpl(mock(), mock(), mock(), mock(), mock())
         val httpRequest = mock<HttpRequest> {
             on { method } doReturn HttpMethod.GET
             on { path } doReturn "/foo"
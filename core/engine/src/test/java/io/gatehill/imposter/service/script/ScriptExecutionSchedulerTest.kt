@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.service.script
+
+import io.gatehill.imposter.script.ReadWriteResponseBehaviour
+import io.gatehill.imposter.script.ScriptBindings
+import io.gatehill.imposter.service.ScriptContextBuilder
+import io.gatehill.imposter.service.ScriptService
+import io.gatehill.imposter.service.ScriptSource
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertNotEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * Tests for [ScriptExecutionScheduler].
+ */
+class ScriptExecutionSchedulerTest {
+    private val script = ScriptSource(source = "test.js", code = "")
+
+    @Test
+    fun `runs on worker thread`() {
+        val scheduler = ScriptExecutionScheduler(workers = 1, timeoutMs = -1)
+        assertTrue(scheduler.enabled, "Scheduler should be enabled")
+
+        val caller = Thread.currentThread()
+        val executor = scheduler.submit { Thread.currentThread() }.get(5, TimeUnit.SECONDS)
+        assertNotEquals(caller, executor, "Should run on worker thread")
+    }
+
+    @Test
+    fun `disabled without workers`() {
+        val scheduler = ScriptExecutionScheduler(workers = 0, timeoutMs = 100)
+        assertFalse(scheduler.enabled, "Scheduler should be disabled")
+        assertEquals("ok", scheduler.runWithTimeout(script, NoopScriptService) { "ok" })
+    }
+
+    @Test
+    fun `interrupts script exceeding timeout`() {
+        val scheduler = ScriptExecutionScheduler(workers = 1, timeoutMs = 100)
+
+        val e = assertThrows<ExecutionException> {
+            scheduler.submit {
+                scheduler.runWithTimeout(script, NoopScriptService) {
+                    Thread.sleep(5_000)
+                }
+            }.get(5, TimeUnit.SECONDS)
+        }
+        assertTrue(e.cause is TimeoutException, "Script should time out")
+
+        // worker should be reusable after timeout
+        assertEquals("ok", scheduler.submit {
+            scheduler.runWithTimeout(script, NoopScriptService) { "ok" }
+        }.get(5, TimeUnit.SECONDS))
+    }
+
+    @Test
+    fun `fails busy script exceeding timeout without waiting for it`() {
+        val scheduler = ScriptExecutionScheduler(workers = 1, timeoutMs = 100)
+        val stop = AtomicBoolean(false)
+
+        try {
+            val e = assertThrows<ExecutionException> {
+                scheduler.submit {
+                    scheduler.runWithTimeout(script, NoopScriptService) {
+                        // ignores interrupts, like a script engine that cannot be stopped
+                        while (!stop.get()) {
+                            Thread.onSpinWait()
+                        }
+                    }
+                }.get(5, TimeUnit.SECONDS)
+            }
+            assertTrue(e.cause is TimeoutException, "Script should time out")
+        } finally {
+            stop.set(true)
+        }
+    }
+
+    private object NoopScriptService : ScriptService {
+        override val implName = "noop"
+        override val contextBuilder: ScriptContextBuilder
+            get() = throw NotImplementedError()
+
+        override fun executeScript(script: ScriptSource, scriptBindings: ScriptBindings): ReadWriteResponseBehaviour =
+            throw NotImplementedError()
+    }
+}
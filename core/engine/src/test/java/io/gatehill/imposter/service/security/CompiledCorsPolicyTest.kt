@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2023-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.service.security
+
+import io.gatehill.imposter.http.HttpRequest
+import io.gatehill.imposter.plugin.config.security.CorsConfig
+import io.gatehill.imposter.util.MapUtil
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.CoreMatchers.sameInstance
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+
+/**
+ * Tests for [CorsService.CompiledCorsPolicy].
+ */
+class CompiledCorsPolicyTest {
+    private val policy = CorsService.CompiledCorsPolicy(
+        MapUtil.YAML_MAPPER.readValue(
+            """
+            allowOrigins:
+            - https://example.com
+            - https://*.example.org
+            maxAge: 300
+            """.trimIndent(),
+            CorsConfig::class.java
+        )
+    )
+
+    @Test
+    fun `allows listed origin`() {
+        val headers = policy.headersFor(buildRequest("https://example.com"))!!.toMap()
+        assertThat(headers["Access-Control-Allow-Origin"], equalTo("https://example.com"))
+        assertThat(headers["Access-Control-Max-Age"], equalTo("300"))
+    }
+
+    @Test
+    fun `matches wildcard entries literally`() {
+        assertThat(policy.headersFor(buildRequest("https://api.example.org")), nullValue())
+
+        val headers = policy.headersFor(buildRequest("https://*.example.org"))!!.toMap()
+        assertThat(headers["Access-Control-Allow-Origin"], equalTo("https://*.example.org"))
+    }
+
+    @Test
+    fun `rejects other origins`() {
+        assertThat(policy.headersFor(buildRequest("https://example.net")), nullValue())
+        assertThat(policy.headersFor(buildRequest("https://evil.com/.example.org")), nullValue())
+    }
+
+    @Test
+    fun `reuses headers for the same origin`() {
+        val first = policy.headersFor(buildRequest("https://example.com"))
+        val second = policy.headersFor(buildRequest("https://example.com"))
+        assertThat(second, sameInstance(first))
+    }
+
+    private fun buildRequest(origin: String) = mock<HttpRequest> {
+        on { getHeader("Origin") } doReturn origin
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2023-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.service.security
+
+import io.gatehill.imposter.http.CaseInsensitiveHeaders
+import io.gatehill.imposter.http.HttpRequest
+import io.gatehill.imposter.plugin.config.security.SecurityConfig
+import io.gatehill.imposter.plugin.config.security.SecurityEffect
+import io.gatehill.imposter.util.MapUtil
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.verify
+
+/**
+ * Tests for [CompiledSecurityPolicy].
+ */
+class CompiledSecurityPolicyTest {
+    private val security = MapUtil.YAML_MAPPER.readValue(
+        """
+        default: Deny
+        conditions:
+        - effect: Permit
+          requestHeaders:
+            Authorization: s3cr3t
+        - effect: Deny
+          requestHeaders:
+            X-Blocked:
+              value: "tru.*"
+              operator: Matches
+        """.trimIndent(),
+        SecurityConfig::class.java
+    )
+
+    @Test
+    fun `permits request satisfying all conditions`() {
+        val request = buildRequest(mapOf("authorization" to "s3cr3t"))
+        val outcome = CompiledSecurityPolicy(security).evaluate(request)
+        assertThat(outcome.effect, equalTo(SecurityEffect.Permit))
+
+        // only headers are referenced by the policy
+        verify(request, never()).formParams
+        verify(request, never()).queryParams
+    }
+
+    @Test
+    fun `denies request and describes failed conditions`() {
+        val request = buildRequest(mapOf("X-Blocked" to "true"))
+        val outcome = CompiledSecurityPolicy(security).evaluate(request)
+        assertThat(outcome.effect, equalTo(SecurityEffect.Deny))
+        assertThat(
+            outcome.policySource,
+            equalTo("header conditions: [Authorization], header conditions: [X-Blocked]")
+        )
+    }
+
+    @Test
+    fun `identifies policy by a short stable id`() {
+        val policy = CompiledSecurityPolicy(security)
+        assertThat(policy.description, equalTo("header conditions: [Authorization], header conditions: [X-Blocked]"))
+        assertThat(policy.policyId, equalTo(CompiledSecurityPolicy(security).policyId))
+        assertThat(policy.policyId.length, equalTo(8))
+    }
+
+    private fun buildRequest(headers: Map<String, String>) = mock<HttpRequest> {
+        on { this.headers } doReturn CaseInsensitiveHeaders.of(headers)
+    }
+}
@@ -73,6 +73,13 @@ class HttpUtilTest {
         assertEquals("*/*", actual[5])
     }
 
+    @Test
+    fun readAcceptedEncodings() {
+        val actual = HttpUtil.readAcceptedEncodings("gzip, deflate;q=0.5, BR;q=0.8, identity;q=0")
+        assertEquals(mapOf("gzip" to 1f, "deflate" to 0.5f, "br" to 0.8f, "identity" to 0f), actual)
+        assertEquals(emptyMap<String, Float>(), HttpUtil.readAcceptedEncodings(null))
+    }
+
     @Test
     fun joinPaths() {
         assertThat(HttpUtil.joinPaths("/foo", "/bar"), equalTo("/foo/bar"))
@@ -57,6 +57,7 @@ import org.junit.jupiter.api.Test
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.eq
 import org.mockito.kotlin.mock
+import java.time.Instant
 
 class PlaceholderUtilTest {
     @Test
@@ -294,6 +295,39 @@ class PlaceholderUtilTest {
         }
     }
 
+    @Test
+    fun `eval datetime with offset`() {
+        val httpExchange = mock<HttpExchange>()
+
+        val before = System.currentTimeMillis()
+        val millis = PlaceholderUtil.replace(
+            input = "\${datetime.now.plus(PT1H).millis}",
+            httpExchange = httpExchange,
+            evaluators = PlaceholderUtil.defaultEvaluators,
+        )
+        assertThat(millis.toLong(), OrderingComparison.greaterThanOrEqualTo(before + 3600_000))
+
+        val iso8601DateTime = PlaceholderUtil.replace(
+            input = "\${datetime.now.minus(PT0.5S).iso8601_datetime}",
+            httpExchange = httpExchange,
+            evaluators = PlaceholderUtil.defaultEvaluators,
+        )
+        val parsed = Instant.from(DateTimeUtil.DATE_TIME_FORMATTER.parse(iso8601DateTime)).toEpochMilli()
+        assertThat(parsed, OrderingComparison.lessThanOrEqualTo(System.currentTimeMillis() - 500))
+    }
+
+    @Test
+    fun `eval datetime with invalid offset`() {
+        val httpExchange = mock<HttpExchange>()
+
+        val result = PlaceholderUtil.replace(
+            input = "\${datetime.now.plus(1h).millis}",
+            httpExchange = httpExchange,
+            evaluators = PlaceholderUtil.defaultEvaluators,
+        )
+        assertThat(result, equalTo(""))
+    }
+
     @Test
     fun `eval invalid expression`() {
         val httpExchange = mock<HttpExchange>()
@@ -43,9 +43,10 @@
 
 package io.gatehill.imposter.expression.eval
 
+import io.gatehill.imposter.expression.util.UuidUtil
 import io.gatehill.imposter.util.splitOnCommaAndTrim
 import org.apache.logging.log4j.LogManager
-import java.util.UUID
+import java.util.concurrent.ThreadLocalRandom
 
 object RandomEvaluator : ExpressionEvaluator<String> {
     override val name = "random"
@@ -54,6 +55,10 @@ object RandomEvaluator : ExpressionEvaluator<String> {
     val alphabetLower = ('a'..'z')
     val numbers = ('0'..'9')
 
+    private val alphabeticChars = (alphabetUpper + alphabetLower).toCharArray()
+    private val alphanumericChars = (alphabetUpper + alphabetLower + numbers).toCharArray()
+    private val numericChars = numbers.toList().toCharArray()
+
     private val LOGGER = LogManager.getLogger(RandomEvaluator::class.java)
 
     override fun eval(expression: String, context: Map<String, *>): String? {
@@ -93,17 +98,17 @@ object RandomEvaluator : ExpressionEvaluator<String> {
         }
 
         val random = when (type) {
-            "alphabetic" -> getRandomString(length, alphabetUpper + alphabetLower)
-            "alphanumeric" -> getRandomString(length, alphabetUpper + alphabetLower + numbers)
+            "alphabetic" -> getRandomString(length, alphabeticChars)
+            "alphanumeric" -> getRandomString(length, alphanumericChars)
             "any" -> {
                 if (chars == null) {
                     LOGGER.warn("chars string must be provided for random type 'any'")
                     return null
                 }
-                getRandomString(length, chars.toList())
+                getRandomString(length, chars.toCharArray())
             }
-            "numeric" -> getRandomString(length, numbers.toList())
-            "uuid" -> UUID.randomUUID().toString()
+            "numeric" -> getRandomString(length, numericChars)
+            "uuid" -> UuidUtil.randomUuid()
             else -> {
                 LOGGER.warn("Could not parse random expression: $randomConfig")
                 return null
@@ -112,7 +117,12 @@ object RandomEvaluator : ExpressionEvaluator<String> {
         return if (uppercase) random.uppercase() else random
     }
 
-    private fun getRandomString(length: Int, allowedChars: List<Char>) = (1..length)
-            .map { allowedChars.random() }
-            .joinToString("")
+    private fun getRandomString(length: Int, allowedChars: CharArray): String {
+        val random = ThreadLocalRandom.current()
+        val sb = StringBuilder(length)
+        repeat(length) {
+            sb.append(allowedChars[random.nextInt(allowedChars.size)])
+        }
+        return sb.toString()
+    }
 }
@@ -43,6 +43,7 @@
 package io.gatehill.imposter.expression.util
 
 import io.gatehill.imposter.expression.QueryProvider
+import io.gatehill.imposter.expression.eval.BatchExpressionEvaluator
 import io.gatehill.imposter.expression.eval.ExpressionEvaluator
 import org.apache.logging.log4j.LogManager
 import java.util.regex.Pattern
@@ -92,13 +93,14 @@ object ExpressionUtil {
         onUnsupported: UnsupportedBehaviour,
     ): String {
         val matcher = expressionPattern.matcher(input)
+        val evalContext = prefetch(input, evaluators, context)
         var matched = false
         val sb = StringBuffer()
         while (matcher.find()) {
             matched = true
             val expression = matcher.group(1)
             try {
-                val result = evalSingle(expression, evaluators, context, queryProvider, onUnsupported)
+                val result = evalSingle(expression, evaluators, evalContext, queryProvider, onUnsupported)
                 LOGGER.trace("{}={}", expression, result)
                 if (result.replace) {
                     matcher.appendReplacement(sb, result.replacement)
@@ -118,6 +120,53 @@ object ExpressionUtil {
         }
     }
 
+    /**
+     * Gives each [BatchExpressionEvaluator] referenced by more than one expression
+     * in the input the chance to load their values together.
+     *
+     * @return the context, with any entries added by the evaluators
+     */
+    private fun prefetch(
+        input: String,
+        evaluators: Map<String, ExpressionEvaluator<*>>,
+        context: Map<String, Any>,
+    ): Map<String, Any> {
+        if (evaluators.values.none { it is BatchExpressionEvaluator<*> }) {
+            return context
+        }
+        var batches: MutableMap<BatchExpressionEvaluator<*>, MutableList<String>>? = null
+        val matcher = expressionPattern.matcher(input)
+        while (matcher.find()) {
+            val expression = matcher.group(1)
+            val evaluator = lookupEvaluator(expression, evaluators) as? BatchExpressionEvaluator<*> ?: continue
+            if (null == batches) {
+                batches = mutableMapOf()
+            }
+            batches.getOrPut(evaluator) { mutableListOf() } += parseItemKey(expression)
+        }
+
+        var evalContext = context
+        batches?.forEach { (evaluator, expressions) ->
+            if (expressions.size > 1) {
+                try {
+                    evalContext = evalContext + evaluator.prefetch(expressions, evalContext)
+                } catch (e: Exception) {
+                    // fall back to evaluating each expression individually
+                    LOGGER.warn("Error prefetching values for {} expressions using {} evaluator", expressions.size, evaluator.name, e)
+                }
+            }
+        }
+        return evalContext
+    }
+
+    /**
+     * @return the item key, without any query or fallback suffix
+     */
+    private fun parseItemKey(rawItemKey: String): String {
+        val colonIndex = rawItemKey.indexOf(":")
+        return if (colonIndex > 0) rawItemKey.substring(0, colonIndex) else rawItemKey
+    }
+
     private fun evalSingle(
         expression: String,
         evaluators: Map<String, ExpressionEvaluator<*>>,
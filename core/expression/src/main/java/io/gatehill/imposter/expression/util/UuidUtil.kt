@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2023-2024.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.expression.util
+
+import java.util.UUID
+import java.util.concurrent.ThreadLocalRandom
+
+/**
+ * Generates UUIDs from [ThreadLocalRandom], avoiding the shared `SecureRandom`
+ * behind [UUID.randomUUID]. These are suitable for identifiers, but not where
+ * unpredictability matters, such as tokens or secrets.
+ */
+object UuidUtil {
+    /**
+     * @return a random (version 4) UUID
+     */
+    fun randomUuid(): String {
+        val random = ThreadLocalRandom.current()
+        val msb = (random.nextLong() and VERSION_MASK) or VERSION_4
+        return UUID(msb, variant(random.nextLong())).toString()
+    }
+
+    /**
+     * @return a time-ordered (version 7) UUID, with the leading 48 bits holding
+     * the current epoch milliseconds
+     */
+    fun timeOrderedUuid(): String {
+        val random = ThreadLocalRandom.current()
+        val msb = (System.currentTimeMillis() shl 16) or VERSION_7 or (random.nextLong() and 0x0FFFL)
+        return UUID(msb, variant(random.nextLong())).toString()
+    }
+
+    private fun variant(bits: Long): Long = (bits and 0x3FFFFFFFFFFFFFFFL) or Long.MIN_VALUE
+
+    private const val VERSION_MASK = -0xF001L
+    private const val VERSION_4 = 0x4000L
+    private const val VERSION_7 = 0x7000L
+}
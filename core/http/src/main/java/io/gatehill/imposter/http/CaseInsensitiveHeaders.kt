@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2022-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.http
+
+import io.vertx.core.MultiMap
+import java.util.AbstractMap.SimpleImmutableEntry
+import java.util.Locale
+
+/**
+ * A read-only view of request headers, supporting case-insensitive lookups
+ * without copying the underlying headers.
+ *
+ * Iteration yields the original header names, or lowercase names for the view
+ * returned by [lowercased]. Entries are only materialised on first iteration.
+ *
+ * @author Pete Cornish
+ */
+class CaseInsensitiveHeaders private constructor(
+    private val lookup: (String) -> String?,
+    private val names: () -> Iterable<String>,
+    private val lowercaseKeys: Boolean,
+) : AbstractMap<String, String>() {
+    override val entries: Set<Map.Entry<String, String>> by lazy {
+        names().mapNotNullTo(LinkedHashSet()) { name ->
+            lookup(name)?.let { value ->
+                SimpleImmutableEntry(if (lowercaseKeys) name.lowercase(Locale.getDefault()) else name, value)
+            }
+        }
+    }
+
+    private val lowercaseView by lazy {
+        if (lowercaseKeys) this else CaseInsensitiveHeaders(lookup, names, lowercaseKeys = true)
+    }
+
+    override fun get(key: String): String? = lookup(key)
+
+    override fun containsKey(key: String): Boolean = lookup(key) != null
+
+    /**
+     * @return a view of the same headers, whose keys are lowercase when iterated
+     */
+    fun lowercased(): CaseInsensitiveHeaders = lowercaseView
+
+    companion object {
+        private val EMPTY = of(emptyMap())
+
+        /**
+         * Wraps a Vert.x [MultiMap], which is already case-insensitive for lookups.
+         * Where a header has multiple values, the first is used.
+         */
+        @JvmStatic
+        fun of(headers: MultiMap): CaseInsensitiveHeaders =
+            CaseInsensitiveHeaders({ headers.get(it) }, { headers.names() }, lowercaseKeys = false)
+
+        /**
+         * Wraps a plain map. A lowercase index is only built if a lookup
+         * misses on both the exact and lowercase key.
+         */
+        @JvmStatic
+        fun of(headers: Map<String, String>, lowercaseKeys: Boolean = false): CaseInsensitiveHeaders {
+            val index by lazy {
+                headers.entries.associate { (k, v) -> k.lowercase(Locale.getDefault()) to v }
+            }
+            val lookup: (String) -> String? = { key ->
+                headers[key] ?: key.lowercase(Locale.getDefault()).let { lowerKey ->
+                    headers[lowerKey] ?: index[lowerKey]
+                }
+            }
+            return CaseInsensitiveHeaders(lookup, { headers.keys }, lowercaseKeys)
+        }
+
+        @JvmStatic
+        fun empty(): CaseInsensitiveHeaders = EMPTY
+    }
+}
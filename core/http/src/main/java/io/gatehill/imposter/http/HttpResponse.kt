@@ -44,6 +44,7 @@
 package io.gatehill.imposter.http
 
 import io.vertx.core.buffer.Buffer
+import java.io.File
 
 /**
  * @author Pete Cornish
@@ -60,6 +61,36 @@ interface HttpResponse {
      * @return the headers for the given keys
      */
     fun getHeadersIgnoreCase(headerKeys: Array<String>): Map<String, String>
+
+    /**
+     * Writes a chunk of the body without ending the response. If no content length
+     * has been set, the body is sent using chunked transfer encoding, where supported
+     * by the server. Call [end] once all chunks have been written.
+     */
+    fun write(chunk: Buffer)
+
+    /**
+     * Whether chunks passed to [write] are sent to the client as they are written,
+     * rather than being held until the response is ended.
+     */
+    val streamsChunks: Boolean
+        get() = false
+
+    /**
+     * Whether the queue of chunks waiting to be sent to the client is full, in which
+     * case no more chunks should be written until the [drainHandler] is called.
+     */
+    val writeQueueFull: Boolean
+        get() = false
+
+    /**
+     * Sets a handler that is called once the write queue is no longer full.
+     * The default implementation calls the handler immediately.
+     */
+    fun drainHandler(handler: () -> Unit) {
+        handler()
+    }
+
     fun end()
     fun end(body: Buffer)
     fun end(body: String?) {
@@ -67,6 +98,15 @@ interface HttpResponse {
     }
     fun close()
 
+    /**
+     * Ends the response, sending the contents of the file at the given path as the body.
+     * Where supported by the server, the file is sent without being read into memory,
+     * in which case [bodyBuffer] is not populated.
+     */
+    fun sendFile(filePath: String) {
+        end(Buffer.buffer(File(filePath).readBytes()))
+    }
+
     val bodyBuffer: Buffer?
 
     /**
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016-2024.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.http.util
+
+import io.gatehill.imposter.http.HttpResponse
+import io.vertx.core.buffer.Buffer
+import java.io.OutputStream
+
+/**
+ * An [OutputStream] that writes to an [HttpResponse] in chunks of at least [chunkSize] bytes.
+ * Closing the stream ends the response with any remaining data.
+ *
+ * If the stream is closed before a full chunk has been written, the response is
+ * ended with a single body, rather than using chunked transfer encoding.
+ *
+ * @author Pete Cornish
+ */
+class ResponseOutputStream(
+    private val response: HttpResponse,
+    private val chunkSize: Int = DEFAULT_CHUNK_SIZE,
+) : OutputStream() {
+    private var buffer: Buffer = Buffer.buffer(chunkSize)
+
+    /**
+     * Whether any part of the body has been written to the response.
+     */
+    var committed = false
+        private set
+
+    override fun write(b: Int) {
+        buffer.appendByte(b.toByte())
+        writeChunkIfFull()
+    }
+
+    override fun write(b: ByteArray, off: Int, len: Int) {
+        buffer.appendBytes(b, off, len)
+        writeChunkIfFull()
+    }
+
+    private fun writeChunkIfFull() {
+        if (buffer.length() >= chunkSize) {
+            committed = true
+            response.write(buffer)
+            buffer = Buffer.buffer(chunkSize)
+        }
+    }
+
+    override fun close() {
+        if (!response.finished) {
+            committed = true
+            response.end(buffer)
+        }
+    }
+
+    companion object {
+        const val DEFAULT_CHUNK_SIZE = 16 * 1024
+    }
+}
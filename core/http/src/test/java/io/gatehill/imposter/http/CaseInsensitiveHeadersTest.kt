@@ -0,0 +1,45 @@
+package io.gatehill.imposter.http
+
+import io.vertx.core.MultiMap
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+
+/**
+ * Tests for [CaseInsensitiveHeaders].
+ */
+class CaseInsensitiveHeadersTest {
+    @Test
+    fun `should look up MultiMap headers case-insensitively`() {
+        val multiMap = MultiMap.caseInsensitiveMultiMap()
+            .add("Content-Type", "application/json")
+            .add("X-Trace", "first")
+            .add("X-Trace", "second")
+
+        val headers = CaseInsensitiveHeaders.of(multiMap)
+        assertEquals("application/json", headers["content-type"])
+        assertEquals("first", headers["x-trace"])
+        assertTrue(headers.containsKey("CONTENT-TYPE"))
+        assertNull(headers["Accept"])
+        assertEquals(setOf("Content-Type", "X-Trace"), headers.keys)
+    }
+
+    @Test
+    fun `should look up map headers case-insensitively`() {
+        val headers = CaseInsensitiveHeaders.of(mapOf("Content-Type" to "text/plain"))
+        assertEquals("text/plain", headers["Content-Type"])
+        assertEquals("text/plain", headers["content-type"])
+        assertEquals("text/plain", headers["CONTENT-TYPE"])
+        assertEquals(1, headers.size)
+    }
+
+    @Test
+    fun `should iterate lowercase keys`() {
+        val headers = CaseInsensitiveHeaders.of(mapOf("Content-Type" to "text/plain"))
+        val lowercased = headers.lowercased()
+        assertEquals(mapOf("content-type" to "text/plain"), lowercased)
+        assertEquals("text/plain", lowercased["Content-Type"])
+        assertTrue(lowercased === lowercased.lowercased())
+    }
+}
@@ -43,19 +43,69 @@
 
 package io.gatehill.imposter.plugin.fakedata
 
+import io.gatehill.imposter.config.util.EnvVars
 import net.datafaker.Faker
+import org.apache.logging.log4j.LogManager
+import java.lang.reflect.InvocationTargetException
+import java.lang.reflect.Method
+import java.lang.reflect.Modifier
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.regex.Pattern
 
 /**
  * Generates fake data.
+ *
+ * Each thread uses its own [Faker], as instances are not safe for concurrent use.
+ * Expressions are compiled once into a resolver; simple `Provider.method` expressions
+ * invoke the provider method directly, avoiding Datafaker's expression parsing.
+ *
+ * If `IMPOSTER_FAKE_DATA_POOL_SIZE` is set, values for each fake type are
+ * pre-generated into a buffer of that size, which is refilled in the background.
  */
 object FakeGenerator {
-    private val faker = Faker()
+    private val LOGGER = LogManager.getLogger(FakeGenerator::class.java)
+
+    private val simpleExpressionPattern = Pattern.compile("([A-Za-z_]+)\\.([A-Za-z_]+)")
+
+    private val faker: ThreadLocal<Faker> = ThreadLocal.withInitial { Faker() }
+
+    private val resolvers = ConcurrentHashMap<String, (Faker) -> String?>()
+
+    private val hintResolvers: Map<String, (Faker) -> String?> = listOf(
+        listOf("email", "emailaddress") to { f: Faker -> f.internet().emailAddress() },
+        listOf("firstname") to { f: Faker -> f.name().firstName() },
+        listOf("lastname", "surname") to { f: Faker -> f.name().lastName() },
+        listOf("fullname") to { f: Faker -> f.name().fullName() },
+        listOf("username") to { f: Faker -> f.name().username() },
+        listOf("password") to { f: Faker -> f.internet().password() },
+        listOf("address", "fulladdress") to { f: Faker -> f.address().fullAddress() },
+        listOf("streetaddress", "street") to { f: Faker -> f.address().streetAddress() },
+        listOf("city") to { f: Faker -> f.address().city() },
+        listOf("country") to { f: Faker -> f.address().country() },
+        listOf("zipcode") to { f: Faker -> f.address().zipCode() },
+        listOf("phonenumber") to { f: Faker -> f.phoneNumber().phoneNumber() },
+        listOf("postcode") to { f: Faker -> f.address().postcode() },
+    ).flatMap { (hints, resolver) -> hints.map { it to resolver } }.toMap()
+
+    private val poolSize: Int = EnvVars.getEnv("IMPOSTER_FAKE_DATA_POOL_SIZE")?.toInt() ?: 0
+
+    private val pools = ConcurrentHashMap<String, FakeValuePool>()
+
+    private val refillExecutor: ExecutorService by lazy {
+        Executors.newSingleThreadExecutor { r ->
+            Thread(r, "imposter-fake-data-pool").apply { isDaemon = true }
+        }
+    }
 
     fun expression(expression: String): String? {
         try {
-            return faker.expression("#{$expression}")
+            val resolver = resolvers.computeIfAbsent(expression, ::compile)
+            return generate("expression:$expression") { resolver(faker.get()) }
         } catch (e: Exception) {
-            throw RuntimeException("Failed to evaluate fake data expression: $expression", e)
+            val cause = if (e is InvocationTargetException) e.targetException else e
+            throw RuntimeException("Failed to evaluate fake data expression: $expression", cause)
         }
     }
 
@@ -63,20 +113,52 @@ object FakeGenerator {
      * Generates a fake value for the given property name, or `null` if
      * no fake value is available for the given property name.
      */
-    fun fake(propNameHint: String): String? = when (propNameHint.lowercase()) {
-        "email", "emailaddress" -> faker.internet().emailAddress()
-        "firstname" -> faker.name().firstName()
-        "lastname", "surname" -> faker.name().lastName()
-        "fullname" -> faker.name().fullName()
-        "username" -> faker.name().username()
-        "password" -> faker.internet().password()
-        "address", "fulladdress" -> faker.address().fullAddress()
-        "streetaddress", "street" -> faker.address().streetAddress()
-        "city" -> faker.address().city()
-        "country" -> faker.address().country()
-        "zipcode" -> faker.address().zipCode()
-        "phonenumber" -> faker.phoneNumber().phoneNumber()
-        "postcode" -> faker.address().postcode()
-        else -> null
+    fun fake(propNameHint: String): String? {
+        val hint = propNameHint.lowercase()
+        val resolver = hintResolvers[hint] ?: return null
+        return generate("hint:$hint") { resolver(faker.get()) }
     }
+
+    private fun generate(key: String, generator: () -> String?): String? {
+        if (poolSize <= 0) {
+            return generator()
+        }
+        val pool = pools.computeIfAbsent(key) { FakeValuePool(key, poolSize, refillExecutor, generator) }
+        return if (pool.disabled) generator() else pool.next()
+    }
+
+    /**
+     * Builds a resolver for the expression, invoking the provider method directly
+     * where possible, otherwise falling back to Datafaker's expression evaluation.
+     */
+    private fun compile(expression: String): (Faker) -> String? {
+        val matcher = simpleExpressionPattern.matcher(expression)
+        if (matcher.matches()) {
+            findAccessor(Faker::class.java, matcher.group(1))?.let { providerMethod ->
+                findAccessor(providerMethod.returnType, matcher.group(2))?.let { valueMethod ->
+                    LOGGER.trace("Compiled fake data expression: {} to {}#{}", expression, providerMethod.name, valueMethod.name)
+                    return { f -> valueMethod.invoke(providerMethod.invoke(f))?.toString() }
+                }
+            }
+        }
+        val fakerExpression = "#{$expression}"
+        return { f -> f.expression(fakerExpression) }
+    }
+
+    /**
+     * Finds a public, no-args method matching the name, ignoring case
+     * and underscores, in the same way as Datafaker's own resolution.
+     */
+    private fun findAccessor(clazz: Class<*>, name: String): Method? {
+        val normalisedName = normaliseName(name)
+        return clazz.methods.firstOrNull {
+            it.parameterCount == 0 &&
+                !Modifier.isStatic(it.modifiers) &&
+                it.declaringClass != Any::class.java &&
+                it.returnType != Void.TYPE &&
+                normaliseName(it.name) == normalisedName
+        }
+    }
+
+    private fun normaliseName(name: String) = name.replace("_", "").lowercase()
 }
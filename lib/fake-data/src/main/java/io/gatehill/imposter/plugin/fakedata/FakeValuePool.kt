@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2023-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.plugin.fakedata
+
+import org.apache.logging.log4j.LogManager
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.Executor
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * A bounded buffer of pre-generated values for a single fake data type.
+ *
+ * Values are taken from the buffer when available, otherwise they are
+ * generated on the calling thread. Once the buffer falls below half its
+ * capacity, it is topped up on the [refillExecutor].
+ */
+internal class FakeValuePool(
+    private val key: String,
+    private val capacity: Int,
+    private val refillExecutor: Executor,
+    private val generator: () -> String?,
+) {
+    private val values = ArrayBlockingQueue<String>(capacity)
+    private val refilling = AtomicBoolean(false)
+
+    /**
+     * Whether pooling has been abandoned for this type, because the generator
+     * yields `null` or fails, so values should be generated inline.
+     */
+    @Volatile
+    var disabled = false
+        private set
+
+    fun next(): String? {
+        val value = values.poll() ?: generator()
+        if (values.size < capacity / 2) {
+            scheduleRefill()
+        }
+        return value
+    }
+
+    private fun scheduleRefill() {
+        if (disabled || !refilling.compareAndSet(false, true)) {
+            return
+        }
+        try {
+            refillExecutor.execute {
+                try {
+                    refill()
+                } finally {
+                    refilling.set(false)
+                }
+            }
+        } catch (e: Exception) {
+            refilling.set(false)
+            LOGGER.warn("Unable to schedule refill of fake data pool: {}", key, e)
+        }
+    }
+
+    private fun refill() {
+        try {
+            while (values.remainingCapacity() > 0) {
+                val value = generator() ?: run {
+                    disabled = true
+                    return
+                }
+                if (!values.offer(value)) {
+                    return
+                }
+            }
+            LOGGER.trace("Refilled fake data pool: {} with {} values", key, capacity)
+        } catch (e: Exception) {
+            // the same error will be surfaced to the caller on the next inline generation
+            disabled = true
+            LOGGER.warn("Error refilling fake data pool: {}", key, e)
+        }
+    }
+
+    companion object {
+        private val LOGGER = LogManager.getLogger(FakeValuePool::class.java)
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2023-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.plugin.fakedata
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.hamcrest.Matchers.matchesPattern
+import org.hamcrest.Matchers.notNullValue
+import org.hamcrest.Matchers.nullValue
+import org.junit.jupiter.api.Test
+import java.util.concurrent.Executor
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Tests for [FakeGenerator].
+ */
+class FakeGeneratorTest {
+    @Test
+    fun `resolves simple expression`() {
+        assertThat(FakeGenerator.expression("Name.firstName"), notNullValue())
+        assertThat(FakeGenerator.expression("name.first_name"), notNullValue())
+    }
+
+    @Test
+    fun `resolves expression with arguments`() {
+        val result = FakeGenerator.expression("number.numberBetween '1','10'")
+        assertThat(result, matchesPattern("[1-9]"))
+    }
+
+    @Test
+    fun `resolves property name hint`() {
+        assertThat(FakeGenerator.fake("EmailAddress"), matchesPattern(".+@.+"))
+        assertThat(FakeGenerator.fake("unknown"), nullValue())
+    }
+
+    @Test
+    fun `pool serves pre-generated values`() {
+        val counter = AtomicInteger()
+        val pool = FakeValuePool("test", 4, Executor { it.run() }) { counter.incrementAndGet().toString() }
+
+        // first value is generated inline, then the pool is filled
+        assertThat(pool.next(), equalTo("1"))
+        assertThat(counter.get(), equalTo(5))
+
+        // drain to half capacity before the next refill
+        assertThat(pool.next(), equalTo("2"))
+        assertThat(pool.next(), equalTo("3"))
+        assertThat(counter.get(), equalTo(5))
+        assertThat(pool.next(), equalTo("4"))
+        assertThat(counter.get(), equalTo(8))
+    }
+
+    @Test
+    fun `pool falls back to inline generation`() {
+        val pool = FakeValuePool("test", 4, Executor { it.run() }) { null }
+        assertThat(pool.next(), nullValue())
+        assertThat(pool.disabled, equalTo(true))
+    }
+}
@@ -51,6 +51,8 @@ import io.gatehill.imposter.scripting.common.shim.ConsoleShim
 import io.gatehill.imposter.service.ScriptSource
 import org.apache.logging.log4j.LogManager
 import org.apache.logging.log4j.Logger
+import java.nio.file.Files
+import java.util.concurrent.ConcurrentHashMap
 import javax.script.ScriptException
 import kotlin.io.path.readText
 
@@ -99,6 +101,16 @@ function require(moduleName) {
 
     private val GLOBAL_DSL_OBJECTS: String
 
+    /**
+     * Global names mapped to their DSL-prefixed binding names.
+     */
+    private val prefixedGlobals = globals.associateWith { DSL_OBJECT_PREFIX + it }
+
+    /**
+     * Wrapped scripts, keyed by [ScriptSource.source].
+     */
+    private val wrappedScriptCache = ConcurrentHashMap<String, CachedWrappedScript>()
+
     init {
         // optionally expose as global objects
         GLOBAL_DSL_OBJECTS = globals.distinct().joinToString("\r\n") { methodName ->
@@ -122,19 +134,53 @@ function require(moduleName) {
         addDslPrefix: Boolean,
         addConsoleShim: Boolean
     ): Map<String, *> {
-        val runtimeObjects = scriptBindings.asMap().toMutableMap()
+        val runtimeObjects = HashMap<String, Any?>()
+        var logger: Any? = null
+        var hasStores = false
+        scriptBindings.forEachBinding { name, value ->
+            when (name) {
+                "logger" -> logger = value
+                "stores" -> hasStores = true
+            }
+            runtimeObjects[bindingName(name, addDslPrefix)] = value
+        }
         runtimeObjects[DSL_VAR_NAME] = DslImpl()
-        if (!runtimeObjects.containsKey("stores")) {
-            runtimeObjects["stores"] = Any()
+        if (!hasStores) {
+            runtimeObjects[bindingName("stores", addDslPrefix)] = Any()
         }
         if (addConsoleShim) {
-            runtimeObjects["console"] = ConsoleShim(runtimeObjects)
+            runtimeObjects["console"] = ConsoleShim(mapOf("logger" to logger))
         }
         return runtimeObjects
-            .mapKeys { if (addDslPrefix && globals.contains(it.key)) DSL_OBJECT_PREFIX + it.key else it.key }
     }
 
+    private fun bindingName(name: String, addDslPrefix: Boolean) =
+        if (addDslPrefix) prefixedGlobals[name] ?: name else name
+
+    /**
+     * Wraps the script with the DSL functions and globals. The result is cached
+     * per script source; file scripts are rewrapped if the file has been
+     * modified since it was cached.
+     */
     fun wrapScript(script: ScriptSource): WrappedScript {
+        val lastModified = try {
+            script.file?.let { Files.getLastModifiedTime(it).toMillis() } ?: 0L
+        } catch (e: Exception) {
+            throw RuntimeException("Failed to read script: $script", e)
+        }
+
+        wrappedScriptCache[script.source]?.let { cached ->
+            if (cached.lastModified == lastModified && cached.code == script.code) {
+                return cached.wrappedScript
+            }
+        }
+
+        val wrappedScript = readAndWrapScript(script)
+        wrappedScriptCache[script.source] = CachedWrappedScript(lastModified, script.code, wrappedScript)
+        return wrappedScript
+    }
+
+    private fun readAndWrapScript(script: ScriptSource): WrappedScript {
         val scriptCode = try {
             when (script.type) {
                 ScriptSource.ScriptType.File -> script.file?.readText()!!
@@ -192,4 +238,18 @@ fnHolder;
             e.cause?.message ?: e.message, e.fileName, lineNumber, e.columnNumber
         )
     }
+
+    private class CachedWrappedScript(
+        /**
+         * Modification time of the script file, or `0` for inline scripts.
+         */
+        val lastModified: Long,
+
+        /**
+         * The code of an inline script, or `null` for file scripts.
+         */
+        val code: String?,
+
+        val wrappedScript: WrappedScript,
+    )
 }
@@ -45,9 +45,12 @@ package io.gatehill.imposter.scripting.common.util
 
 import io.gatehill.imposter.service.ScriptSource
 import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertNotSame
+import org.junit.jupiter.api.Assertions.assertSame
 import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.Test
 import java.nio.file.Files
+import java.nio.file.attribute.FileTime
 import kotlin.io.path.pathString
 
 /**
@@ -159,4 +162,28 @@ class JavaScriptUtilTest {
             Files.deleteIfExists(tempFile)
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `wrapScript reuses wrapped script until file is modified`() {
+        val tempFile = Files.createTempFile("test-script-", ".js")
+        Files.writeString(tempFile, "console.log('first');")
+
+        try {
+            val scriptSource = ScriptSource(
+                source = tempFile.pathString,
+                file = tempFile,
+            )
+            val first = JavaScriptUtil.wrapScript(scriptSource)
+            assertSame(first, JavaScriptUtil.wrapScript(scriptSource), "Wrapped script should be cached")
+
+            Files.writeString(tempFile, "console.log('second');")
+            Files.setLastModifiedTime(tempFile, FileTime.fromMillis(Files.getLastModifiedTime(tempFile).toMillis() + 1_000))
+
+            val second = JavaScriptUtil.wrapScript(scriptSource)
+            assertNotSame(first, second, "Wrapped script should be invalidated")
+            assertTrue(second.code.contains("console.log('second');"))
+        } finally {
+            Files.deleteIfExists(tempFile)
+        }
+    }
+}
@@ -48,14 +48,17 @@ import org.graalvm.polyglot.proxy.ProxyArray
 
 /**
  * Wraps a list to intercept access. All retrieved elements are proxied.
+ * Proxies are cached, so repeated access to the same element is cheap.
  */
 class InterceptingList(private val src: List<Any?>) : ProxyArray {
+    private val proxies = ProxyCache()
+
     override fun get(index: Long): Any? {
         if (index < 0 || index >= src.size) {
             throw IndexOutOfBoundsException("Index out of bounds: $index, size: ${src.size}")
         }
         val value = src[index.toInt()]
-        return value?.let(DeepProxy::of)
+        return proxies.get(index.toInt(), value)
     }
 
     override fun set(index: Long, value: Value?) {
@@ -63,6 +66,7 @@ class InterceptingList(private val src: List<Any?>) : ProxyArray {
         value?.also {
             val valueToSet = if (value.isHostObject) value.asHostObject() else value
             src[index.toInt()] = valueToSet
+            proxies.remove(index.toInt())
         }
     }
 
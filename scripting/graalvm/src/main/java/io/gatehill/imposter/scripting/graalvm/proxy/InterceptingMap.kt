@@ -49,15 +49,19 @@ import org.graalvm.polyglot.proxy.ProxyObject
 
 /**
  * Wraps a map to intercept access. All retrieved elements are proxied.
+ * Proxies are cached, so repeated access to the same member is cheap.
  */
 class InterceptingMap(private val src: Map<*, *>) : ProxyObject {
+    private val proxies = ProxyCache()
+    private var memberKeys: ProxyArray? = null
+
     override fun getMember(key: String?): Any? {
         val value = src[key]
-        return value?.let(DeepProxy::of)
+        return proxies.get(key, value)
     }
 
     override fun getMemberKeys(): Any {
-        return ProxyArray.fromList(src.keys.toList())
+        return memberKeys ?: ProxyArray.fromList(src.keys.toList()).also { memberKeys = it }
     }
 
     override fun hasMember(key: String?): Boolean {
@@ -69,6 +73,8 @@ class InterceptingMap(private val src: Map<*, *>) : ProxyObject {
         value?.also {
             @Suppress("UNCHECKED_CAST")
             (src as MutableMap<Any?, Any?>)[key] = if (value.isHostObject) value.asHostObject() else value
+            proxies.remove(key)
+            memberKeys = null
         }
     }
 
@@ -77,6 +83,8 @@ class InterceptingMap(private val src: Map<*, *>) : ProxyObject {
         if (src.containsKey(key)) {
             @Suppress("UNCHECKED_CAST")
             (src as MutableMap<Any?, Any?>).remove<Any?, Any?>(key)
+            proxies.remove(key)
+            memberKeys = null
             return true
         } else {
             return false
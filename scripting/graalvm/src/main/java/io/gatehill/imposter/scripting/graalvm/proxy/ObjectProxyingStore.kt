@@ -47,11 +47,17 @@ import io.gatehill.imposter.http.ExchangePhase
 import io.gatehill.imposter.store.core.Store
 import io.gatehill.imposter.util.MapUtil
 import org.graalvm.polyglot.Value
+import java.util.IdentityHashMap
 
 /**
  * Proxies a store to intercept access. All retrieved elements are proxied.
+ *
+ * Proxies are cached for the lifetime of this instance, which is scoped to a
+ * single script execution, so loading the same value again returns the same proxy.
  */
 class ObjectProxyingStore(private val delegate: Store) : Store {
+    private val proxies = IdentityHashMap<Any, Any>()
+
     override val storeName: String
         get() = delegate.storeName
     override val typeDescription: String
@@ -73,7 +79,7 @@ class ObjectProxyingStore(private val delegate: Store) : Store {
         val value = delegate.load<T?>(key)
 
         @Suppress("UNCHECKED_CAST")
-        return value?.let(DeepProxy::of) as T?
+        return value?.let { proxies.getOrPut(it) { DeepProxy.of(it) } } as T?
     }
 
     override fun loadAsJson(key: String): String {
@@ -87,6 +93,8 @@ class ObjectProxyingStore(private val delegate: Store) : Store {
 
     override fun loadByKeyPrefix(keyPrefix: String) = delegate.loadByKeyPrefix(keyPrefix)
 
+    override fun loadPage(keyPrefix: String?, cursor: String?, limit: Int) = delegate.loadPage(keyPrefix, cursor, limit)
+
     override fun hasItemWithKey(key: String) = delegate.hasItemWithKey(key)
 
     override fun count() = delegate.count()
@@ -46,75 +46,83 @@ package io.gatehill.imposter.scripting.graalvm.proxy
 import org.graalvm.polyglot.Value
 import org.graalvm.polyglot.proxy.ProxyArray
 import org.graalvm.polyglot.proxy.ProxyObject
+import java.lang.reflect.Field
+import java.lang.reflect.Method
+import java.util.concurrent.ConcurrentHashMap
 
 /**
  * Proxies a POJO object. All retrieved elements are proxied.
+ *
+ * Member lookups use a table of fields and accessors, computed once per class.
  */
 class PojoProxyObject(private val obj: Any) : ProxyObject {
     companion object {
         val excludedMembers = setOf("class")
-    }
 
-    private val memberKeys by lazy<List<String>> {
-        val fieldNames = obj::class.java.fields.map { it.name }
-        val accessors = obj::class.java.methods.filter { it.name.startsWith("get") || it.name.startsWith("is") }.map {
-            val memberName = it.name.removePrefix("get").removePrefix("is")
-            memberName.substring(0, 1).lowercase() + memberName.substring(1)
-        }
-        (fieldNames + accessors - excludedMembers).distinct()
-    }
+        private val memberTables = ConcurrentHashMap<Class<*>, MemberTable>()
 
-    override fun getMember(key: String): Any? {
-        if (!memberKeys.contains(key)) {
-            return null
-        }
+        private fun memberTable(clazz: Class<*>): MemberTable = memberTables.computeIfAbsent(clazz, ::MemberTable)
+    }
 
-        val getterName = toMemberForm(key, "get")
-        val boolAccessorName = toMemberForm(key, "it")
+    private val members = memberTable(obj::class.java)
 
-        val value = if (obj::class.java.fields.any { it.name == key }) {
-            obj::class.java.getField(key).let {
-                it.isAccessible = true
-                it.get(obj)
-            }
-        } else if (obj::class.java.methods.any { it.name == getterName }) {
-            obj::class.java.getMethod(getterName).let {
-                it.isAccessible = true
-                it.invoke(obj)
-            }
-        } else if (obj::class.java.methods.any { it.name == boolAccessorName }) {
-            obj::class.java.getMethod(boolAccessorName).let {
-                it.isAccessible = true
-                it.invoke(obj)
+    override fun getMember(key: String): Any? {
+        val value = members.getters[key]?.let { getter ->
+            when (getter) {
+                is Field -> getter.get(obj)
+                is Method -> getter.invoke(obj)
+                else -> null
             }
-        } else null
-
+        }
         return value?.let(DeepProxy::of)
     }
 
-    override fun getMemberKeys(): Any = ProxyArray.fromList(memberKeys)
+    override fun getMemberKeys(): Any = ProxyArray.fromList(members.memberKeys)
 
-    override fun hasMember(key: String): Boolean = memberKeys.contains(key)
+    override fun hasMember(key: String): Boolean = members.getters.containsKey(key)
 
     override fun putMember(key: String, value: Value?) {
         val v = value?.let { if (value.isHostObject) value.asHostObject() else value }
-        val setterName = toMemberForm(key, "set")
 
-        val field = obj::class.java.fields.find { it.name == key }
-        if (field != null) {
-            field.isAccessible = true
+        members.fields[key]?.let { field ->
             field.set(obj, v)
-        } else {
-            val setters = obj::class.java.methods.filter { it.name == setterName && it.parameterCount == 1 }
-            if (setters.size != 1) {
-                throw UnsupportedOperationException("No field or single setter found for member: $key")
-            }
-            val setter = setters.first()
-            setter.isAccessible = true
+        } ?: members.setters[key]?.let { setter ->
             setter.invoke(obj, v)
-        }
+        } ?: throw UnsupportedOperationException("No field or single setter found for member: $key")
     }
 
-    private fun toMemberForm(name: String, prefix: String) =
-        prefix + name.substring(0, 1).uppercase() + name.substring(1)
+    /**
+     * Fields and accessors of a class, keyed by member name.
+     */
+    private class MemberTable(clazz: Class<*>) {
+        val fields: Map<String, Field>
+        val getters: Map<String, Any>
+        val setters: Map<String, Method>
+        val memberKeys: List<Any>
+
+        init {
+            fields = clazz.fields.associateBy { it.name }
+                .onEach { (_, field) -> field.isAccessible = true }
+
+            // fields take precedence over 'get' accessors, which take precedence over 'is' accessors
+            val accessors = mutableMapOf<String, Method>()
+            listOf("is", "get").forEach { prefix ->
+                clazz.methods.filter { it.parameterCount == 0 && it.name.length > prefix.length && it.name.startsWith(prefix) }
+                    .forEach { accessors[toMemberName(it.name, prefix)] = it.apply { isAccessible = true } }
+            }
+            getters = (accessors + fields) - excludedMembers
+
+            setters = clazz.methods.filter { it.parameterCount == 1 && it.name.length > 3 && it.name.startsWith("set") }
+                .groupBy { toMemberName(it.name, "set") }
+                .filterValues { it.size == 1 }
+                .mapValues { (_, methods) -> methods.first().apply { isAccessible = true } }
+
+            memberKeys = getters.keys.toList()
+        }
+
+        private fun toMemberName(methodName: String, prefix: String): String {
+            val memberName = methodName.removePrefix(prefix)
+            return memberName.substring(0, 1).lowercase() + memberName.substring(1)
+        }
+    }
 }
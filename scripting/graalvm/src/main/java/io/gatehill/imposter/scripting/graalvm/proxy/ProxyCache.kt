@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2024-2024.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.scripting.graalvm.proxy
+
+/**
+ * Caches the proxies of a container's elements, keyed by member name or index.
+ *
+ * A cached proxy is only reused if the element is the same instance it was
+ * created for, so changes made to the underlying container are still seen.
+ * Values that do not need proxying are not cached.
+ */
+internal class ProxyCache {
+    private val entries = HashMap<Any?, Entry>()
+
+    fun get(key: Any?, value: Any?): Any? {
+        value ?: return null
+        entries[key]?.takeIf { it.value === value }?.let { return it.proxy }
+
+        val proxy = DeepProxy.of(value)
+        if (proxy !== value) {
+            entries[key] = Entry(value, proxy)
+        }
+        return proxy
+    }
+
+    fun remove(key: Any?) {
+        entries.remove(key)
+    }
+
+    private class Entry(val value: Any, val proxy: Any)
+}
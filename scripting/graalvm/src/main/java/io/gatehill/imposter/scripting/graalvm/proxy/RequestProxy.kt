@@ -43,19 +43,32 @@
 
 package io.gatehill.imposter.scripting.graalvm.proxy
 
+import io.gatehill.imposter.config.util.EnvVars
 import io.gatehill.imposter.http.HttpRequest
 import io.gatehill.imposter.script.ScriptUtil
 import io.gatehill.imposter.util.CollectionUtil
+import org.graalvm.polyglot.Context
 import org.graalvm.polyglot.Value
 import org.graalvm.polyglot.proxy.ProxyObject
 
 /**
  * Graal polyglot object proxy for request.
+ *
+ * Member values are computed on first access and cached, as a proxy
+ * is scoped to a single script execution.
+ *
+ * If the [ENV_NATIVE_JSON_BODY] environment variable is set to `true`, the
+ * request body is also exposed as a native JavaScript value, via the `jsonBody`
+ * member, parsed once on first access.
  */
 class RequestProxy(
     private val req: HttpRequest,
 ) : ProxyObject {
     companion object {
+        const val ENV_NATIVE_JSON_BODY = "IMPOSTER_GRAAL_NATIVE_JSON_BODY"
+
+        private val nativeJsonBody = EnvVars.getEnv(ENV_NATIVE_JSON_BODY)?.toBoolean() == true
+
         private val properties = arrayOf(
             "path",
             "method",
@@ -66,10 +79,22 @@ class RequestProxy(
             "formParams",
             "body",
             "normalisedHeaders",
-        )
+        ) + (if (nativeJsonBody) arrayOf("jsonBody") else emptyArray())
+
+        private val propertySet = properties.toSet()
     }
 
-    override fun getMember(key: String?): Any? = when (key) {
+    private val members = HashMap<String, Any?>()
+
+    override fun getMember(key: String?): Any? {
+        key ?: return null
+        if (members.containsKey(key)) {
+            return members[key]
+        }
+        return resolveMember(key).also { members[key] = it }
+    }
+
+    private fun resolveMember(key: String): Any? = when (key) {
         "path" -> req.path
         "method" -> req.method.toString()
         "uri" -> req.absoluteUri
@@ -82,16 +107,26 @@ class RequestProxy(
         "formParams" -> ProxyObject.fromMap(req.formParams)
         "body" -> req.bodyAsString
         "normalisedHeaders" -> {
-            val h = CollectionUtil.convertKeysToLowerCase(req.headers)
+            val h = CollectionUtil.convertKeysToLowerCaseView(req.headers)
             ProxyObject.fromMap(h)
         }
+        "jsonBody" -> if (nativeJsonBody) parseJsonBody() else null
         else -> null
     }
 
+    /**
+     * Parses the body using the script's own `JSON.parse`, so the result is a
+     * native JavaScript value rather than a proxied host object.
+     */
+    private fun parseJsonBody(): Value? {
+        val body = req.bodyAsString?.takeIf { it.isNotBlank() } ?: return null
+        return Context.getCurrent().getBindings("js").getMember("JSON").invokeMember("parse", body)
+    }
+
     override fun getMemberKeys(): Array<*> = properties
 
     override fun hasMember(key: String?) =
-        key?.let { properties.contains(key) } ?: false
+        key?.let { propertySet.contains(key) } ?: false
 
     override fun putMember(key: String?, value: Value?) {
         throw UnsupportedOperationException("Request cannot be modified")
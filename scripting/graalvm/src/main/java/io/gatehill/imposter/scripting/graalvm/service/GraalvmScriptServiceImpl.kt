@@ -69,6 +69,7 @@ import org.graalvm.polyglot.Context
 import org.graalvm.polyglot.Engine
 import org.graalvm.polyglot.HostAccess
 import org.graalvm.polyglot.Value
+import java.util.concurrent.ConcurrentHashMap
 
 
 /**
@@ -95,6 +96,12 @@ class GraalvmScriptServiceImpl : ScriptService, Plugin, EngineLifecycleListener
         engine = Engine.newBuilder(JS_LANG_ID).build()
     }
 
+    /**
+     * Contexts of in-flight script executions, keyed by executing thread,
+     * so an execution can be cancelled.
+     */
+    private val activeContexts = ConcurrentHashMap<Thread, Context>()
+
     private val enableStoreProxy = EnvVars.getEnv(ENV_IMPOSTER_GRAAL_STORE_PROXY)?.toBoolean() != false
 
     override fun afterRoutesConfigured(
@@ -147,17 +154,23 @@ class GraalvmScriptServiceImpl : ScriptService, Plugin, EngineLifecycleListener
             val wrapped = JavaScriptUtil.wrapScript(script)
 
             buildContext().use { context ->
-                val bindings = context.getBindings(JS_LANG_ID)
-                JavaScriptUtil.transformBindingsMap(
-                    scriptBindings,
-                    addDslPrefix = true,
-                    addConsoleShim = false
-                ).map { (key, value) ->
-                    bindings.putMember(key, value)
+                val thread = Thread.currentThread()
+                activeContexts[thread] = context
+                try {
+                    val bindings = context.getBindings(JS_LANG_ID)
+                    JavaScriptUtil.transformBindingsMap(
+                        scriptBindings,
+                        addDslPrefix = true,
+                        addConsoleShim = false
+                    ).map { (key, value) ->
+                        bindings.putMember(key, value)
+                    }
+
+                    val fnHolder = context.eval(JS_LANG_ID, wrapped.code).`as`(FunctionHolder::class.java)
+                    return block(bindings, fnHolder)
+                } finally {
+                    activeContexts.remove(thread)
                 }
-
-                val fnHolder = context.eval(JS_LANG_ID, wrapped.code).`as`(FunctionHolder::class.java)
-                return block(bindings, fnHolder)
             }
         } catch (e: Exception) {
             throw RuntimeException("Script execution terminated abnormally", e)
@@ -189,6 +202,13 @@ class GraalvmScriptServiceImpl : ScriptService, Plugin, EngineLifecycleListener
         }
     }
 
+    override fun interruptExecution(thread: Thread) {
+        activeContexts[thread]?.let { context ->
+            LOGGER.trace("Cancelling script execution on thread: {}", thread.name)
+            context.close(true)
+        } ?: thread.interrupt()
+    }
+
     private fun buildContext(): Context = Context.newBuilder(JS_LANG_ID)
         .engine(engine)
         .allowHostAccess(HostAccess.ALL)
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2024-2024.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.scripting.graalvm.proxy
+
+import org.graalvm.polyglot.proxy.ProxyArray
+import org.graalvm.polyglot.proxy.ProxyObject
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.hamcrest.Matchers.instanceOf
+import org.hamcrest.Matchers.nullValue
+import org.hamcrest.Matchers.sameInstance
+import org.junit.jupiter.api.Test
+
+/**
+ * Tests for [DeepProxy] and the proxies it creates.
+ */
+class DeepProxyTest {
+    @Test
+    fun `pojo proxy exposes fields and accessors`() {
+        val proxy = DeepProxy.of(Example("foo", true)) as PojoProxyObject
+
+        assertThat(proxy.getMember("name"), equalTo("foo"))
+        assertThat(proxy.getMember("enabled"), equalTo(true))
+        assertThat(proxy.getMember("count"), equalTo(1))
+        assertThat(proxy.getMember("class"), nullValue())
+        assertThat(proxy.hasMember("name"), equalTo(true))
+        assertThat(proxy.hasMember("class"), equalTo(false))
+    }
+
+    @Test
+    fun `map proxy reuses element proxies`() {
+        val nested = mutableMapOf("name" to "foo")
+        val proxy = DeepProxy.of(mutableMapOf("nested" to nested, "items" to listOf(nested))) as InterceptingMap
+
+        val first = proxy.getMember("nested")
+        assertThat(first, instanceOf(ProxyObject::class.java))
+        assertThat(proxy.getMember("nested"), sameInstance(first))
+
+        val items = proxy.getMember("items") as ProxyArray
+        assertThat(items.get(0), instanceOf(ProxyObject::class.java))
+        assertThat(items.get(0), sameInstance(items.get(0)))
+    }
+
+    @Test
+    fun `map proxy sees changes to underlying map`() {
+        val src = mutableMapOf<String, Any>("nested" to mapOf("name" to "foo"))
+        val proxy = DeepProxy.of(src) as InterceptingMap
+        val first = proxy.getMember("nested") as ProxyObject
+
+        src["nested"] = mapOf("name" to "bar")
+        val second = proxy.getMember("nested") as ProxyObject
+        assertThat(second.getMember("name"), equalTo("bar"))
+        assertThat(first.getMember("name"), equalTo("foo"))
+    }
+
+    class Example(
+        @JvmField val name: String,
+        private val enabled: Boolean,
+    ) {
+        fun isEnabled() = enabled
+        fun getCount() = 1
+    }
+}
@@ -3,6 +3,7 @@ package io.gatehill.imposter.scripting.groovy.impl
 import groovy.lang.Closure
 import groovy.lang.Script
 import io.gatehill.imposter.script.MutableResponseBehaviour
+import io.gatehill.imposter.script.ReadWriteResponseBehaviourImpl
 import io.gatehill.imposter.script.dsl.Dsl
 import io.gatehill.imposter.script.dsl.DslImpl
 import io.gatehill.imposter.scripting.groovy.util.ScriptLoader
@@ -16,6 +17,13 @@ abstract class GroovyDsl : Script(), Dsl {
 
     override fun respond() = dsl.respond()
 
+    /**
+     * Clears the response behaviour, so the instance can be reused for another execution.
+     */
+    internal fun reset() {
+        dsl.responseBehaviour = ReadWriteResponseBehaviourImpl()
+    }
+
     /**
      * Syntactic sugar that executes the Runnable immediately.
      *
@@ -45,27 +45,54 @@ package io.gatehill.imposter.scripting.groovy.service
 import com.google.common.cache.CacheBuilder
 import groovy.lang.Binding
 import groovy.lang.GroovyClassLoader
+import groovy.lang.GroovySystem
+import groovy.transform.CompileStatic
+import groovy.transform.ThreadInterrupt
+import groovy.transform.TypeChecked
 import io.gatehill.imposter.config.util.EnvVars
 import io.gatehill.imposter.model.script.LazyContextBuilder
 import io.gatehill.imposter.script.ReadWriteResponseBehaviour
 import io.gatehill.imposter.script.ScriptBindings
 import io.gatehill.imposter.script.ScriptUtil
 import io.gatehill.imposter.scripting.groovy.impl.GroovyDsl
+import io.gatehill.imposter.scripting.groovy.util.CompiledClasses
+import io.gatehill.imposter.scripting.groovy.util.PersistentClassCache
 import io.gatehill.imposter.scripting.groovy.util.ScriptLoader
 import io.gatehill.imposter.service.ScriptService
 import io.gatehill.imposter.service.ScriptSource
 import io.gatehill.imposter.util.ClassLoaderUtil
 import io.gatehill.imposter.util.MetricsUtil
 import io.micrometer.core.instrument.Gauge
+import io.micrometer.core.instrument.Timer
 import org.apache.logging.log4j.LogManager
+import org.codehaus.groovy.control.CompilationUnit
 import org.codehaus.groovy.control.CompilerConfiguration
+import org.codehaus.groovy.control.Phases
+import org.codehaus.groovy.control.customizers.ASTTransformationCustomizer
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.TimeUnit
+import kotlin.io.path.readText
+import kotlin.io.path.useLines
 
 /**
+ * Groovy script service.
+ *
+ * Scripts are compiled dynamically by default. A script can opt in to static
+ * compilation or type checking, and to reuse of script instances, using
+ * directives in its leading comments:
+ *
+ * ```
+ * // imposter:compileStatic
+ * // imposter:threadSafe
+ * ```
+ *
+ * Statically compiled scripts must read bindings explicitly, such as
+ * `binding.getVariable('context')`. Scripts marked as thread-safe must not
+ * hold state between executions, as their instances are pooled and reused.
+ *
  * @author Pete Cornish
  */
 class GroovyScriptServiceImpl : ScriptService {
-    private val groovyClassLoader: GroovyClassLoader
-
     override val implName = "groovy"
 
     /**
@@ -74,22 +101,60 @@ class GroovyScriptServiceImpl : ScriptService {
      */
     private val scriptClasses = CacheBuilder.newBuilder()
         .maximumSize(EnvVars.getEnv(ScriptUtil.ENV_SCRIPT_CACHE_ENTRIES)?.toLong() ?: ScriptUtil.DEFAULT_SCRIPT_CACHE_ENTRIES)
-        .build<String, Class<GroovyDsl>>()
+        .build<String, CompiledScript>()
+
+    private val compilerConfigs = CompileMode.values().associateWith(::buildCompilerConfig)
+
+    /**
+     * Class loaders for each compilation mode.
+     */
+    private val groovyClassLoaders = CompileMode.values().associateWith { mode ->
+        lazy { GroovyClassLoader(ClassLoaderUtil.pluginClassLoader, compilerConfigs.getValue(mode)) }
+    }
+
+    /**
+     * Persists compiled scripts, if enabled by [ScriptUtil.compileCacheDir].
+     */
+    private val persistentClassCache = ScriptUtil.compileCacheDir?.let { PersistentClassCache(it.resolve("groovy")) }
+
+    private val instancePoolSize = EnvVars.getEnv(ENV_INSTANCE_POOL_SIZE)?.toInt() ?: DEFAULT_INSTANCE_POOL_SIZE
 
     override val contextBuilder = LazyContextBuilder
 
-    init {
-        val compilerConfig = CompilerConfiguration()
-        compilerConfig.scriptBaseClass = GroovyDsl::class.java.canonicalName
-        groovyClassLoader = GroovyClassLoader(ClassLoaderUtil.pluginClassLoader, compilerConfig)
+    private var compileTimer: Timer? = null
+    private var executionTimer: Timer? = null
 
+    init {
         MetricsUtil.doIfMetricsEnabled(METRIC_SCRIPT_GROOVY_CACHE_ENTRIES) { registry ->
             Gauge.builder(METRIC_SCRIPT_GROOVY_CACHE_ENTRIES) { scriptClasses.size() }
                 .description("The number of cached Groovy files")
                 .register(registry)
+
+            compileTimer = Timer.builder(METRIC_SCRIPT_GROOVY_COMPILE_DURATION)
+                .description("Groovy script compilation duration in seconds")
+                .register(registry)
+
+            executionTimer = Timer.builder(METRIC_SCRIPT_GROOVY_EXECUTION_DURATION)
+                .description("Groovy script execution duration in seconds, excluding compilation")
+                .register(registry)
         }
     }
 
+    private fun buildCompilerConfig(mode: CompileMode): CompilerConfiguration {
+        val compilerConfig = CompilerConfiguration()
+        compilerConfig.scriptBaseClass = GroovyDsl::class.java.canonicalName
+        if (ScriptUtil.scriptTimeoutMs > 0) {
+            // check for thread interruption in loops and closures, so timed out scripts can be stopped
+            compilerConfig.addCompilationCustomizers(ASTTransformationCustomizer(ThreadInterrupt::class.java))
+        }
+        when (mode) {
+            CompileMode.Dynamic -> {}
+            CompileMode.Static -> compilerConfig.addCompilationCustomizers(ASTTransformationCustomizer(CompileStatic::class.java))
+            CompileMode.TypeChecked -> compilerConfig.addCompilationCustomizers(ASTTransformationCustomizer(TypeChecked::class.java))
+        }
+        return compilerConfig
+    }
+
     override fun initScript(script: ScriptSource) {
         if (ScriptUtil.shouldPrecompile) {
             LOGGER.debug("Precompiling script: $script")
@@ -104,32 +169,52 @@ class GroovyScriptServiceImpl : ScriptService {
         LOGGER.trace("Executing script: {}", script)
 
         try {
-            val scriptClass = getCompiledScript(script)
-            val result = scriptClass.getDeclaredConstructor().newInstance().apply {
-                binding = convertBindings(scriptBindings, script)
-                run()
+            val compiled = getCompiledScript(script)
+            val executionStart = System.nanoTime()
+
+            val instance = compiled.borrowInstance()
+            try {
+                instance.binding = convertBindings(scriptBindings, script)
+                instance.run()
+                return instance.responseBehaviour
+            } finally {
+                compiled.returnInstance(instance)
+                executionTimer?.record(System.nanoTime() - executionStart, TimeUnit.NANOSECONDS)
             }
-            return result.responseBehaviour
         } catch (e: Exception) {
             throw RuntimeException("Script execution terminated abnormally", e)
         }
     }
 
-    private fun getCompiledScript(script: ScriptSource): Class<GroovyDsl> {
+    private fun getCompiledScript(script: ScriptSource): CompiledScript {
         return scriptClasses.get(script.source) {
             try {
                 LOGGER.trace("Compiling script: {}", script)
-                val compileStartMs = System.currentTimeMillis()
+                val compileStart = System.nanoTime()
+
+                val directives = readDirectives(script)
+                val mode = when {
+                    DIRECTIVE_COMPILE_STATIC in directives -> CompileMode.Static
+                    DIRECTIVE_TYPE_CHECKED in directives -> CompileMode.TypeChecked
+                    else -> CompileMode.Dynamic
+                }
+                val groovyClassLoader = groovyClassLoaders.getValue(mode).value
 
                 @Suppress("UNCHECKED_CAST")
-                val compiled: Class<GroovyDsl> = when (script.type) {
+                val compiled: Class<GroovyDsl> = persistentClassCache?.let { cache ->
+                    loadOrCompile(cache, script, mode, groovyClassLoader) as Class<GroovyDsl>
+                } ?: when (script.type) {
                     ScriptSource.ScriptType.File -> groovyClassLoader.parseClass(script.file?.toFile()!!) as Class<GroovyDsl>
                     ScriptSource.ScriptType.Inline -> groovyClassLoader.parseClass(script.code) as Class<GroovyDsl>
                     else -> throw UnsupportedOperationException("Unsupported script type: $script")
                 }
 
-                LOGGER.debug("Script: {} compiled in {}ms", script, System.currentTimeMillis() - compileStartMs)
-                return@get compiled
+                val compileDuration = System.nanoTime() - compileStart
+                compileTimer?.record(compileDuration, TimeUnit.NANOSECONDS)
+                LOGGER.debug("Script: {} compiled in {}ms using {} mode", script, compileDuration / 1_000_000, mode)
+
+                val threadSafe = DIRECTIVE_THREAD_SAFE in directives
+                return@get CompiledScript(compiled, if (threadSafe) instancePoolSize else 0)
 
             } catch (e: Exception) {
                 throw RuntimeException("Failed to load Groovy script: $script", e)
@@ -137,15 +222,106 @@ class GroovyScriptServiceImpl : ScriptService {
         }
     }
 
+    /**
+     * Loads the compiled script from the persistent cache, compiling and storing it on a miss.
+     * The cache key covers the script content and the settings that affect the generated bytecode.
+     */
+    private fun loadOrCompile(
+        cache: PersistentClassCache,
+        script: ScriptSource,
+        mode: CompileMode,
+        groovyClassLoader: GroovyClassLoader,
+    ): Class<*> {
+        val code = when (script.type) {
+            ScriptSource.ScriptType.File -> script.file!!.readText()
+            ScriptSource.ScriptType.Inline -> script.code!!
+            else -> throw UnsupportedOperationException("Unsupported script type: $script")
+        }
+        val key = PersistentClassCache.buildKey(
+            GroovySystem.getVersion(),
+            mode.name,
+            (ScriptUtil.scriptTimeoutMs > 0).toString(),
+            script.file?.fileName?.toString() ?: "",
+            code,
+        )
+
+        cache.load(key)?.let { cached ->
+            LOGGER.trace("Loaded compiled script: {} from persistent cache", script)
+            return cached.define(groovyClassLoader)
+        }
+
+        val unit = CompilationUnit(compilerConfigs.getValue(mode), null, groovyClassLoader)
+        val sourceUnit = script.file?.let { unit.addSource(it.toFile()) }
+            ?: unit.addSource("script_${key.take(16)}.groovy", code)
+        unit.compile(Phases.CLASS_GENERATION)
+
+        val compiled = CompiledClasses(sourceUnit.ast.mainClassName, unit.classes.associate { it.name to it.bytes })
+        cache.store(key, compiled)
+        return compiled.define(groovyClassLoader)
+    }
+
+    /**
+     * Reads the directives from the leading comment lines of the script.
+     */
+    private fun readDirectives(script: ScriptSource): Set<String> {
+        val leadingComments: (Sequence<String>) -> Set<String> = { lines ->
+            lines.map { it.trim() }
+                .takeWhile { it.isEmpty() || it.startsWith("//") }
+                .mapNotNull { it.removePrefix("//").trim().takeIf { line -> line.startsWith(DIRECTIVE_PREFIX) } }
+                .map { it.removePrefix(DIRECTIVE_PREFIX).trim() }
+                .toSet()
+        }
+        return when (script.type) {
+            ScriptSource.ScriptType.File -> script.file!!.useLines(block = leadingComments)
+            ScriptSource.ScriptType.Inline -> leadingComments(script.code!!.lineSequence())
+            else -> emptySet()
+        }
+    }
+
     private fun convertBindings(scriptBindings: ScriptBindings, script: ScriptSource) = Binding().apply {
-        scriptBindings.asMap().forEach { (name: String, value: Any?) -> setVariable(name, value) }
+        scriptBindings.forEachBinding { name, value -> setVariable(name, value) }
 
         // resolved path to the script
         setVariable(ScriptLoader.contextKeyScriptPath, script.file)
     }
 
+    private enum class CompileMode {
+        Dynamic,
+        Static,
+        TypeChecked,
+    }
+
+    /**
+     * A compiled script class. If [poolSize] is greater than zero, instances
+     * are pooled and reused between executions.
+     */
+    private class CompiledScript(
+        private val scriptClass: Class<GroovyDsl>,
+        poolSize: Int,
+    ) {
+        private val pool = if (poolSize > 0) ArrayBlockingQueue<GroovyDsl>(poolSize) else null
+
+        fun borrowInstance(): GroovyDsl = pool?.poll() ?: scriptClass.getDeclaredConstructor().newInstance()
+
+        fun returnInstance(instance: GroovyDsl) {
+            pool?.let {
+                instance.reset()
+                instance.binding = Binding()
+                pool.offer(instance)
+            }
+        }
+    }
+
     companion object {
         private val LOGGER = LogManager.getLogger(GroovyScriptServiceImpl::class.java)
         const val METRIC_SCRIPT_GROOVY_CACHE_ENTRIES = "script.groovy.cache.entries"
+        const val METRIC_SCRIPT_GROOVY_COMPILE_DURATION = "script.groovy.compile.duration"
+        const val METRIC_SCRIPT_GROOVY_EXECUTION_DURATION = "script.groovy.execution.duration"
+        private const val ENV_INSTANCE_POOL_SIZE = "IMPOSTER_GROOVY_INSTANCE_POOL_SIZE"
+        private const val DEFAULT_INSTANCE_POOL_SIZE = 16
+        private const val DIRECTIVE_PREFIX = "imposter:"
+        private const val DIRECTIVE_COMPILE_STATIC = "compileStatic"
+        private const val DIRECTIVE_TYPE_CHECKED = "typeChecked"
+        private const val DIRECTIVE_THREAD_SAFE = "threadSafe"
     }
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2016-2024.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.scripting.groovy.util
+
+import org.apache.logging.log4j.LogManager
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.nio.file.AtomicMoveNotSupportedException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.security.MessageDigest
+
+/**
+ * Persists the bytecode of compiled scripts, keyed by a hash of the script
+ * and its compilation settings, so scripts do not need to be compiled again
+ * after a restart.
+ */
+class PersistentClassCache(private val cacheDir: Path) {
+    private val logger = LogManager.getLogger(PersistentClassCache::class.java)
+
+    /**
+     * @return the compiled classes for the given key, or `null` if they are not cached
+     */
+    fun load(key: String): CompiledClasses? {
+        val file = cacheDir.resolve("$key$FILE_EXTENSION")
+        if (!Files.exists(file)) {
+            return null
+        }
+        return try {
+            DataInputStream(Files.newInputStream(file).buffered()).use { input ->
+                if (input.readInt() != FORMAT_VERSION) {
+                    return null
+                }
+                val mainClassName = input.readUTF()
+                val classes = (0 until input.readInt()).associate {
+                    val name = input.readUTF()
+                    val bytes = ByteArray(input.readInt()).also { input.readFully(it) }
+                    name to bytes
+                }
+                logger.trace("Loaded {} compiled classes from cache: {}", classes.size, file)
+                CompiledClasses(mainClassName, classes)
+            }
+        } catch (e: Exception) {
+            logger.warn("Ignoring unreadable compiled script cache file: {}", file, e)
+            null
+        }
+    }
+
+    fun store(key: String, compiled: CompiledClasses) {
+        try {
+            Files.createDirectories(cacheDir)
+            val file = cacheDir.resolve("$key$FILE_EXTENSION")
+            val tempFile = Files.createTempFile(cacheDir, key, ".tmp")
+
+            DataOutputStream(Files.newOutputStream(tempFile).buffered()).use { output ->
+                output.writeInt(FORMAT_VERSION)
+                output.writeUTF(compiled.mainClassName)
+                output.writeInt(compiled.classes.size)
+                compiled.classes.forEach { (name, bytes) ->
+                    output.writeUTF(name)
+                    output.writeInt(bytes.size)
+                    output.write(bytes)
+                }
+            }
+            try {
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE)
+            } catch (e: AtomicMoveNotSupportedException) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING)
+            }
+            logger.trace("Stored {} compiled classes in cache: {}", compiled.classes.size, file)
+
+        } catch (e: Exception) {
+            // the cache is an optimisation, so don't fail compilation
+            logger.warn("Failed to write compiled script cache for key: {} in: {}", key, cacheDir, e)
+        }
+    }
+
+    companion object {
+        private const val FORMAT_VERSION = 1
+        private const val FILE_EXTENSION = ".classes"
+
+        /**
+         * @return a hex-encoded SHA-256 hash of the given parts
+         */
+        fun buildKey(vararg parts: String): String {
+            val digest = MessageDigest.getInstance("SHA-256")
+            parts.forEach { part ->
+                digest.update(part.toByteArray(Charsets.UTF_8))
+                digest.update(0)
+            }
+            return digest.digest().joinToString("") { "%02x".format(it) }
+        }
+    }
+}
+
+/**
+ * The bytecode of the classes compiled from a script.
+ */
+class CompiledClasses(
+    val mainClassName: String,
+    val classes: Map<String, ByteArray>,
+) {
+    /**
+     * Defines the classes in a new class loader, with the given parent.
+     *
+     * @return the main class of the script
+     */
+    fun define(parent: ClassLoader): Class<*> = BytecodeClassLoader(parent, classes).loadClass(mainClassName)
+
+    private class BytecodeClassLoader(
+        parent: ClassLoader,
+        private val classes: Map<String, ByteArray>,
+    ) : ClassLoader(parent) {
+        override fun findClass(name: String): Class<*> {
+            val bytes = classes[name] ?: return super.findClass(name)
+            return defineClass(name, bytes, 0, bytes.size)
+        }
+    }
+}
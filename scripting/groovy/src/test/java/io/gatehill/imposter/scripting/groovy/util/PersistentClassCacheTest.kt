@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016-2021.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.scripting.groovy.util
+
+import groovy.lang.GroovyClassLoader
+import groovy.lang.Script
+import org.codehaus.groovy.control.CompilationUnit
+import org.codehaus.groovy.control.Phases
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import java.nio.file.Files
+
+/**
+ * Tests for [PersistentClassCache].
+ */
+class PersistentClassCacheTest {
+    @Test
+    fun `store and load compiled classes`() {
+        val cache = PersistentClassCache(Files.createTempDirectory("imposter-script-cache"))
+        val key = PersistentClassCache.buildKey("example")
+        Assertions.assertNull(cache.load(key), "Cache should be empty")
+
+        val groovyClassLoader = GroovyClassLoader()
+        val unit = CompilationUnit(groovyClassLoader)
+        val sourceUnit = unit.addSource("example.groovy", "[1, 2, 3].collect { it * 2 }.sum()")
+        unit.compile(Phases.CLASS_GENERATION)
+        cache.store(key, CompiledClasses(sourceUnit.ast.mainClassName, unit.classes.associate { it.name to it.bytes }))
+
+        val loaded = cache.load(key)
+        Assertions.assertNotNull(loaded, "Compiled classes should be cached")
+        Assertions.assertTrue(loaded!!.classes.size > 1, "Closure class should be cached")
+
+        val script = loaded.define(groovyClassLoader).getDeclaredConstructor().newInstance() as Script
+        Assertions.assertEquals(12, script.run())
+    }
+
+    @Test
+    fun `key depends on all parts`() {
+        Assertions.assertEquals(PersistentClassCache.buildKey("a", "b"), PersistentClassCache.buildKey("a", "b"))
+        Assertions.assertNotEquals(PersistentClassCache.buildKey("a", "b"), PersistentClassCache.buildKey("ab", ""))
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2016-2021.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.service
+
+import io.gatehill.imposter.scripting.AbstractBaseScriptTest
+import io.gatehill.imposter.scripting.groovy.service.GroovyScriptServiceImpl
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import javax.inject.Inject
+
+/**
+ * Tests compilation and instance reuse directives in Groovy scripts.
+ */
+class GroovyScriptDirectivesTest : AbstractBaseScriptTest() {
+    @Inject
+    private var service: GroovyScriptServiceImpl? = null
+
+    override fun getService() = service!!
+
+    override fun getScriptName() = "closure.groovy"
+
+    @Test
+    fun `execute statically compiled script`() {
+        val script = ScriptSource(
+            source = "static_inline.groovy",
+            code = """
+                // imposter:compileStatic
+                String greeting = binding.getVariable('greeting') as String
+                respond().withContent(greeting).withStatusCode(201)
+            """.trimIndent(),
+        )
+        val actual = getService().executeScript(script, buildScriptBindings(mapOf("greeting" to "hello")))
+
+        Assertions.assertEquals("hello", actual.content)
+        Assertions.assertEquals(201, actual.statusCode)
+    }
+
+    @Test
+    fun `statically compiled script rejects undeclared variables`() {
+        val script = ScriptSource(
+            source = "static_invalid_inline.groovy",
+            code = """
+                // imposter:compileStatic
+                respond().withContent(greeting)
+            """.trimIndent(),
+        )
+        Assertions.assertThrows(RuntimeException::class.java) {
+            getService().executeScript(script, buildScriptBindings(mapOf("greeting" to "hello")))
+        }
+    }
+
+    @Test
+    fun `reuse thread-safe script instances`() {
+        val script = ScriptSource(
+            source = "thread_safe_inline.groovy",
+            code = """
+                // imposter:threadSafe
+                respond().withContent(greeting)
+            """.trimIndent(),
+        )
+        val first = getService().executeScript(script, buildScriptBindings(mapOf("greeting" to "first")))
+        val second = getService().executeScript(script, buildScriptBindings(mapOf("greeting" to "second")))
+
+        Assertions.assertEquals("first", first.content)
+        Assertions.assertEquals("second", second.content)
+    }
+}
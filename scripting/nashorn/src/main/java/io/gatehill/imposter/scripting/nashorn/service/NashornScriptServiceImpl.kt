@@ -96,7 +96,11 @@ class NashornScriptServiceImpl : ScriptService, Plugin {
             throw UnsupportedOperationException("Standalone Nashorn JavaScript plugin is only supported on Java 11+.")
         }
 
-        scriptEngine = NashornScriptEngineFactory().scriptEngine as NashornScriptEngine
+        scriptEngine = ScriptUtil.compileCacheDir?.let { cacheDir ->
+            // persist compiled classes between restarts
+            System.setProperty("nashorn.persistent.code.cache", cacheDir.resolve("nashorn").toString())
+            NashornScriptEngineFactory().getScriptEngine("--persistent-code-cache") as NashornScriptEngine
+        } ?: NashornScriptEngineFactory().scriptEngine as NashornScriptEngine
 
         doIfMetricsEnabled(METRIC_SCRIPT_JS_CACHE_ENTRIES) { registry ->
             Gauge.builder(METRIC_SCRIPT_JS_CACHE_ENTRIES) { compiledScripts.size() }
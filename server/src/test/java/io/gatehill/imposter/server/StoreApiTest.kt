@@ -52,7 +52,10 @@ import org.hamcrest.Matchers.allOf
 import org.hamcrest.Matchers.any
 import org.hamcrest.Matchers.equalTo
 import org.hamcrest.Matchers.hasEntry
+import org.hamcrest.Matchers.hasKey
 import org.hamcrest.Matchers.not
+import org.hamcrest.Matchers.notNullValue
+import org.hamcrest.Matchers.nullValue
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
 
@@ -283,6 +286,40 @@ class StoreApiTest : BaseVerticleTest() {
             .body("$", hasEntry("foo", "bar"))
     }
 
+    /**
+     * Load items from the store a page at a time.
+     */
+    @Test
+    fun testGetPagesFromStore() {
+        RestAssured.given().`when`()
+            .pathParam("storeId", "pages")
+            .contentType(ContentType.JSON)
+            .body(mapOf("a" to "one", "b" to "two", "c" to "three"))
+            .post("/system/store/{storeId}")
+            .then()
+            .statusCode(equalTo(HttpUtil.HTTP_OK))
+
+        val cursor = RestAssured.given().`when`()
+            .pathParam("storeId", "pages")
+            .queryParam("limit", 2)
+            .get("/system/store/{storeId}")
+            .then()
+            .statusCode(equalTo(HttpUtil.HTTP_OK))
+            .body("$", allOf(hasEntry("a", "one"), hasEntry("b", "two"), not(hasKey("c"))))
+            .header("X-Imposter-Next-Cursor", notNullValue())
+            .extract().header("X-Imposter-Next-Cursor")
+
+        RestAssured.given().`when`()
+            .pathParam("storeId", "pages")
+            .queryParam("limit", 2)
+            .queryParam("cursor", cursor)
+            .get("/system/store/{storeId}")
+            .then()
+            .statusCode(equalTo(HttpUtil.HTTP_OK))
+            .body("$", allOf(hasEntry("c", "three"), not(hasKey("a"))))
+            .header("X-Imposter-Next-Cursor", nullValue())
+    }
+
     /**
      * Clear the contents of a store.
      */
@@ -44,11 +44,16 @@ package io.gatehill.imposter.store.core
 
 import io.gatehill.imposter.http.ExchangePhase
 import io.gatehill.imposter.service.DeferredOperationService
+import io.gatehill.imposter.store.model.StorePage
 import io.gatehill.imposter.util.MapUtil
 import org.apache.logging.log4j.LogManager
 import org.apache.logging.log4j.Logger
+import java.util.concurrent.CopyOnWriteArrayList
 
 /**
+ * Base store implementation. Writes made in the [ExchangePhase.RESPONSE_SENT] phase
+ * are coalesced in a [WriteBehindBuffer] and persisted in batches, via [saveItems].
+ *
  * @author Pete Cornish
  */
 abstract class AbstractStore(
@@ -56,6 +61,19 @@ abstract class AbstractStore(
 ) : Store {
     private val logger: Logger = LogManager.getLogger(AbstractStore::class.java)
 
+    private val deferredWriteListeners = CopyOnWriteArrayList<(keys: Collection<String>) -> Unit>()
+
+    private val writeBehindBufferDelegate = lazy {
+        WriteBehindBuffer(storeName, deferredOperationService) { items ->
+            try {
+                saveItems(items)
+            } finally {
+                deferredWriteListeners.forEach { listener -> listener(items.keys) }
+            }
+        }
+    }
+    private val writeBehindBuffer by writeBehindBufferDelegate
+
     override fun loadAsJson(key: String): String {
         return MapUtil.jsonify(load(key))
     }
@@ -65,18 +83,65 @@ abstract class AbstractStore(
             throw IllegalStateException("Cannot use deferred persistence for ephemeral store: $storeName of type: $typeDescription")
         }
         when (phase) {
-            ExchangePhase.REQUEST_RECEIVED -> saveItem(key, value)
+            ExchangePhase.REQUEST_RECEIVED -> {
+                discardDeferred(key)
+                saveItem(key, value)
+            }
             ExchangePhase.RESPONSE_SENT -> deferSave(key, value)
             else -> throw IllegalStateException("Unsupported exchange phase for store persistence: $phase")
         }
     }
 
+    /**
+     * Loads all matching items and sorts their keys. Implementations should
+     * override this if the backend supports paging natively.
+     */
+    override fun loadPage(keyPrefix: String?, cursor: String?, limit: Int): StorePage {
+        val items = keyPrefix?.let { loadByKeyPrefix(keyPrefix) } ?: loadAll()
+        val keys = items.keys.filter { cursor == null || it > cursor }.sorted()
+        val pageKeys = keys.take(limit)
+        return StorePage(
+            items = pageKeys.associateWith { items[it] },
+            nextCursor = if (keys.size > limit) pageKeys.last() else null,
+        )
+    }
+
+    final override fun delete(key: String) {
+        discardDeferred(key)
+        deleteItem(key)
+    }
+
+    /**
+     * Register a listener that is notified with the keys of each batch of deferred
+     * writes, once the batch has been persisted.
+     */
+    fun addDeferredWriteListener(listener: (keys: Collection<String>) -> Unit) {
+        deferredWriteListeners += listener
+    }
+
     private fun deferSave(key: String, value: Any?) {
         logger.debug("Deferring persistence of item: $key to store: $storeName")
-        deferredOperationService.defer("Write item: $key to store: $storeName") {
-            saveItem(key, value)
+        writeBehindBuffer.enqueue(key, value)
+    }
+
+    /**
+     * A direct write supersedes any pending deferred write for the same key.
+     */
+    private fun discardDeferred(key: String) {
+        if (writeBehindBufferDelegate.isInitialized()) {
+            writeBehindBuffer.discard(key)
         }
     }
 
     abstract fun saveItem(key: String, value: Any?)
+
+    /**
+     * Persist a batch of items. Implementations should override this if the
+     * backend supports a more efficient bulk write.
+     */
+    open fun saveItems(items: Map<String, Any?>) {
+        items.forEach { (key, value) -> saveItem(key, value) }
+    }
+
+    abstract fun deleteItem(key: String)
 }
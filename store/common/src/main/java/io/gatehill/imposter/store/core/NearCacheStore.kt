@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2016-2024.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.store.core
+
+import com.google.common.cache.Cache
+import com.google.common.cache.CacheBuilder
+import io.gatehill.imposter.http.ExchangePhase
+import io.gatehill.imposter.store.model.StorePage
+import io.gatehill.imposter.util.MapUtil
+import org.apache.logging.log4j.LogManager
+import java.util.concurrent.TimeUnit
+
+/**
+ * A delegating [Store] wrapper that holds recently loaded items in a local
+ * cache, to avoid a round trip to a remote store for repeated reads.
+ *
+ * Items expire after a fixed time and the cache is bounded in size. Writes and
+ * deletes made through this store invalidate the cached item, and are reported
+ * to the [invalidationPublisher], if set, so other nodes can do the same.
+ *
+ * A deferred write is only visible once it has been persisted, so a read between
+ * the write and its persistence may cache the previous value. If the delegate is an
+ * [AbstractStore], the item is invalidated again once the write has been persisted.
+ *
+ * @author Pete Cornish
+ */
+class NearCacheStore(
+    private val delegate: Store,
+    expiryMs: Long,
+    maxEntries: Long,
+    private val invalidationPublisher: ((key: String?) -> Unit)? = null,
+) : Store {
+    private val cache: Cache<String, CachedItem> = CacheBuilder.newBuilder()
+        .expireAfterWrite(expiryMs, TimeUnit.MILLISECONDS)
+        .maximumSize(maxEntries)
+        .build()
+
+    init {
+        (delegate as? AbstractStore)?.addDeferredWriteListener { keys ->
+            keys.forEach { key ->
+                invalidate(key)
+                invalidationPublisher?.invoke(key)
+            }
+        }
+    }
+
+    override val storeName: String
+        get() = delegate.storeName
+
+    override val typeDescription: String
+        get() = delegate.typeDescription
+
+    override val isEphemeral: Boolean
+        get() = delegate.isEphemeral
+
+    override fun save(key: String, value: Any?, phase: ExchangePhase) {
+        delegate.save(key, value, phase)
+        invalidate(key)
+        invalidationPublisher?.invoke(key)
+    }
+
+    override fun <T> load(key: String): T? {
+        @Suppress("UNCHECKED_CAST")
+        return cache.get(key) {
+            LOGGER.trace("Near cache miss for item with key: {} in store: {}", key, storeName)
+            CachedItem(delegate.load<Any>(key))
+        }.value as T?
+    }
+
+    override fun loadByKeys(keys: Collection<String>): Map<String, Any?> {
+        val cached = cache.getAllPresent(keys)
+        val missing = keys.filter { !cached.containsKey(it) }
+        val loaded = if (missing.isNotEmpty()) {
+            LOGGER.trace("Near cache miss for {} items in store: {}", missing.size, storeName)
+            delegate.loadByKeys(missing).also { items ->
+                missing.forEach { key -> cache.put(key, CachedItem(items[key])) }
+            }
+        } else {
+            emptyMap()
+        }
+        return keys.associateWith { key -> cached[key]?.value ?: loaded[key] }
+    }
+
+    override fun loadAsJson(key: String): String {
+        return MapUtil.jsonify(load(key))
+    }
+
+    override fun delete(key: String) {
+        delegate.delete(key)
+        invalidate(key)
+        invalidationPublisher?.invoke(key)
+    }
+
+    override fun loadAll(): Map<String, Any?> = delegate.loadAll()
+
+    override fun loadByKeyPrefix(keyPrefix: String): Map<String, Any?> = delegate.loadByKeyPrefix(keyPrefix)
+
+    override fun loadPage(keyPrefix: String?, cursor: String?, limit: Int): StorePage =
+        delegate.loadPage(keyPrefix, cursor, limit)
+
+    override fun hasItemWithKey(key: String): Boolean = load<Any>(key) != null
+
+    override fun count(): Int = delegate.count()
+
+    /**
+     * Invalidate the cached item with the given key, or all items if the key is `null`.
+     */
+    fun invalidate(key: String?) {
+        key?.let { cache.invalidate(key) } ?: cache.invalidateAll()
+    }
+
+    /**
+     * Wraps the item value, as the cache does not permit `null` values.
+     */
+    private class CachedItem(val value: Any?)
+
+    companion object {
+        private val LOGGER = LogManager.getLogger(NearCacheStore::class.java)
+    }
+}
@@ -43,6 +43,7 @@
 package io.gatehill.imposter.store.core
 
 import io.gatehill.imposter.http.ExchangePhase
+import io.gatehill.imposter.store.model.StorePage
 
 /**
  * A delegating [Store] wrapper that prepends a string to item keys
@@ -73,12 +74,27 @@ class PrefixedKeyStore(
 
     override fun <T> load(key: String): T? = delegate.load(buildKey(key))
 
+    override fun loadByKeys(keys: Collection<String>): Map<String, Any?> {
+        val items = delegate.loadByKeys(keys.map { buildKey(it) })
+        return keys.associateWith { items[buildKey(it)] }
+    }
+
     override fun loadAsJson(key: String): String {
         return delegate.loadAsJson(buildKey(key))
     }
 
     override fun loadByKeyPrefix(keyPrefix: String): Map<String, Any?> = delegate.loadByKeyPrefix(keyPrefix)
 
+    override fun loadPage(keyPrefix: String?, cursor: String?, limit: Int): StorePage {
+        val page = delegate.loadPage(buildKey(keyPrefix ?: ""), cursor?.let { buildKey(cursor) }, limit)
+
+        // strip out key prefix
+        return StorePage(
+            items = page.items.entries.associate { (key, value) -> key.substring(this.keyPrefix.length) to value },
+            nextCursor = page.nextCursor?.substring(this.keyPrefix.length),
+        )
+    }
+
     override fun delete(key: String) {
         delegate.delete(buildKey(key))
     }
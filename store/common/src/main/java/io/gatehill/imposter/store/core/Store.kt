@@ -43,6 +43,7 @@
 package io.gatehill.imposter.store.core
 
 import io.gatehill.imposter.http.ExchangePhase
+import io.gatehill.imposter.store.model.StorePage
 
 /**
  * @author Pete Cornish
@@ -58,10 +59,28 @@ interface Store {
         save(key, value, ExchangePhase.REQUEST_RECEIVED)
 
     fun <T> load(key: String): T?
+
+    /**
+     * Load the items with the given keys. Implementations should override this
+     * if the backend supports a more efficient bulk read.
+     *
+     * @return a map containing an entry for each key, with a `null` value for missing items
+     */
+    fun loadByKeys(keys: Collection<String>): Map<String, Any?> =
+        keys.associateWith { load<Any>(it) }
+
     fun loadAsJson(key: String): String
     fun delete(key: String)
     fun loadAll(): Map<String, Any?>
     fun loadByKeyPrefix(keyPrefix: String): Map<String, Any?>
+
+    /**
+     * Load up to [limit] items in key order, optionally restricted to keys
+     * starting with [keyPrefix]. To continue from a previous page, pass its
+     * [StorePage.nextCursor] as the [cursor].
+     */
+    fun loadPage(keyPrefix: String?, cursor: String?, limit: Int): StorePage
+
     fun hasItemWithKey(key: String): Boolean
     fun count(): Int
 }
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2016-2024.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.store.core
+
+import io.gatehill.imposter.config.util.EnvVars
+import io.gatehill.imposter.util.MetricsUtil
+import io.micrometer.core.instrument.Gauge
+import io.micrometer.core.instrument.Timer
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withTimeoutOrNull
+import org.apache.logging.log4j.LogManager
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * Coalesces deferred writes for a single store and flushes them in batches.
+ *
+ * Writes to the same key that occur before a flush are collapsed, with the last
+ * write winning. A flush occurs when the number of pending items reaches the batch
+ * size set by [ENV_VAR_BATCH_SIZE], or when the interval set by [ENV_VAR_FLUSH_INTERVAL]
+ * has elapsed since the first pending write, whichever happens first.
+ *
+ * At most one flush is in progress for a given buffer, so batches are persisted
+ * in the order they were drained. A write that is discarded while it is being
+ * flushed is waited for, so it cannot overwrite a later direct write to the same key.
+ *
+ * @author Pete Cornish
+ */
+class WriteBehindBuffer(
+    private val storeName: String,
+    private val scope: CoroutineScope,
+    private val batchSize: Int = defaultBatchSize,
+    private val flushIntervalMs: Long = defaultFlushIntervalMs,
+    private val flusher: (Map<String, Any?>) -> Unit,
+) {
+    private val pending = ConcurrentHashMap<String, PendingWrite>()
+    private val flushScheduled = AtomicBoolean(false)
+    private val batchFull = Channel<Unit>(Channel.CONFLATED)
+    private var flushTimer: Timer? = null
+    private val queueDepth = queueDepthFor(storeName)
+
+    /**
+     * Keys of the batch currently being flushed, guarded by [flushLock].
+     */
+    private val flushing = HashSet<String>()
+    private val flushLock = ReentrantLock()
+    private val flushCompleted = flushLock.newCondition()
+
+    init {
+        MetricsUtil.doIfMetricsEnabled(METRIC_FLUSH_DURATION) { registry ->
+            flushTimer = Timer.builder(METRIC_FLUSH_DURATION)
+                .description("Duration of write-behind batch flushes in seconds")
+                .tag("store", storeName)
+                .register(registry)
+        }
+    }
+
+    /**
+     * The number of writes waiting to be flushed.
+     */
+    val size: Int
+        get() = pending.size
+
+    /**
+     * Enqueue a write for the given key, replacing any pending write for the same key.
+     * This method does not block.
+     */
+    fun enqueue(key: String, value: Any?) {
+        if (null == pending.put(key, PendingWrite(value))) {
+            queueDepth.incrementAndGet()
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            scope.launch { drain() }
+        } else if (pending.size >= batchSize) {
+            batchFull.trySend(Unit)
+        }
+    }
+
+    /**
+     * Discard any pending write for the given key, such as when the key is
+     * subsequently written or deleted directly.
+     *
+     * If a write for the key is being flushed, this blocks until the flush
+     * completes, so the caller's direct write is applied after it.
+     */
+    fun discard(key: String) {
+        if (null != pending.remove(key)) {
+            queueDepth.decrementAndGet()
+        }
+        flushLock.withLock {
+            while (key in flushing) {
+                flushCompleted.await()
+            }
+        }
+    }
+
+    private suspend fun drain() {
+        try {
+            do {
+                if (pending.size < batchSize) {
+                    withTimeoutOrNull(flushIntervalMs) { batchFull.receive() }
+                }
+                flush()
+            } while (pending.isNotEmpty())
+        } finally {
+            flushScheduled.set(false)
+        }
+
+        // a write may have been enqueued after the last check, but before the flag was reset
+        if (pending.isNotEmpty() && flushScheduled.compareAndSet(false, true)) {
+            scope.launch { drain() }
+        }
+    }
+
+    private fun flush() {
+        val batch = LinkedHashMap<String, Any?>()
+        flushLock.withLock {
+            // keys are marked as flushing as they are removed, so a discard cannot miss them
+            for (key in pending.keys) {
+                pending.remove(key)?.let { write ->
+                    queueDepth.decrementAndGet()
+                    batch[key] = write.value
+                    flushing += key
+                }
+                if (batch.size >= batchSize) {
+                    break
+                }
+            }
+        }
+        if (batch.isEmpty()) {
+            return
+        }
+
+        LOGGER.trace("Flushing {} deferred writes to store: {}", batch.size, storeName)
+        try {
+            flushTimer?.record(Runnable { flusher(batch) }) ?: flusher(batch)
+        } catch (e: Exception) {
+            LOGGER.error("Deferred write of ${batch.size} items to store: $storeName failed", e)
+        } finally {
+            flushLock.withLock {
+                flushing.clear()
+                flushCompleted.signalAll()
+            }
+        }
+    }
+
+    private class PendingWrite(val value: Any?)
+
+    companion object {
+        private val LOGGER = LogManager.getLogger(WriteBehindBuffer::class.java)
+        private const val ENV_VAR_BATCH_SIZE = "IMPOSTER_STORE_WRITE_BEHIND_BATCH_SIZE"
+        private const val ENV_VAR_FLUSH_INTERVAL = "IMPOSTER_STORE_WRITE_BEHIND_INTERVAL_MS"
+        private const val METRIC_QUEUE_DEPTH = "store.write.behind.queue.depth"
+        private const val METRIC_FLUSH_DURATION = "store.write.behind.flush.duration"
+
+        private val defaultBatchSize: Int =
+            EnvVars.getEnv(ENV_VAR_BATCH_SIZE)?.toInt() ?: 100
+
+        private val defaultFlushIntervalMs: Long =
+            EnvVars.getEnv(ENV_VAR_FLUSH_INTERVAL)?.toLong() ?: 25L
+
+        /**
+         * Pending writes, by store name. Shared by successive buffers for the same
+         * store, such as when a store is cleared and rebuilt, so each store has a
+         * single gauge.
+         */
+        private val queueDepths = ConcurrentHashMap<String, AtomicInteger>()
+
+        private fun queueDepthFor(storeName: String): AtomicInteger = queueDepths.computeIfAbsent(storeName) {
+            AtomicInteger().also { depth ->
+                MetricsUtil.doIfMetricsEnabled(METRIC_QUEUE_DEPTH) { registry ->
+                    Gauge.builder(METRIC_QUEUE_DEPTH) { depth.get() }
+                        .description("The number of deferred store writes waiting to be flushed")
+                        .tag("store", storeName)
+                        .register(registry)
+                }
+            }
+        }
+    }
+}
@@ -44,6 +44,7 @@ package io.gatehill.imposter.store.factory
 
 import io.gatehill.imposter.config.util.EnvVars.Companion.getEnv
 import io.gatehill.imposter.service.DeferredOperationService
+import io.gatehill.imposter.store.core.NearCacheStore
 import io.gatehill.imposter.store.core.PrefixedKeyStore
 import io.gatehill.imposter.store.core.Store
 import io.gatehill.imposter.store.factory.AbstractStoreFactory.Companion.ENV_VAR_KEY_PREFIX
@@ -57,25 +58,34 @@ import java.util.concurrent.ConcurrentHashMap
  *
  * Ephemeral stores are always backed by an in-memory implementation, regardless of store implementation.
  *
+ * Remote stores can be fronted by a local [NearCacheStore], by setting the [ENV_VAR_NEAR_CACHE]
+ * environment variable to `true`.
+ *
  * @author Pete Cornish
  */
 abstract class AbstractStoreFactory (
     private val deferredOperationService: DeferredOperationService,
 ) : StoreFactory {
     protected val stores: MutableMap<String, Store> = ConcurrentHashMap()
+    private val nearCaches: MutableMap<String, NearCacheStore> = ConcurrentHashMap()
     private val keyPrefix: String?
 
     init {
         keyPrefix = getEnv(ENV_VAR_KEY_PREFIX)?.let { "$it." }
     }
 
+    /**
+     * Whether stores built by this factory are remote, and so can be fronted by a near cache.
+     */
+    protected open val isRemote: Boolean = true
+
     override fun getStoreByName(storeName: String, ephemeral: Boolean): Store {
         val store: Store = stores.getOrPut(storeName) {
             LOGGER.trace("Initialising new store: {}", storeName)
             return@getOrPut if (ephemeral) {
-                InMemoryStore(deferredOperationService, storeName, true)
+                InMemoryStore(deferredOperationService, storeName, true, expirySecs = -1, maxEntries = -1, maxBytes = -1)
             } else {
-                val rawStore = buildNewStore(storeName)
+                val rawStore = wrapNearCache(buildNewStore(storeName))
                 keyPrefix?.let { PrefixedKeyStore(keyPrefix, rawStore) } ?: rawStore
             }
         }
@@ -83,10 +93,56 @@ abstract class AbstractStoreFactory (
         return store
     }
 
+    private fun wrapNearCache(store: Store): Store {
+        if (!isRemote || getEnv(ENV_VAR_NEAR_CACHE)?.toBoolean() != true) {
+            return store
+        }
+        val expiryMs = getEnv(ENV_VAR_NEAR_CACHE_EXPIRY_MS)?.toLong() ?: DEFAULT_NEAR_CACHE_EXPIRY_MS
+        val maxEntries = getEnv(ENV_VAR_NEAR_CACHE_ENTRIES)?.toLong() ?: DEFAULT_NEAR_CACHE_ENTRIES
+        LOGGER.debug("Enabling near cache for store: {} with expiry: {}ms and max entries: {}", store.storeName, expiryMs, maxEntries)
+
+        val nearCache = NearCacheStore(store, expiryMs, maxEntries) { key ->
+            publishInvalidation(store.storeName, key)
+        }
+        nearCaches[store.storeName] = nearCache
+        onNearCacheCreated(store.storeName)
+        return nearCache
+    }
+
     override fun clearStore(storeName: String, ephemeral: Boolean) {
         stores.remove(storeName)?.let {
             LOGGER.trace("Cleared store: {}", storeName)
         }
+        if (!ephemeral) {
+            nearCaches.remove(storeName)?.let {
+                publishInvalidation(storeName, null)
+            }
+        }
+    }
+
+    /**
+     * Called when a near cache is created for a store. Implementations that support
+     * multiple nodes can use this to subscribe to invalidations from other nodes.
+     */
+    protected open fun onNearCacheCreated(storeName: String) {}
+
+    /**
+     * Notify other nodes that an item in a store has changed, so any near cached
+     * copy is invalidated. If [key] is `null`, all items in the store are invalidated.
+     *
+     * The default implementation does nothing, which is sufficient for a single node.
+     */
+    protected open fun publishInvalidation(storeName: String, key: String?) {}
+
+    /**
+     * Invalidate the near cached copy of an item, such as when notified of
+     * a change by another node. If [key] is `null`, all items in the store are invalidated.
+     */
+    protected fun invalidateNearCache(storeName: String, key: String?) {
+        nearCaches[storeName]?.let { nearCache ->
+            LOGGER.trace("Invalidating near cache for store: {} with key: {}", storeName, key)
+            nearCache.invalidate(key)
+        }
     }
 
     /**
@@ -96,6 +152,11 @@ abstract class AbstractStoreFactory (
 
     companion object {
         private const val ENV_VAR_KEY_PREFIX = "IMPOSTER_STORE_KEY_PREFIX"
+        private const val ENV_VAR_NEAR_CACHE = "IMPOSTER_STORE_NEAR_CACHE"
+        private const val ENV_VAR_NEAR_CACHE_EXPIRY_MS = "IMPOSTER_STORE_NEAR_CACHE_EXPIRY_MS"
+        private const val ENV_VAR_NEAR_CACHE_ENTRIES = "IMPOSTER_STORE_NEAR_CACHE_ENTRIES"
+        private const val DEFAULT_NEAR_CACHE_EXPIRY_MS = 5_000L
+        private const val DEFAULT_NEAR_CACHE_ENTRIES = 1_000L
         private val LOGGER = LogManager.getLogger(AbstractStoreFactory::class.java)
     }
 }
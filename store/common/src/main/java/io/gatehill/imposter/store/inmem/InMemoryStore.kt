@@ -43,14 +43,28 @@
 
 package io.gatehill.imposter.store.inmem
 
+import io.gatehill.imposter.config.util.EnvVars
 import io.gatehill.imposter.service.DeferredOperationService
 import io.gatehill.imposter.store.core.AbstractStore
+import io.gatehill.imposter.store.model.StorePage
 import org.apache.logging.log4j.LogManager
-import java.util.concurrent.ConcurrentHashMap
+import java.util.NavigableMap
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.ConcurrentSkipListMap
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
 
 /**
- * An in-memory store implementation. Does not have any support for item expiration,
- * so data must be managed by the caller.
+ * An in-memory store implementation.
+ *
+ * Items are held in a concurrent, sorted map, so key prefix queries and paging
+ * only visit matching keys.
+ *
+ * Items can be given an expiry, in seconds, by setting the [ENV_VAR_EXPIRY] environment
+ * variable. The store can also be bounded by number of items, using [ENV_VAR_MAX_ENTRIES],
+ * and by approximate size in bytes, using [ENV_VAR_MAX_BYTES]. When a bound is exceeded,
+ * the oldest items are evicted first. By default, items do not expire and the store
+ * is unbounded, so data must be managed by the caller.
  *
  * @author Pete Cornish
  */
@@ -58,58 +72,257 @@ class InMemoryStore(
     deferredOperationService: DeferredOperationService,
     override val storeName: String,
     override val isEphemeral: Boolean,
+    private val expirySecs: Long = defaultExpirySecs,
+    private val maxEntries: Long = defaultMaxEntries,
+    private val maxBytes: Long = defaultMaxBytes,
 ) : AbstractStore(deferredOperationService) {
-    private var modified = false
-    private val store: MutableMap<String, Any> by lazy { ConcurrentHashMap() }
     override val typeDescription = "inmem"
 
+    private val store = ConcurrentSkipListMap<String, Entry>()
+    private val entryCount = AtomicInteger()
+    private val byteCount = AtomicLong()
+    private val sequence = AtomicLong()
+
+    private val bounded = maxEntries > 0 || maxBytes > 0
+
+    /**
+     * Keys in order of insertion, used to choose items to evict. Only
+     * maintained if the store is bounded.
+     */
+    private val insertionOrder = ConcurrentLinkedQueue<KeyRef>()
+    private val insertionOrderSize = AtomicInteger()
+
+    @Volatile
+    private var lastPurge = System.currentTimeMillis()
+
     override fun saveItem(key: String, value: Any?) {
         LOGGER.trace("Saving item with key: {} to store: {}", key, storeName)
-        modified = true
-        value?.let { store[key] = value } ?: store.remove(key)
+        if (null == value) {
+            removeEntry(key)
+            return
+        }
+
+        val expiresAt = if (expirySecs > 0) System.currentTimeMillis() + expirySecs * 1000 else 0L
+        val entry = Entry(value, expiresAt, estimateSize(key, value), sequence.incrementAndGet())
+        val previous = store.put(key, entry)
+        if (null == previous) {
+            entryCount.incrementAndGet()
+        }
+        byteCount.addAndGet(entry.size - (previous?.size ?: 0L))
+
+        if (bounded) {
+            insertionOrder.add(KeyRef(key, entry.sequence))
+            insertionOrderSize.incrementAndGet()
+            evictIfNeeded()
+        }
+        if (expirySecs > 0) {
+            purgeExpiredIfDue()
+        }
     }
 
     override fun <T> load(key: String): T? {
         LOGGER.trace("Loading item with key: {} from store: {}", key, storeName)
         @Suppress("UNCHECKED_CAST")
-        return if (!modified) null else store[key] as T?
+        return getLiveEntry(key)?.value as T?
     }
 
-    override fun delete(key: String) {
+    override fun deleteItem(key: String) {
         LOGGER.trace("Deleting item with key: {} from store: {}", key, storeName)
-        if (modified) {
-            store.remove(key)
-        }
+        removeEntry(key)
     }
 
     override fun loadAll(): Map<String, Any?> {
         LOGGER.trace("Loading all items in store: {}", storeName)
-        return if (!modified) emptyMap() else store
+        return collectLive(store)
     }
 
     override fun loadByKeyPrefix(keyPrefix: String): Map<String, Any?> {
         LOGGER.trace("Loading items in store: $storeName with key prefix: $keyPrefix")
-        if (!modified) {
-            return emptyMap()
+        val items = collectLive(store.subMap(keyPrefix, true, keyPrefix + KEY_RANGE_END, false))
+        LOGGER.trace("{} items found in store: $storeName with key prefix: $keyPrefix", items.size)
+        return items
+    }
+
+    override fun loadPage(keyPrefix: String?, cursor: String?, limit: Int): StorePage {
+        LOGGER.trace("Loading page of {} items in store: {} with key prefix: {} after: {}", limit, storeName, keyPrefix, cursor)
+        val rangeEnd = keyPrefix?.let { it + KEY_RANGE_END }
+        if (null != cursor && null != rangeEnd && cursor >= rangeEnd) {
+            // the cursor is past every key with the prefix
+            return StorePage(emptyMap(), null)
+        }
+        var range: NavigableMap<String, Entry> = if (null != cursor && (null == keyPrefix || cursor >= keyPrefix)) {
+            store.tailMap(cursor, false)
+        } else if (null != keyPrefix) {
+            store.tailMap(keyPrefix, true)
         } else {
-            val items = store.filterKeys { it.startsWith(keyPrefix) }
-            LOGGER.trace("{} items found in store: $storeName with key prefix: $keyPrefix", items.size)
-            return items
+            store
+        }
+        rangeEnd?.let { range = range.headMap(it, false) }
+
+        val items = LinkedHashMap<String, Any?>()
+        val now = System.currentTimeMillis()
+        val iterator = range.entries.iterator()
+        while (items.size < limit && iterator.hasNext()) {
+            val (key, entry) = iterator.next()
+            if (!entry.isExpired(now)) {
+                items[key] = entry.value
+            }
         }
+        return StorePage(items, if (iterator.hasNext() && items.isNotEmpty()) items.keys.last() else null)
     }
 
     override fun hasItemWithKey(key: String): Boolean {
         LOGGER.trace("Checking for item with key: {} in store: {}", key, storeName)
-        return if (!modified) false else store.containsKey(key)
+        return null != getLiveEntry(key)
     }
 
     override fun count(): Int {
-        val count = if (!modified) 0 else store.size
+        if (expirySecs > 0) {
+            purgeExpired()
+        }
+        val count = entryCount.get()
         LOGGER.trace("Returning item count {} from store: {}", count, storeName)
         return count
     }
 
+    private fun getLiveEntry(key: String): Entry? {
+        val entry = store[key] ?: return null
+        if (entry.isExpired(System.currentTimeMillis())) {
+            removeEntry(key, entry)
+            return null
+        }
+        return entry
+    }
+
+    private fun collectLive(items: Map<String, Entry>): Map<String, Any?> {
+        val now = System.currentTimeMillis()
+        val live = LinkedHashMap<String, Any?>()
+        items.forEach { (key, entry) ->
+            if (!entry.isExpired(now)) {
+                live[key] = entry.value
+            }
+        }
+        return live
+    }
+
+    private fun removeEntry(key: String) {
+        store.remove(key)?.let { onRemoved(it) }
+    }
+
+    private fun removeEntry(key: String, entry: Entry) {
+        if (store.remove(key, entry)) {
+            onRemoved(entry)
+        }
+    }
+
+    private fun onRemoved(entry: Entry) {
+        entryCount.decrementAndGet()
+        byteCount.addAndGet(-entry.size)
+    }
+
+    /**
+     * Evicts the oldest items until the store is within its bounds.
+     */
+    private fun evictIfNeeded() {
+        while ((maxEntries > 0 && entryCount.get() > maxEntries) || (maxBytes > 0 && byteCount.get() > maxBytes)) {
+            val ref = insertionOrder.poll() ?: break
+            insertionOrderSize.decrementAndGet()
+
+            // skip references to items that have since been replaced or removed
+            store[ref.key]?.takeIf { it.sequence == ref.sequence }?.let { entry ->
+                LOGGER.trace("Evicting item with key: {} from store: {}", ref.key, storeName)
+                removeEntry(ref.key, entry)
+            }
+        }
+
+        // drop references to replaced or removed items, if they dominate the queue
+        if (insertionOrderSize.get() > 2 * entryCount.get() + INSERTION_ORDER_SLACK) {
+            insertionOrder.removeIf { ref -> store[ref.key]?.sequence != ref.sequence }
+            insertionOrderSize.set(insertionOrder.size)
+        }
+    }
+
+    private fun purgeExpiredIfDue() {
+        val now = System.currentTimeMillis()
+        if (now - lastPurge >= PURGE_INTERVAL_MS) {
+            lastPurge = now
+            purgeExpired()
+        }
+    }
+
+    private fun purgeExpired() {
+        val now = System.currentTimeMillis()
+        store.forEach { (key, entry) ->
+            if (entry.isExpired(now)) {
+                removeEntry(key, entry)
+            }
+        }
+    }
+
+    private class Entry(
+        val value: Any,
+
+        /**
+         * Epoch milliseconds after which the item has expired, or `0` if it does not expire.
+         */
+        val expiresAt: Long,
+
+        /**
+         * Approximate size in bytes.
+         */
+        val size: Long,
+
+        val sequence: Long,
+    ) {
+        fun isExpired(now: Long) = expiresAt in 1 until now
+    }
+
+    private class KeyRef(val key: String, val sequence: Long)
+
     companion object {
         private val LOGGER = LogManager.getLogger(InMemoryStore::class.java)
+        private const val ENV_VAR_EXPIRY = "IMPOSTER_STORE_INMEM_EXPIRY"
+        private const val ENV_VAR_MAX_ENTRIES = "IMPOSTER_STORE_INMEM_MAX_ENTRIES"
+        private const val ENV_VAR_MAX_BYTES = "IMPOSTER_STORE_INMEM_MAX_BYTES"
+        private const val PURGE_INTERVAL_MS = 1_000L
+        private const val INSERTION_ORDER_SLACK = 1024
+
+        /**
+         * Sorts after any other character in a key, so can be used as the
+         * exclusive upper bound of a key prefix range.
+         */
+        private const val KEY_RANGE_END = '\uffff'
+
+        private val defaultExpirySecs = EnvVars.getEnv(ENV_VAR_EXPIRY)?.toLong() ?: -1L
+        private val defaultMaxEntries = EnvVars.getEnv(ENV_VAR_MAX_ENTRIES)?.toLong() ?: -1L
+        private val defaultMaxBytes = EnvVars.getEnv(ENV_VAR_MAX_BYTES)?.toLong() ?: -1L
+
+        /**
+         * Estimates the heap size of an item, for the purpose of enforcing the byte bound.
+         */
+        internal fun estimateSize(key: String, value: Any?): Long =
+            ENTRY_OVERHEAD + estimateValueSize(key) + estimateValueSize(value)
+
+        private fun estimateValueSize(value: Any?, depth: Int = 0): Long = when (value) {
+            null -> 0
+            is CharSequence -> STRING_OVERHEAD + 2L * value.length
+            is ByteArray -> ARRAY_OVERHEAD + value.size
+            is Number, is Boolean, is Char -> BOXED_SIZE
+            is Map<*, *> -> if (depth >= MAX_ESTIMATE_DEPTH) OBJECT_SIZE else {
+                value.entries.sumOf { (k, v) -> ENTRY_OVERHEAD + estimateValueSize(k, depth + 1) + estimateValueSize(v, depth + 1) }
+            }
+            is Collection<*> -> if (depth >= MAX_ESTIMATE_DEPTH) OBJECT_SIZE else {
+                ARRAY_OVERHEAD + value.sumOf { REFERENCE_SIZE + estimateValueSize(it, depth + 1) }
+            }
+            else -> OBJECT_SIZE
+        }
+
+        private const val ENTRY_OVERHEAD = 64L
+        private const val STRING_OVERHEAD = 40L
+        private const val ARRAY_OVERHEAD = 16L
+        private const val BOXED_SIZE = 16L
+        private const val REFERENCE_SIZE = 8L
+        private const val OBJECT_SIZE = 64L
+        private const val MAX_ESTIMATE_DEPTH = 4
     }
 }
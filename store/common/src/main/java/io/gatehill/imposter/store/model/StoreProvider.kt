@@ -48,6 +48,9 @@ import io.gatehill.imposter.store.service.StoreInterceptor
 import io.gatehill.imposter.store.util.StoreUtil
 
 /**
+ * Opens stores for a script execution. Opened stores are cached, so opening
+ * the same store more than once returns the same instance.
+ *
  * @author Pete Cornish
  */
 class StoreProvider(
@@ -55,7 +58,11 @@ class StoreProvider(
     private val storeInterceptor: StoreInterceptor?,
     private val requestId: String,
 ) {
-    fun open(storeName: String): Store {
+    private val openStores = mutableMapOf<String, Store>()
+
+    fun open(storeName: String): Store = openStores.getOrPut(storeName) { openStore(storeName) }
+
+    private fun openStore(storeName: String): Store {
         var store = if (StoreUtil.isRequestScopedStore(storeName)) {
             val requestStoreName = StoreUtil.buildRequestStoreName(requestId)
             storeFactory.getStoreByName(requestStoreName, true)
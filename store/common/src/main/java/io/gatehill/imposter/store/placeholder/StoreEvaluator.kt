@@ -43,7 +43,9 @@
 
 package io.gatehill.imposter.store.placeholder
 
+import io.gatehill.imposter.expression.eval.BatchExpressionEvaluator
 import io.gatehill.imposter.placeholder.HttpExpressionEvaluator
+import io.gatehill.imposter.store.core.Store
 import io.gatehill.imposter.store.factory.StoreFactory
 import io.gatehill.imposter.store.util.StoreUtil
 import io.gatehill.imposter.util.ResourceUtil
@@ -58,37 +60,28 @@ import org.apache.logging.log4j.LogManager
  * ```
  * stores.storename.itemkey
  * ```
+ * Where an input contains several store expressions, the items are loaded
+ * with a single batch read per store, ahead of evaluation.
  */
 class StoreEvaluator(
     private val storeFactory: StoreFactory,
-) : HttpExpressionEvaluator<Any>() {
+) : HttpExpressionEvaluator<Any>(), BatchExpressionEvaluator<Any> {
     override val name = "store"
 
     override fun eval(expression: String, context: Map<String, *>): Any? {
         try {
-            // remove prefix if present
-            val parts = expression.substringAfter(evaluatorPrefix).split(
-                delimiters = arrayOf("."),
-                ignoreCase = false,
-                limit = 2,
-            )
-            if (parts.size < 2) {
+            val (storeName, itemKey) = parseExpression(expression) ?: run {
                 LOGGER.warn("Could not parse store expression: $expression")
                 return ""
             }
 
-            val storeName = parts[0]
-            val itemKey = parts[1]
-
-            val store = if (StoreUtil.isRequestScopedStore(storeName)) {
-                val httpExchange = getHttpExchange(context)
-                val uniqueRequestId = httpExchange.get<String>(ResourceUtil.RC_REQUEST_ID_KEY)!!
-                val requestStoreName = StoreUtil.buildRequestStoreName(uniqueRequestId)
-                storeFactory.getStoreByName(requestStoreName, true)
-            } else {
-                storeFactory.getStoreByName(storeName, false)
+            @Suppress("UNCHECKED_CAST")
+            val prefetched = (context[PREFETCHED_ITEMS_KEY] as Map<String, Map<String, Any?>>?)?.get(storeName)
+            if (null != prefetched && prefetched.containsKey(itemKey)) {
+                return prefetched[itemKey]
             }
 
+            val store = resolveStore(storeName, context)
             val itemValue = store.load<Any>(itemKey)
             LOGGER.trace("Loaded value for key: {} in store: {} as: {}", itemKey, storeName, itemValue)
             return itemValue
@@ -98,8 +91,46 @@ class StoreEvaluator(
         }
     }
 
+    override fun prefetch(expressions: Collection<String>, context: Map<String, *>): Map<String, Any> {
+        val keysByStore = expressions.mapNotNull { parseExpression(it) }
+            .groupBy({ it.first }, { it.second })
+
+        val items = keysByStore.mapValues { (storeName, itemKeys) ->
+            val store = resolveStore(storeName, context)
+            store.loadByKeys(itemKeys.distinct()).also {
+                LOGGER.trace("Prefetched {} items from store: {}", it.size, storeName)
+            }
+        }
+        return mapOf(PREFETCHED_ITEMS_KEY to items)
+    }
+
+    /**
+     * @return the store name and item key, or `null` if the expression is invalid
+     */
+    private fun parseExpression(expression: String): Pair<String, String>? {
+        // remove prefix if present
+        val parts = expression.substringAfter(evaluatorPrefix).split(
+            delimiters = arrayOf("."),
+            ignoreCase = false,
+            limit = 2,
+        )
+        return if (parts.size < 2) null else parts[0] to parts[1]
+    }
+
+    private fun resolveStore(storeName: String, context: Map<String, *>): Store {
+        return if (StoreUtil.isRequestScopedStore(storeName)) {
+            val httpExchange = getHttpExchange(context)
+            val uniqueRequestId = httpExchange.get<String>(ResourceUtil.RC_REQUEST_ID_KEY)!!
+            val requestStoreName = StoreUtil.buildRequestStoreName(uniqueRequestId)
+            storeFactory.getStoreByName(requestStoreName, true)
+        } else {
+            storeFactory.getStoreByName(storeName, false)
+        }
+    }
+
     companion object {
         private val LOGGER = LogManager.getLogger(StoreEvaluator::class.java)
         private const val evaluatorPrefix = "stores."
+        private const val PREFETCHED_ITEMS_KEY = "store.prefetchedItems"
     }
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2016-2024.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.store.service
+
+import com.fasterxml.jackson.core.JsonGenerator
+import io.gatehill.imposter.http.HttpExchange
+import io.gatehill.imposter.http.util.ResponseOutputStream
+import io.gatehill.imposter.store.core.Store
+import io.gatehill.imposter.store.model.StorePage
+import io.gatehill.imposter.util.HttpUtil
+import io.gatehill.imposter.util.MapUtil
+import io.vertx.core.Vertx
+import org.apache.logging.log4j.LogManager
+import java.util.concurrent.Callable
+
+/**
+ * Writes the items in a store to the response as a JSON object, a page at a time.
+ *
+ * Each page is read from the store on a worker thread, so a slow store does not
+ * block the event loop. The next page is only read once the previous page has
+ * been written and the response's write queue has drained, so at most one page
+ * is held in memory, regardless of how quickly the client reads the response.
+ *
+ * The response must support streaming chunks; see [io.gatehill.imposter.http.HttpResponse.streamsChunks].
+ *
+ * @author Pete Cornish
+ */
+internal class StoreItemJsonStreamer(
+    private val vertx: Vertx,
+    private val pageSize: Int = DEFAULT_PAGE_SIZE,
+) {
+    fun stream(httpExchange: HttpExchange, store: Store, keyPrefix: String?) {
+        val response = httpExchange.response
+        check(response.streamsChunks) { "Response does not support streaming" }
+        response.putHeader(HttpUtil.CONTENT_TYPE, HttpUtil.CONTENT_TYPE_JSON)
+
+        val output = ResponseOutputStream(response)
+
+        // the response is only ended once the whole object has been written
+        val generator = MapUtil.JSON_MAPPER.createGenerator(output)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+
+        fun fail(e: Throwable) {
+            if (output.committed) {
+                // status and headers have already been sent
+                LOGGER.error("Error streaming items from store: ${store.storeName}", e)
+                response.close()
+            } else {
+                httpExchange.fail(e)
+            }
+        }
+
+        fun writePage(page: StorePage) {
+            page.items.forEach { (key, value) ->
+                value?.let {
+                    generator.writeFieldName(key)
+                    MapUtil.JSON_MAPPER.writeValue(generator, value)
+                }
+            }
+            generator.flush()
+        }
+
+        fun streamFrom(cursor: String?) {
+            vertx.executeBlocking(Callable { store.loadPage(keyPrefix, cursor, pageSize) }, false).onComplete { result ->
+                if (result.failed()) {
+                    fail(result.cause())
+                    return@onComplete
+                }
+                try {
+                    val page = result.result()
+                    writePage(page)
+
+                    val nextCursor = page.nextCursor
+                    if (null == nextCursor) {
+                        generator.writeEndObject()
+                        generator.close()
+                        output.close()
+                    } else if (response.writeQueueFull) {
+                        response.drainHandler { streamFrom(nextCursor) }
+                    } else {
+                        streamFrom(nextCursor)
+                    }
+                } catch (e: Exception) {
+                    fail(e)
+                }
+            }
+        }
+
+        try {
+            generator.writeStartObject()
+            streamFrom(null)
+        } catch (e: Exception) {
+            fail(e)
+        }
+    }
+
+    companion object {
+        private val LOGGER = LogManager.getLogger(StoreItemJsonStreamer::class.java)
+        const val DEFAULT_PAGE_SIZE = 500
+    }
+}
@@ -54,8 +54,10 @@ import io.gatehill.imposter.plugin.config.PluginConfig
 import io.gatehill.imposter.service.HandlerService
 import io.gatehill.imposter.store.core.Store
 import io.gatehill.imposter.store.factory.StoreFactory
+import io.gatehill.imposter.store.util.StoreUtil
 import io.gatehill.imposter.util.HttpUtil
 import io.gatehill.imposter.util.MapUtil
+import io.vertx.core.Vertx
 import org.apache.logging.log4j.LogManager
 import java.util.*
 import javax.inject.Inject
@@ -63,15 +65,26 @@ import javax.inject.Inject
 /**
  * Provides CRUD operations on stores and items via a RESTful API.
  *
+ * Listing the items in a store streams them in key order. Setting the `limit`
+ * query parameter returns a single page of items instead; if more items remain,
+ * the cursor for the next page is returned in the [HEADER_NEXT_CURSOR] header,
+ * and can be passed as the `cursor` query parameter.
+ *
+ * If the server cannot stream the response, such as on AWS Lambda, listing the
+ * items returns at most [MAX_UNSTREAMED_ITEMS] items, with the cursor for the
+ * remaining items in the [HEADER_NEXT_CURSOR] header.
+ *
  * @author Pete Cornish
  */
 class StoreRestApiServiceImpl @Inject constructor(
     private val handlerService: HandlerService,
     private val storeFactory: StoreFactory,
+    vertx: Vertx,
     engineLifecycle: EngineLifecycleHooks,
 ) : EngineLifecycleListener {
 
     private val resourceMatcher = SingletonResourceMatcher.instance
+    private val itemStreamer = StoreItemJsonStreamer(vertx)
 
     init {
         engineLifecycle.registerListener(this)
@@ -102,14 +115,35 @@ class StoreRestApiServiceImpl @Inject constructor(
             }
 
             if (httpExchange.isAcceptHeaderEmpty() || httpExchange.acceptsMimeType(HttpUtil.CONTENT_TYPE_JSON)) {
-                val items = request.getQueryParam("keyPrefix")?.let { keyPrefix ->
-                    LOGGER.debug("Listing items in store: {} with key prefix: {}", storeName, keyPrefix)
-                    store.loadByKeyPrefix(keyPrefix)
-                } ?: run {
-                    LOGGER.debug("Listing all items in store: {}", storeName)
-                    store.loadAll()
+                val keyPrefix = request.getQueryParam("keyPrefix")
+                val limitParam = request.getQueryParam("limit")
+                val cursorParam = request.getQueryParam("cursor")
+
+                if (null != limitParam || null != cursorParam) {
+                    val limit = limitParam?.toIntOrNull() ?: DEFAULT_PAGE_SIZE
+                    val cursor = cursorParam?.let { StoreUtil.decodeCursor(it) }
+                    if (limit <= 0 || (null != cursorParam && null == cursor)) {
+                        httpExchange.response
+                            .setStatusCode(HttpUtil.HTTP_BAD_REQUEST)
+                            .putHeader(HttpUtil.CONTENT_TYPE, HttpUtil.CONTENT_TYPE_PLAIN_TEXT)
+                            .end("Invalid limit or cursor")
+                        return@buildAndWrap
+                    }
+                    LOGGER.debug("Listing page of {} items in store: {} with key prefix: {}", limit, storeName, keyPrefix)
+                    val page = store.loadPage(keyPrefix, cursor, limit)
+                    page.nextCursor?.let { httpExchange.response.putHeader(HEADER_NEXT_CURSOR, StoreUtil.encodeCursor(it)) }
+                    serialiseBodyAsJson(httpExchange, page.items)
+
+                } else if (httpExchange.response.streamsChunks) {
+                    LOGGER.debug("Listing all items in store: {} with key prefix: {}", storeName, keyPrefix)
+                    itemStreamer.stream(httpExchange, store, keyPrefix)
+
+                } else {
+                    LOGGER.debug("Listing up to {} items in store: {} with key prefix: {}", MAX_UNSTREAMED_ITEMS, storeName, keyPrefix)
+                    val page = store.loadPage(keyPrefix, null, MAX_UNSTREAMED_ITEMS)
+                    page.nextCursor?.let { httpExchange.response.putHeader(HEADER_NEXT_CURSOR, StoreUtil.encodeCursor(it)) }
+                    serialiseBodyAsJson(httpExchange, page.items)
                 }
-                serialiseBodyAsJson(httpExchange, items)
 
             } else {
                 // client doesn't accept JSON
@@ -255,5 +289,12 @@ class StoreRestApiServiceImpl @Inject constructor(
 
     companion object {
         private val LOGGER = LogManager.getLogger(StoreRestApiServiceImpl::class.java)
+        const val HEADER_NEXT_CURSOR = "X-Imposter-Next-Cursor"
+        private const val DEFAULT_PAGE_SIZE = 100
+
+        /**
+         * The maximum number of items listed in a single response, if it cannot be streamed.
+         */
+        private const val MAX_UNSTREAMED_ITEMS = 1000
     }
 }
@@ -43,6 +43,7 @@
 package io.gatehill.imposter.store.util
 
 import io.gatehill.imposter.config.util.EnvVars
+import java.util.Base64
 
 /**
  * @author Pete Cornish
@@ -64,4 +65,19 @@ object StoreUtil {
      */
     val activeDriver: String
         get() = EnvVars.getEnv(envStoreDriver) ?: defaultStoreDriver
+
+    /**
+     * Encodes a store page cursor so it is opaque to, and safe for use by, API clients.
+     */
+    fun encodeCursor(cursor: String): String =
+        Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.toByteArray(Charsets.UTF_8))
+
+    /**
+     * @return the decoded cursor, or `null` if it is not a valid cursor
+     */
+    fun decodeCursor(cursor: String): String? = try {
+        String(Base64.getUrlDecoder().decode(cursor), Charsets.UTF_8)
+    } catch (e: IllegalArgumentException) {
+        null
+    }
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2016-2024.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.store.core
+
+import io.gatehill.imposter.http.ExchangePhase
+import io.gatehill.imposter.service.DeferredOperationService
+import io.gatehill.imposter.store.inmem.InMemoryStore
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.util.concurrent.CopyOnWriteArrayList
+
+/**
+ * Tests for [NearCacheStore].
+ *
+ * @author Pete Cornish
+ */
+class NearCacheStoreTest {
+    private lateinit var delegateStore: InMemoryStore
+    private lateinit var store: NearCacheStore
+    private val invalidations = CopyOnWriteArrayList<String?>()
+
+    @BeforeEach
+    fun setUp() {
+        delegateStore = InMemoryStore(DeferredOperationService(), "test", false)
+        store = NearCacheStore(delegateStore, 60_000, 100) { key -> invalidations += key }
+    }
+
+    @Test
+    fun `serves repeated reads from cache`() {
+        delegateStore.save("foo", "bar")
+        assertEquals("bar", store.load("foo"))
+
+        // bypass the near cache
+        delegateStore.save("foo", "baz")
+        assertEquals("bar", store.load("foo"))
+
+        store.invalidate("foo")
+        assertEquals("baz", store.load("foo"))
+    }
+
+    @Test
+    fun `caches missing items`() {
+        assertNull(store.load("foo"))
+        delegateStore.save("foo", "bar")
+        assertNull(store.load("foo"))
+
+        store.invalidate(null)
+        assertEquals("bar", store.load("foo"))
+    }
+
+    @Test
+    fun `invalidates on local writes`() {
+        store.save("foo", "bar")
+        assertEquals("bar", store.load("foo"))
+
+        store.save("foo", "baz")
+        assertEquals("baz", store.load("foo"))
+
+        store.delete("foo")
+        assertNull(store.load("foo"))
+
+        assertEquals(listOf("foo", "foo", "foo"), invalidations)
+    }
+
+    @Test
+    fun `invalidates deferred writes once persisted`() {
+        assertNull(store.load("foo"))
+
+        // a read before the deferred write is persisted caches the previous value
+        store.save("foo", "bar", ExchangePhase.RESPONSE_SENT)
+        store.load<String>("foo")
+
+        val deadline = System.currentTimeMillis() + 5_000
+        while (store.load<String>("foo") != "bar" && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10)
+        }
+        assertEquals("bar", store.load("foo"))
+        assertTrue(invalidations.size >= 2, "Invalidation should be published again once persisted")
+    }
+}
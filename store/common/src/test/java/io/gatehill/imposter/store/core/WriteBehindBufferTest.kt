@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2016-2024.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.store.core
+
+import io.gatehill.imposter.util.supervisedIOCoroutineScope
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import kotlin.concurrent.thread
+
+/**
+ * Tests for [WriteBehindBuffer].
+ *
+ * @author Pete Cornish
+ */
+class WriteBehindBufferTest {
+    private val batches = CopyOnWriteArrayList<Map<String, Any?>>()
+
+    @Test
+    fun `coalesces writes to the same key`() = runBlocking {
+        val buffer = WriteBehindBuffer("test", supervisedIOCoroutineScope, batchSize = 100, flushIntervalMs = 50) {
+            batches += it
+        }
+        buffer.enqueue("foo", "first")
+        buffer.enqueue("foo", "second")
+        buffer.enqueue("bar", null)
+
+        awaitFlush(buffer)
+
+        assertEquals(1, batches.size, "Writes should be flushed in a single batch")
+        assertEquals(mapOf("foo" to "second", "bar" to null), batches.first())
+    }
+
+    @Test
+    fun `flushes when batch size is reached`() = runBlocking {
+        val buffer = WriteBehindBuffer("test", supervisedIOCoroutineScope, batchSize = 2, flushIntervalMs = 60_000) {
+            batches += it
+        }
+        buffer.enqueue("foo", 1)
+        buffer.enqueue("bar", 2)
+
+        awaitFlush(buffer)
+
+        assertEquals(1, batches.size, "Full batch should be flushed before the interval elapses")
+        assertEquals(mapOf("foo" to 1, "bar" to 2), batches.first())
+    }
+
+    @Test
+    fun `discards superseded writes`() = runBlocking {
+        val buffer = WriteBehindBuffer("test", supervisedIOCoroutineScope, batchSize = 100, flushIntervalMs = 50) {
+            batches += it
+        }
+        buffer.enqueue("foo", 1)
+        buffer.enqueue("bar", 2)
+        buffer.discard("foo")
+
+        awaitFlush(buffer)
+
+        assertEquals(mapOf("bar" to 2), batches.first())
+    }
+
+    @Test
+    fun `discard waits for in-progress flush of the key`() = runBlocking {
+        val flushStarted = CountDownLatch(1)
+        val releaseFlush = CountDownLatch(1)
+        val buffer = WriteBehindBuffer("test", supervisedIOCoroutineScope, batchSize = 1, flushIntervalMs = 50) {
+            flushStarted.countDown()
+            releaseFlush.await()
+            batches += it
+        }
+        buffer.enqueue("foo", 1)
+        assertTrue(flushStarted.await(5, TimeUnit.SECONDS), "Flush should start")
+
+        val discarded = CountDownLatch(1)
+        thread {
+            buffer.discard("foo")
+            discarded.countDown()
+        }
+        assertFalse(discarded.await(200, TimeUnit.MILLISECONDS), "Discard should wait for the flush")
+
+        releaseFlush.countDown()
+        assertTrue(discarded.await(5, TimeUnit.SECONDS), "Discard should complete after the flush")
+        assertEquals(mapOf("foo" to 1), batches.first())
+    }
+
+    private suspend fun awaitFlush(buffer: WriteBehindBuffer) {
+        repeat(50) {
+            if (buffer.size == 0 && batches.isNotEmpty()) {
+                return
+            }
+            delay(100)
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016-2024.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.store.placeholder
+
+import io.gatehill.imposter.expression.util.ExpressionUtil
+import io.gatehill.imposter.http.HttpExchange
+import io.gatehill.imposter.placeholder.HttpExpressionEvaluator
+import io.gatehill.imposter.service.DeferredOperationService
+import io.gatehill.imposter.store.factory.StoreFactory
+import io.gatehill.imposter.store.inmem.InMemoryStore
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.any
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.spy
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+
+/**
+ * Tests for [StoreEvaluator].
+ */
+class StoreEvaluatorTest {
+    @Test
+    fun `loads multiple items in a single batch`() {
+        val store = spy(InMemoryStore(DeferredOperationService(), "orders", false))
+        store.save("id", "123")
+        store.save("status", "shipped")
+
+        val storeFactory = mock<StoreFactory> {
+            on { getStoreByName("orders", false) } doReturn store
+        }
+        val evaluator = StoreEvaluator(storeFactory)
+
+        val result = ExpressionUtil.eval(
+            input = "\${stores.orders.id} is \${stores.orders.status}\${stores.orders.missing:-}",
+            evaluators = mapOf("stores" to evaluator),
+            context = mapOf(HttpExpressionEvaluator.HTTP_EXCHANGE_KEY to mock<HttpExchange>()),
+            onUnsupported = ExpressionUtil.UnsupportedBehaviour.IGNORE,
+        )
+
+        assertEquals("123 is shipped", result)
+        verify(store, times(1)).loadByKeys(any())
+        verify(store, never()).load<Any>(any())
+    }
+}
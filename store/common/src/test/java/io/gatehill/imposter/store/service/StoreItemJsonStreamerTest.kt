@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2016-2024.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.store.service
+
+import io.gatehill.imposter.http.HttpExchange
+import io.gatehill.imposter.http.HttpResponse
+import io.gatehill.imposter.service.DeferredOperationService
+import io.gatehill.imposter.store.core.Store
+import io.gatehill.imposter.store.inmem.InMemoryStore
+import io.gatehill.imposter.store.model.StorePage
+import io.gatehill.imposter.util.MapUtil
+import io.vertx.core.Vertx
+import io.vertx.core.buffer.Buffer
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotNull
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.any
+import org.mockito.kotlin.doAnswer
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicReference
+
+/**
+ * Tests for [StoreItemJsonStreamer].
+ */
+class StoreItemJsonStreamerTest {
+    private lateinit var vertx: Vertx
+    private lateinit var store: Store
+    private val pageLoads = AtomicInteger()
+
+    /**
+     * The number of pages loaded when each chunk was written.
+     */
+    private val chunkPageLoads = CopyOnWriteArrayList<Int>()
+    private val body = Buffer.buffer()
+    private val ended = CountDownLatch(1)
+    private val writeQueueFull = AtomicBoolean(false)
+    private val drainHandler = AtomicReference<() -> Unit>()
+
+    @BeforeEach
+    fun setUp() {
+        vertx = Vertx.vertx()
+        val delegate = InMemoryStore(DeferredOperationService(), "test", false)
+        (0 until ITEM_COUNT).forEach { delegate.save("item_%04d".format(it), "x".repeat(100)) }
+
+        store = object : Store by delegate {
+            override fun loadPage(keyPrefix: String?, cursor: String?, limit: Int): StorePage {
+                pageLoads.incrementAndGet()
+                return delegate.loadPage(keyPrefix, cursor, limit)
+            }
+        }
+    }
+
+    @AfterEach
+    fun tearDown() {
+        vertx.close()
+    }
+
+    @Test
+    fun `streams items a page at a time`() {
+        StoreItemJsonStreamer(vertx).stream(buildExchange(), store, "item_")
+
+        assertTrue(ended.await(5, TimeUnit.SECONDS), "Response should be ended")
+        assertEquals(3, pageLoads.get(), "Items should be loaded in pages")
+        assertTrue(chunkPageLoads.size > 1, "Output should be written in chunks")
+        assertEquals(1, chunkPageLoads.first(), "Output should be written before the next page is loaded")
+
+        val items = MapUtil.JSON_MAPPER.readValue(body.bytes, Map::class.java)
+        assertEquals(ITEM_COUNT, items.size)
+    }
+
+    @Test
+    fun `waits for write queue to drain before loading next page`() {
+        writeQueueFull.set(true)
+        StoreItemJsonStreamer(vertx).stream(buildExchange(), store, null)
+
+        val deadline = System.currentTimeMillis() + 5_000
+        while (null == drainHandler.get() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10)
+        }
+        val handler = drainHandler.getAndSet(null)
+        assertNotNull(handler, "Drain handler should be set")
+        assertEquals(1, pageLoads.get(), "Next page should not be loaded until the queue drains")
+
+        writeQueueFull.set(false)
+        vertx.runOnContext { handler!!() }
+
+        assertTrue(ended.await(5, TimeUnit.SECONDS), "Response should be ended")
+        assertEquals(3, pageLoads.get())
+    }
+
+    private fun buildExchange(): HttpExchange {
+        val response = mock<HttpResponse> {
+            on { streamsChunks } doReturn true
+            on { putHeader(any(), any()) } doReturn mock
+            on { this.writeQueueFull } doAnswer { writeQueueFull.get() }
+            on { drainHandler(any()) } doAnswer {
+                @Suppress("UNCHECKED_CAST")
+                drainHandler.set(it.arguments[0] as () -> Unit)
+            }
+            on { write(any()) } doAnswer {
+                chunkPageLoads += pageLoads.get()
+                body.appendBuffer(it.arguments[0] as Buffer)
+            }
+            on { end(any<Buffer>()) } doAnswer {
+                body.appendBuffer(it.arguments[0] as Buffer)
+                ended.countDown()
+            }
+        }
+        return mock {
+            on { this.response } doReturn response
+        }
+    }
+
+    companion object {
+        private const val ITEM_COUNT = 1200
+    }
+}
@@ -44,6 +44,7 @@ package io.gatehill.imposter.store.dynamodb
 
 import io.gatehill.imposter.service.DeferredOperationService
 import io.gatehill.imposter.store.core.AbstractStore
+import io.gatehill.imposter.store.model.StorePage
 import io.gatehill.imposter.store.dynamodb.config.Settings
 import io.gatehill.imposter.store.dynamodb.model.ResultWrapper
 import io.gatehill.imposter.util.MapUtil
@@ -51,10 +52,15 @@ import org.apache.logging.log4j.LogManager
 import software.amazon.awssdk.core.SdkBytes
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest
 import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest
 import software.amazon.awssdk.services.dynamodb.model.GetItemRequest
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes
 import software.amazon.awssdk.services.dynamodb.model.PutItemRequest
+import software.amazon.awssdk.services.dynamodb.model.PutRequest
 import software.amazon.awssdk.services.dynamodb.model.QueryRequest
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest
 import java.text.NumberFormat
 import java.time.LocalDateTime
 import java.time.ZoneOffset
@@ -80,12 +86,40 @@ class DynamoDBStore(
 
     override fun saveItem(key: String, value: Any?) {
         logger.trace("Saving item with key: {} to store: {}", key, storeName)
-        val valueAttribute = convertToAttributeValue(value)
+        ddb.putItem(PutItemRequest.builder().tableName(tableName).item(buildItemData(key, value)).build())
+    }
+
+    override fun saveItems(items: Map<String, Any?>) {
+        logger.trace("Saving {} items to store: {}", items.size, storeName)
+        items.entries.chunked(MAX_BATCH_WRITE_ITEMS).forEach { chunk ->
+            var requestItems: Map<String, List<WriteRequest>> = mapOf(
+                tableName to chunk.map { (key, value) ->
+                    WriteRequest.builder().putRequest(
+                        PutRequest.builder().item(buildItemData(key, value)).build()
+                    ).build()
+                }
+            )
+            var attempt = 0
+            while (requestItems.isNotEmpty()) {
+                if (attempt > 0) {
+                    if (attempt > MAX_BATCH_WRITE_RETRIES) {
+                        val unprocessed = requestItems.values.sumOf { it.size }
+                        throw IllegalStateException("Unable to write $unprocessed items to store: $storeName after $attempt attempts")
+                    }
+                    Thread.sleep(BATCH_WRITE_RETRY_BACKOFF_MS * attempt)
+                }
+                val result = ddb.batchWriteItem(BatchWriteItemRequest.builder().requestItems(requestItems).build())
+                requestItems = if (result.hasUnprocessedItems()) result.unprocessedItems() else emptyMap()
+                attempt++
+            }
+        }
+    }
 
+    private fun buildItemData(key: String, value: Any?): Map<String, AttributeValue> {
         val itemData = mutableMapOf(
             "StoreName" to AttributeValue.builder().s(storeName).build(),
             "Key" to AttributeValue.builder().s(key).build(),
-            "Value" to valueAttribute
+            "Value" to convertToAttributeValue(value)
         )
         if (Settings.Ttl.enabled) {
             itemData[Settings.Ttl.attributeName] = AttributeValue.builder().n(
@@ -95,7 +129,7 @@ class DynamoDBStore(
                     .toString()
             ).build()
         }
-        ddb.putItem(PutItemRequest.builder().tableName(tableName).item(itemData).build())
+        return itemData
     }
 
     private fun convertToAttributeValue(value: Any?): AttributeValue {
@@ -137,7 +171,41 @@ class DynamoDBStore(
         }
     }
 
-    override fun delete(key: String) {
+    override fun loadByKeys(keys: Collection<String>): Map<String, Any?> {
+        logger.trace("Loading {} items from store: {}", keys.size, storeName)
+        val found = mutableMapOf<String, Any?>()
+        keys.distinct().chunked(MAX_BATCH_GET_ITEMS).forEach { chunk ->
+            var requestItems: Map<String, KeysAndAttributes> = mapOf(
+                tableName to KeysAndAttributes.builder().keys(
+                    chunk.map { key ->
+                        mapOf(
+                            "StoreName" to AttributeValue.builder().s(storeName).build(),
+                            "Key" to AttributeValue.builder().s(key).build()
+                        )
+                    }
+                ).build()
+            )
+            var attempt = 0
+            while (requestItems.isNotEmpty()) {
+                if (attempt > 0) {
+                    if (attempt > MAX_BATCH_GET_RETRIES) {
+                        throw IllegalStateException("Unable to read items from store: $storeName after $attempt attempts")
+                    }
+                    Thread.sleep(BATCH_GET_RETRY_BACKOFF_MS * attempt)
+                }
+                val result = ddb.batchGetItem(BatchGetItemRequest.builder().requestItems(requestItems).build())
+                result.responses()[tableName]?.forEach { item ->
+                    val (key, value) = destructure<Any>(item)
+                    found[key] = value
+                }
+                requestItems = if (result.hasUnprocessedKeys()) result.unprocessedKeys() else emptyMap()
+                attempt++
+            }
+        }
+        return keys.associateWith { found[it] }
+    }
+
+    override fun deleteItem(key: String) {
         logger.trace("Deleting item with key: {} from store: {}", key, storeName)
         ddb.deleteItem(
             DeleteItemRequest.builder().tableName(tableName).key(
@@ -177,6 +245,34 @@ class DynamoDBStore(
         return items.associate { destructure(it) }
     }
 
+    override fun loadPage(keyPrefix: String?, cursor: String?, limit: Int): StorePage {
+        logger.trace("Loading page of {} items in store: {} with key prefix: {} after: {}", limit, storeName, keyPrefix, cursor)
+
+        val attributeValues = mutableMapOf(
+            ":storeName" to AttributeValue.builder().s(storeName).build(),
+        )
+        val query = QueryRequest.builder().tableName(tableName).limit(limit)
+        keyPrefix?.let {
+            attributeValues[":keyPrefix"] = AttributeValue.builder().s(keyPrefix).build()
+            query.keyConditionExpression("StoreName = :storeName AND begins_with(#k, :keyPrefix)")
+                .expressionAttributeNames(mapOf("#k" to "Key"))
+        } ?: query.keyConditionExpression("StoreName = :storeName")
+
+        query.expressionAttributeValues(attributeValues)
+        cursor?.let {
+            query.exclusiveStartKey(
+                mapOf(
+                    "StoreName" to AttributeValue.builder().s(storeName).build(),
+                    "Key" to AttributeValue.builder().s(cursor).build()
+                )
+            )
+        }
+
+        val result = ddb.query(query.build())
+        val nextCursor = if (result.hasLastEvaluatedKey()) result.lastEvaluatedKey()["Key"]?.s() else null
+        return StorePage(result.items().associate { destructure<Any>(it) }, nextCursor)
+    }
+
     override fun hasItemWithKey(key: String): Boolean {
         logger.trace("Checking for item with key: {} in store: {}", key, storeName)
         return load<Any>(key) != null
@@ -231,4 +327,20 @@ class DynamoDBStore(
         m.entries.associate { (key, value) ->
             key to convertFromAttributeValue<Any>(attributeKey, value)
         }
+
+    companion object {
+        /**
+         * The maximum number of items DynamoDB accepts in a single batch write.
+         */
+        private const val MAX_BATCH_WRITE_ITEMS = 25
+        private const val MAX_BATCH_WRITE_RETRIES = 5
+        private const val BATCH_WRITE_RETRY_BACKOFF_MS = 50L
+
+        /**
+         * The maximum number of items DynamoDB returns from a single batch read.
+         */
+        private const val MAX_BATCH_GET_ITEMS = 100
+        private const val MAX_BATCH_GET_RETRIES = 5
+        private const val BATCH_GET_RETRY_BACKOFF_MS = 50L
+    }
 }
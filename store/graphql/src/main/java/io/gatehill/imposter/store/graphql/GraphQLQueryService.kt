@@ -55,6 +55,8 @@ import io.gatehill.imposter.plugin.config.PluginConfig
 import io.gatehill.imposter.store.factory.StoreFactory
 import io.gatehill.imposter.store.graphql.model.GraphQLRequest
 import io.gatehill.imposter.store.graphql.model.StoreItem
+import io.gatehill.imposter.store.graphql.model.StoreItemPage
+import io.gatehill.imposter.store.util.StoreUtil
 import io.gatehill.imposter.util.HttpUtil
 import io.gatehill.imposter.util.MapUtil
 import io.gatehill.imposter.util.makeFuture
@@ -107,6 +109,24 @@ class GraphQLQueryService @Inject constructor(
                 }
             }
 
+            query("itemsPage") {
+                description = "Returns a page of items in key order. Pass the nextCursor of a page as the cursor to continue."
+                resolver { storeName: String, keyPrefix: String?, limit: Int?, cursor: String? ->
+                    val store = storeFactory.getStoreByName(storeName, false)
+                    val page = store.loadPage(
+                        keyPrefix,
+                        cursor?.let { StoreUtil.decodeCursor(cursor) ?: throw IllegalArgumentException("Invalid cursor: $cursor") },
+                        limit ?: DEFAULT_PAGE_SIZE
+                    )
+
+                    val items = page.items.entries.map {
+                        StoreItem(it.key, it.value.toString())
+                    }
+                    logger.debug("GraphQL page query produced ${items.size} results")
+                    return@resolver StoreItemPage(items, page.nextCursor?.let { StoreUtil.encodeCursor(it) })
+                }
+            }
+
             // workaround for GraphiQL bug: https://github.com/pgutkowski/KGraphQL/issues/17
             mutation("doNothing") {
                 description = "Does nothing"
@@ -198,5 +218,6 @@ class GraphQLQueryService @Inject constructor(
 
     companion object {
         private const val requestPath = "/system/store/graphql"
+        private const val DEFAULT_PAGE_SIZE = 100
     }
 }
@@ -0,0 +1,3 @@
+package io.gatehill.imposter.store.graphql.model
+
+data class StoreItemPage(val items: List<StoreItem>, val nextCursor: String?)
@@ -158,6 +158,39 @@ class GraphQLQueryServiceTest {
         assertEquals("StoreItem", firstItem.getString("__typename"))
     }
 
+    /**
+     * Use GraphQL to query a page of items in a store.
+     */
+    @Test
+    fun `query page of items`() {
+        val store = storeFactory.getStoreByName("test", true)
+        store.save("foo", "bar")
+        store.save("baz", "qux")
+        store.save("corge", "grault")
+
+        val query = """
+            query {
+              itemsPage(storeName: "test", limit: 2) {
+                items {
+                  key
+                  value
+                }
+                nextCursor
+              }
+            }
+        """.trimIndent()
+        val body = queryAndReadResponse(query)
+
+        val page = JsonObject(body).getJsonObject("data")?.getJsonObject("itemsPage")
+        assertNotNull(page, "Page should be present in GraphQL response")
+
+        val items = page!!.getJsonArray("items")
+        assertEquals(2, items.size())
+        assertEquals("baz", items.getJsonObject(0).getString("key"))
+        assertEquals("corge", items.getJsonObject(1).getString("key"))
+        assertNotNull(page.getString("nextCursor"), "Page should have a cursor")
+    }
+
     private fun queryAndReadResponse(query: String): String {
         runBlocking {
             service.execute(query, "{}", httpExchange, CompletableFuture()).join()
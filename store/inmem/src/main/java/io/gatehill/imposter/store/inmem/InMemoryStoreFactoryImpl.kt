@@ -58,6 +58,7 @@ import io.gatehill.imposter.store.factory.AbstractStoreFactory
 class InMemoryStoreFactoryImpl @Inject constructor(
     private val deferredOperationService: DeferredOperationService,
 ) : AbstractStoreFactory(deferredOperationService), Plugin {
+    override val isRemote = false
 
     override fun buildNewStore(storeName: String): Store {
         return InMemoryStore(deferredOperationService, storeName, false)
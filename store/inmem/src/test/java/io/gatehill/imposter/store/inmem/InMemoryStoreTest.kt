@@ -44,6 +44,8 @@ package io.gatehill.imposter.store.inmem
 
 import io.gatehill.imposter.service.DeferredOperationService
 import io.gatehill.imposter.store.AbstractStoreFactoryTest
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
 
 /**
  * Tests for in-memory store implementation.
@@ -54,4 +56,63 @@ class InMemoryStoreTest : AbstractStoreFactoryTest() {
     override val typeDescription = "inmem"
 
     override fun buildFactory() = InMemoryStoreFactoryImpl(DeferredOperationService())
+
+    @Test
+    fun testItemsExpire() {
+        val store = InMemoryStore(DeferredOperationService(), "expiry", false, expirySecs = 1)
+        store.save("foo", "bar")
+        Assertions.assertEquals("bar", store.load("foo"))
+
+        Thread.sleep(1_100)
+        Assertions.assertNull(store.load("foo"), "Item should have expired")
+        Assertions.assertEquals(0, store.count())
+    }
+
+    @Test
+    fun testEvictOldestOverMaxEntries() {
+        val store = InMemoryStore(DeferredOperationService(), "max-entries", false, maxEntries = 2)
+        store.save("one", 1)
+        store.save("two", 2)
+        store.save("one", 11)
+        store.save("three", 3)
+
+        Assertions.assertEquals(2, store.count())
+        Assertions.assertFalse(store.hasItemWithKey("two"), "Oldest item should be evicted")
+        Assertions.assertEquals(11, store.load("one"))
+        Assertions.assertEquals(3, store.load("three"))
+    }
+
+    @Test
+    fun testEvictOverMaxBytes() {
+        val itemSize = InMemoryStore.estimateSize("key_0", "a".repeat(100))
+        val store = InMemoryStore(DeferredOperationService(), "max-bytes", false, maxBytes = itemSize * 3)
+        (0 until 5).forEach { store.save("key_$it", "a".repeat(100)) }
+
+        Assertions.assertEquals(3, store.count())
+        Assertions.assertEquals(setOf("key_2", "key_3", "key_4"), store.loadAll().keys)
+    }
+
+    @Test
+    fun testClearedEphemeralStoreIsNotReused() {
+        val store = factory.getStoreByName("request_1", true)
+        store.save("foo", "bar")
+        factory.clearStore("request_1", true)
+
+        // a late write through a reference to the cleared store must not be visible to other requests
+        val next = factory.getStoreByName("request_2", true)
+        store.save("baz", "qux")
+        Assertions.assertNotSame(store, next, "Cleared ephemeral store should not be reused")
+        Assertions.assertEquals(0, next.count(), "New ephemeral store should be empty")
+    }
+
+    @Test
+    fun testLoadPageWithCursorPastKeyPrefix() {
+        val store = InMemoryStore(DeferredOperationService(), "paging", false)
+        store.save("foo_1", "bar")
+        store.save("zzz", "qux")
+
+        val page = store.loadPage("foo_", "zzz", 10)
+        Assertions.assertTrue(page.items.isEmpty(), "No items should follow a cursor past the key prefix")
+        Assertions.assertNull(page.nextCursor)
+    }
 }
@@ -45,16 +45,27 @@ package io.gatehill.imposter.store.redis
 import io.gatehill.imposter.config.util.EnvVars
 import io.gatehill.imposter.service.DeferredOperationService
 import io.gatehill.imposter.store.core.AbstractStore
+import io.gatehill.imposter.store.model.StorePage
 import io.gatehill.imposter.store.redis.RedisStore.Companion.ENV_VAR_EXPIRY
 import org.apache.logging.log4j.LogManager
+import org.redisson.api.RLexSortedSet
 import org.redisson.api.RMapCache
 import org.redisson.api.RedissonClient
+import java.util.Arrays
 import java.util.concurrent.TimeUnit
 
 /**
  * A Redis store implementation. Supports configurable item expiry in seconds,
  * by setting the [ENV_VAR_EXPIRY] environment variable.
  *
+ * Item keys can also be held in a lexicographically sorted index, so that key prefix
+ * queries only touch matching keys, rather than scanning the whole keyspace.
+ * The index is enabled by setting the [ENV_VAR_KEY_INDEX] environment variable
+ * to `true`. As items expire independently of the index, entries for expired items
+ * are only removed from the index when they are encountered by a query, so the
+ * index grows with every distinct key saved between queries. For this reason, it
+ * is disabled by default.
+ *
  * @author Pete Cornish
  */
 class RedisStore(
@@ -65,10 +76,19 @@ class RedisStore(
     override val typeDescription = "redis"
     override val isEphemeral = false
     private val store: RMapCache<String, Any>
+    private val keyIndex: RLexSortedSet?
     private var expirationSecs = 0
 
+    @Volatile
+    private var keyIndexChecked = false
+
     init {
         store = redisson.getMapCache(storeName)
+        keyIndex = if (EnvVars.getEnv(ENV_VAR_KEY_INDEX)?.toBoolean() == true) {
+            redisson.getLexSortedSet(keyIndexName(storeName))
+        } else {
+            null
+        }
         val expiration = EnvVars.getEnv(ENV_VAR_EXPIRY)?.toInt() ?: DEFAULT_EXPIRY_SECS
         if (expiration < 0) {
             expirationSecs = Int.MAX_VALUE
@@ -84,20 +104,45 @@ class RedisStore(
         if (null == value) {
             // can't save a null map value - remove existing if present
             store.remove(key)
+            keyIndex?.remove(key)
         } else {
+            // index first, so an item is never present without its index entry
+            keyIndex?.add(key)
             store.put(key, value, expirationSecs.toLong(), TimeUnit.SECONDS)
         }
     }
 
+    override fun saveItems(items: Map<String, Any?>) {
+        LOGGER.trace("Saving {} items to store: {}", items.size, storeName)
+        val (removals, updates) = items.entries.partition { it.value == null }
+        if (updates.isNotEmpty()) {
+            keyIndex?.addAll(updates.map { it.key })
+            store.putAll(updates.associate { it.key to it.value!! }, expirationSecs.toLong(), TimeUnit.SECONDS)
+        }
+        if (removals.isNotEmpty()) {
+            // can't save a null map value - remove existing if present
+            val removedKeys = removals.map { it.key }
+            store.fastRemove(*removedKeys.toTypedArray())
+            keyIndex?.removeAll(removedKeys)
+        }
+    }
+
     override fun <T> load(key: String): T? {
         LOGGER.trace("Loading item with key: {} from store: {}", key, storeName)
         @Suppress("UNCHECKED_CAST")
         return store[key] as T?
     }
 
-    override fun delete(key: String) {
+    override fun loadByKeys(keys: Collection<String>): Map<String, Any?> {
+        LOGGER.trace("Loading {} items from store: {}", keys.size, storeName)
+        val found = store.getAll(keys.toSet())
+        return keys.associateWith { found[it] }
+    }
+
+    override fun deleteItem(key: String) {
         LOGGER.trace("Deleting item with key: {} from store: {}", key, storeName)
         store.remove(key)
+        keyIndex?.remove(key)
     }
 
     override fun loadAll(): Map<String, Any?> {
@@ -107,12 +152,94 @@ class RedisStore(
 
     override fun loadByKeyPrefix(keyPrefix: String): Map<String, Any?> {
         LOGGER.trace("Loading items in store: $storeName with key prefix: $keyPrefix")
-        val matchingKeys = store.keySet("*$keyPrefix*")
-        val items = store.getAll(matchingKeys)
+        val items = keyIndex?.let { loadIndexedByKeyPrefix(it, keyPrefix) } ?: run {
+            val matchingKeys = store.keySet(escapeGlob(keyPrefix) + "*")
+            store.getAll(matchingKeys)
+        }
         LOGGER.trace("{} items found in store: $storeName with key prefix: $keyPrefix", items.size)
         return items
     }
 
+    override fun loadPage(keyPrefix: String?, cursor: String?, limit: Int): StorePage {
+        val index = keyIndex ?: return super.loadPage(keyPrefix, cursor, limit)
+        LOGGER.trace("Loading page of {} items in store: {} with key prefix: {} after: {}", limit, storeName, keyPrefix, cursor)
+        ensureKeyIndex(index)
+
+        val keys = loadKeyPage(index, keyPrefix ?: "", cursor, limit)
+        if (keys.isEmpty()) {
+            return StorePage(emptyMap(), null)
+        }
+        val found = store.getAll(keys.toSet())
+        val staleKeys = keys.filter { !found.containsKey(it) }
+        if (staleKeys.isNotEmpty()) {
+            index.removeAll(staleKeys)
+        }
+        return StorePage(
+            items = keys.filter { found.containsKey(it) }.associateWith { found[it] },
+            nextCursor = if (keys.size == limit) keys.last() else null,
+        )
+    }
+
+    /**
+     * Reads matching keys from the index in pages, fetching the items for each page.
+     */
+    private fun loadIndexedByKeyPrefix(index: RLexSortedSet, keyPrefix: String): Map<String, Any?> {
+        ensureKeyIndex(index)
+        val items = mutableMapOf<String, Any?>()
+        val staleKeys = mutableListOf<String>()
+
+        var lastKey: String? = null
+        do {
+            val keys = loadKeyPage(index, keyPrefix, lastKey, KEY_PAGE_SIZE)
+            if (keys.isNotEmpty()) {
+                val found = store.getAll(keys.toSet())
+                items += found
+                keys.filterTo(staleKeys) { !found.containsKey(it) }
+                lastKey = keys.last()
+            }
+        } while (keys.size == KEY_PAGE_SIZE)
+
+        if (staleKeys.isNotEmpty()) {
+            LOGGER.trace("Removing {} expired keys from index for store: {}", staleKeys.size, storeName)
+            index.removeAll(staleKeys)
+        }
+        return items
+    }
+
+    /**
+     * Returns up to [count] keys with the given prefix, in lexicographic order,
+     * following [afterKey] if it is set.
+     *
+     * Redis compares keys by their UTF-8 bytes, and there is no string that sorts
+     * after every key with a given prefix, so the range is left open and the keys
+     * are read until one no longer has the prefix.
+     */
+    private fun loadKeyPage(index: RLexSortedSet, keyPrefix: String, afterKey: String?, count: Int): List<String> {
+        val keys = if (null != afterKey && afterKey.startsWith(keyPrefix)) {
+            index.rangeTail(afterKey, false, 0, count)
+        } else if (null == afterKey || compareUtf8(afterKey, keyPrefix) < 0) {
+            index.rangeTail(keyPrefix, true, 0, count)
+        } else {
+            return emptyList()
+        }
+        return keys.takeWhile { it.startsWith(keyPrefix) }
+    }
+
+    /**
+     * Populates the index from the existing keys, if the store contains items
+     * that were saved before the index was enabled.
+     */
+    private fun ensureKeyIndex(index: RLexSortedSet) {
+        if (keyIndexChecked) {
+            return
+        }
+        if (index.isEmpty() && !store.isEmpty()) {
+            LOGGER.debug("Building key index for store: {}", storeName)
+            store.keys.chunked(KEY_PAGE_SIZE).forEach { index.addAll(it) }
+        }
+        keyIndexChecked = true
+    }
+
     override fun hasItemWithKey(key: String): Boolean {
         LOGGER.trace("Checking for item with key: {} in store: {}", key, storeName)
         return store.containsKey(key)
@@ -126,11 +253,27 @@ class RedisStore(
 
     companion object {
         private const val ENV_VAR_EXPIRY = "IMPOSTER_STORE_REDIS_EXPIRY"
+        private const val ENV_VAR_KEY_INDEX = "IMPOSTER_STORE_REDIS_KEY_INDEX"
+        private const val KEY_PAGE_SIZE = 500
         private val LOGGER = LogManager.getLogger(RedisStore::class.java)
 
         /**
          * 30 minutes.
          */
         private const val DEFAULT_EXPIRY_SECS = 1800
+
+        internal fun keyIndexName(storeName: String) = "imposter:keyindex:$storeName"
+
+        /**
+         * Compares strings in the order used by Redis, which differs from [String.compareTo]
+         * for strings containing supplementary characters.
+         */
+        private fun compareUtf8(a: String, b: String): Int =
+            Arrays.compareUnsigned(a.toByteArray(Charsets.UTF_8), b.toByteArray(Charsets.UTF_8))
+
+        private fun escapeGlob(value: String): String =
+            value.replace(GLOB_SPECIAL_CHARS) { "\\" + it.value }
+
+        private val GLOB_SPECIAL_CHARS = Regex("[*?\\[\\]\\\\]")
     }
 }
@@ -52,7 +52,9 @@ import io.gatehill.imposter.store.core.Store
 import io.gatehill.imposter.store.factory.AbstractStoreFactory
 import org.apache.logging.log4j.LogManager
 import org.redisson.Redisson
+import org.redisson.api.RTopic
 import org.redisson.api.RedissonClient
+import org.redisson.client.codec.StringCodec
 import org.redisson.config.Config
 import java.io.File
 import java.io.IOException
@@ -71,6 +73,20 @@ class RedisStoreFactoryImpl @Inject constructor(
      */
     private val redisson: RedissonClient by lazy { buildRedissonClient(imposterConfig) }
 
+    /**
+     * Carries near cache invalidations between nodes.
+     */
+    private val invalidationTopic: RTopic by lazy {
+        redisson.getTopic(NEAR_CACHE_INVALIDATION_TOPIC, StringCodec.INSTANCE).also { topic ->
+            topic.addListener(String::class.java) { _, message ->
+                val storeName = message.substringBefore(INVALIDATION_SEPARATOR)
+                val key = if (message.contains(INVALIDATION_SEPARATOR)) message.substringAfter(INVALIDATION_SEPARATOR) else null
+                invalidateNearCache(storeName, key)
+            }
+            LOGGER.debug("Subscribed to near cache invalidations on topic: {}", NEAR_CACHE_INVALIDATION_TOPIC)
+        }
+    }
+
     private fun buildRedissonClient(imposterConfig: ImposterConfig): RedissonClient {
         val config: Config = try {
             val configFile = discoverConfigFile(imposterConfig)
@@ -103,11 +119,24 @@ class RedisStoreFactoryImpl @Inject constructor(
         if (!ephemeral) {
             LOGGER.info("Deleting all items from store: $storeName")
             redisson.getMapCache<String, Any>(storeName).clear()
+            redisson.getLexSortedSet(RedisStore.keyIndexName(storeName)).delete()
         }
         super.clearStore(storeName, ephemeral)
     }
 
+    override fun onNearCacheCreated(storeName: String) {
+        // ensure subscription
+        invalidationTopic
+    }
+
+    override fun publishInvalidation(storeName: String, key: String?) {
+        val message = key?.let { storeName + INVALIDATION_SEPARATOR + key } ?: storeName
+        invalidationTopic.publish(message)
+    }
+
     companion object {
+        private const val NEAR_CACHE_INVALIDATION_TOPIC = "imposter:store:invalidation"
+        private const val INVALIDATION_SEPARATOR = '\u0000'
         private val LOGGER = LogManager.getLogger(RedisStoreFactoryImpl::class.java)
     }
 }
@@ -43,11 +43,15 @@
 package io.gatehill.imposter.store.redis
 
 import io.gatehill.imposter.ImposterConfig
+import io.gatehill.imposter.config.util.EnvVars
 import io.gatehill.imposter.service.DeferredOperationService
 import io.gatehill.imposter.store.AbstractStoreFactoryTest
+import io.gatehill.imposter.store.core.Store
 import io.gatehill.imposter.util.TestEnvironmentUtil
 import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.Assertions
 import org.junit.jupiter.api.BeforeAll
+import org.junit.jupiter.api.Test
 import org.testcontainers.containers.GenericContainer
 import org.testcontainers.containers.wait.strategy.Wait
 import org.testcontainers.utility.DockerImageName
@@ -119,4 +123,59 @@ singleServerConfig:
         DeferredOperationService(),
         imposterConfig!!
     )
+
+    @Test
+    fun testLoadByKeyPrefixIsAnchored() {
+        factory.clearStore("kpa", false)
+        val store = buildIndexedStore("kpa")
+        store.save("foo_one", "bar")
+        store.save("other_foo_two", "baz")
+        store.save("foo*three", "qux")
+
+        val items = store.loadByKeyPrefix("foo")
+        Assertions.assertEquals(setOf("foo_one", "foo*three"), items.keys)
+
+        val wildcardItems = store.loadByKeyPrefix("foo*")
+        Assertions.assertEquals(setOf("foo*three"), wildcardItems.keys)
+    }
+
+    @Test
+    fun testLoadByKeyPrefixAcrossPages() {
+        factory.clearStore("kpp", false)
+        val store = buildIndexedStore("kpp")
+        repeat(1200) { store.save("item_$it", it) }
+        store.delete("item_7")
+
+        val items = store.loadByKeyPrefix("item_")
+        Assertions.assertEquals(1199, items.size)
+        Assertions.assertEquals(42, items["item_42"])
+    }
+
+    @Test
+    fun testLoadByKeyPrefixWithSupplementaryCharacters() {
+        factory.clearStore("kps", false)
+        val store = buildIndexedStore("kps")
+        store.save("foo_\uD83D\uDE00", "emoji")
+        store.save("foo_\uFFFD", "bmp")
+        store.save("fop", "other")
+
+        val items = store.loadByKeyPrefix("foo_")
+        Assertions.assertEquals(setOf("foo_\uD83D\uDE00", "foo_\uFFFD"), items.keys)
+
+        val page = store.loadPage("foo_", null, 10)
+        Assertions.assertEquals(setOf("foo_\uD83D\uDE00", "foo_\uFFFD"), page.items.keys)
+
+        // the cursor sorts before the prefix in UTF-16, but after it in UTF-8, as in Redis
+        val pastPrefix = store.loadPage("foo_\uFFFD", "foo_\uD83D\uDE00", 10)
+        Assertions.assertTrue(pastPrefix.items.isEmpty(), "No items should follow a cursor past the key prefix")
+    }
+
+    private fun buildIndexedStore(storeName: String): Store {
+        EnvVars.populate("IMPOSTER_STORE_REDIS_KEY_INDEX" to "true")
+        try {
+            return factory.buildNewStore(storeName)
+        } finally {
+            EnvVars.populate(emptyMap<String, String>())
+        }
+    }
 }
@@ -112,6 +112,28 @@ abstract class AbstractStoreFactoryTest {
         Assertions.assertEquals("baz", items["foo_two"])
     }
 
+    @Test
+    fun testLoadPage() {
+        factory.clearStore("lp", false)
+        val store = factory.buildNewStore("lp")
+        listOf("a_3", "a_1", "b_1", "a_5", "a_2", "a_4").forEach { store.save(it, "value_$it") }
+
+        val first = store.loadPage("a_", null, 2)
+        Assertions.assertEquals(listOf("a_1", "a_2"), first.items.keys.toList())
+        Assertions.assertEquals("value_a_1", first.items["a_1"])
+        Assertions.assertNotNull(first.nextCursor, "First page should have a cursor")
+
+        val second = store.loadPage("a_", first.nextCursor, 2)
+        Assertions.assertEquals(listOf("a_3", "a_4"), second.items.keys.toList())
+
+        val last = store.loadPage("a_", second.nextCursor, 2)
+        Assertions.assertEquals(listOf("a_5"), last.items.keys.toList())
+        Assertions.assertNull(last.nextCursor, "Last page should not have a cursor")
+
+        val all = store.loadPage(null, null, 10)
+        Assertions.assertEquals(6, all.items.size)
+    }
+
     @Test
     fun testSaveLoadMap() {
         val store = factory.buildNewStore("map")